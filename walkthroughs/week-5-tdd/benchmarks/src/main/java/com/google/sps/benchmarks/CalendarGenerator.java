@@ -0,0 +1,118 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.Event;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Builds synthetic calendars and meeting requests for the benchmarks. The same seed always builds
+ * the same calendar, so runs can be compared against a recorded baseline.
+ */
+public final class CalendarGenerator {
+  // Events last between 15 minutes and 2 hours, in steps of 15 minutes.
+  private static final int EVENT_STEP = 15;
+  private static final int EVENT_STEPS = 8;
+  private static final double AVERAGE_EVENT_DURATION = EVENT_STEP * (EVENT_STEPS + 1) / 2.0;
+
+  private final Random random;
+  private final int eventCount;
+  private final int attendeesPerEvent;
+  private final List<String> people = new ArrayList<>();
+
+  /**
+   * Creates a new generator.
+   *
+   * @param seed The seed for the random numbers.
+   * @param eventCount The number of events in the calendar.
+   * @param attendeesPerEvent The number of people at each event.
+   * @param density The average fraction of the day each person is busy, between 0 and 1.
+   */
+  public CalendarGenerator(long seed, int eventCount, int attendeesPerEvent, double density) {
+    if (density <= 0 || density > 1) {
+      throw new IllegalArgumentException("density must be greater than 0 and at most 1");
+    }
+
+    this.random = new Random(seed);
+    this.eventCount = eventCount;
+    this.attendeesPerEvent = attendeesPerEvent;
+
+    // Pick the number of people so that, on average, each of them is busy for the requested
+    // fraction of the day.
+    double busyMinutes = (double) eventCount * attendeesPerEvent * AVERAGE_EVENT_DURATION;
+    int peopleCount = (int) Math.ceil(busyMinutes / (density * TimeRange.WHOLE_DAY.duration()));
+    peopleCount = Math.max(peopleCount, attendeesPerEvent);
+    for (int i = 0; i < peopleCount; i++) {
+      people.add("Person " + i);
+    }
+  }
+
+  /**
+   * Returns the number of people who can be at events.
+   */
+  public int getPeopleCount() {
+    return people.size();
+  }
+
+  /**
+   * Returns a new calendar of events.
+   */
+  public List<Event> generateEvents() {
+    List<Event> events = new ArrayList<>(eventCount);
+    for (int i = 0; i < eventCount; i++) {
+      int duration = EVENT_STEP * (1 + random.nextInt(EVENT_STEPS));
+      int slots = (TimeRange.WHOLE_DAY.duration() - duration) / EVENT_STEP;
+      int start = EVENT_STEP * random.nextInt(slots + 1);
+      events.add(new Event("Event " + i, TimeRange.fromStartDuration(start, duration),
+          pickPeople(attendeesPerEvent)));
+    }
+    return events;
+  }
+
+  /**
+   * Returns a new meeting request for people picked at random.
+   *
+   * @param requiredCount The number of required attendees.
+   * @param optionalCount The number of optional attendees.
+   * @param duration The duration of the meeting in minutes.
+   */
+  public MeetingRequest generateRequest(int requiredCount, int optionalCount, int duration) {
+    List<String> attendees = pickPeople(requiredCount + optionalCount);
+    MeetingRequest request = new MeetingRequest(attendees.subList(0, requiredCount), duration);
+    for (String attendee : attendees.subList(requiredCount, attendees.size())) {
+      request.addOptionalAttendee(attendee);
+    }
+    return request;
+  }
+
+  private List<String> pickPeople(int count) {
+    count = Math.min(count, people.size());
+    Set<String> picked = new HashSet<>();
+    List<String> ordered = new ArrayList<>(count);
+    while (ordered.size() < count) {
+      String person = people.get(random.nextInt(people.size()));
+      if (picked.add(person)) {
+        ordered.add(person);
+      }
+    }
+    return ordered;
+  }
+}
@@ -0,0 +1,122 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.AttendeeEventIndex;
+import com.google.sps.BitmapCalendar;
+import com.google.sps.Event;
+import com.google.sps.EventStore;
+import com.google.sps.FindMeetingQuery;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@code FindMeetingQuery.query} against each calendar representation. Throughput and
+ * latency percentiles come from the benchmark modes; run with {@code -prof gc} to also report the
+ * allocation rate. Each invocation answers the next request from a fixed rotation, so results are
+ * not skewed by one lucky request.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class FindMeetingQueryBenchmark {
+  // The number of different requests cycled through during a run.
+  private static final int REQUEST_COUNT = 64;
+
+  @Param({"1000", "10000", "100000"})
+  public int eventCount;
+
+  @Param({"3"})
+  public int attendeesPerEvent;
+
+  @Param({"0.3"})
+  public double density;
+
+  @Param({"3"})
+  public int requiredCount;
+
+  @Param({"0", "5", "20"})
+  public int optionalCount;
+
+  @Param({"30"})
+  public int duration;
+
+  private final FindMeetingQuery query = new FindMeetingQuery();
+
+  private List<Event> events;
+  private BitmapCalendar bitmapCalendar;
+  private AttendeeEventIndex index;
+  private EventStore store;
+  private MeetingRequest[] requests;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    CalendarGenerator generator =
+        new CalendarGenerator(/* seed= */ 42, eventCount, attendeesPerEvent, density);
+    events = generator.generateEvents();
+    bitmapCalendar = new BitmapCalendar(events);
+    index = new AttendeeEventIndex(events);
+    store = new EventStore(events);
+
+    requests = new MeetingRequest[REQUEST_COUNT];
+    for (int i = 0; i < REQUEST_COUNT; i++) {
+      requests[i] = generator.generateRequest(requiredCount, optionalCount, duration);
+    }
+  }
+
+  private MeetingRequest nextRequest() {
+    next = (next + 1) % REQUEST_COUNT;
+    return requests[next];
+  }
+
+  @Benchmark
+  public Collection<TimeRange> eventList() {
+    return query.query(events, nextRequest());
+  }
+
+  @Benchmark
+  public Collection<TimeRange> bitmapCalendar() {
+    return query.query(bitmapCalendar, nextRequest());
+  }
+
+  @Benchmark
+  public Collection<TimeRange> attendeeEventIndex() {
+    return query.query(index, nextRequest());
+  }
+
+  @Benchmark
+  public Collection<TimeRange> eventStore() {
+    return query.query(store, nextRequest());
+  }
+}
@@ -0,0 +1,136 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.CalendarSnapshot;
+import com.google.sps.Event;
+import com.google.sps.FindMeetingQuery;
+import com.google.sps.MeetingRequest;
+import com.google.sps.PartitionedCalendar;
+import com.google.sps.TimeRange;
+import com.google.sps.WorkerProcess;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@code FindMeetingQuery.query} against a {@link PartitionedCalendar} as the calendar is
+ * split across more worker processes. Each trial starts one worker JVM per partition on this
+ * machine and talks to them over loopback, so the results include the round trips to the workers
+ * but not a real network. Run with {@code -t} greater than 1 to see how throughput grows when
+ * several queries share the workers.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PartitionedQueryBenchmark {
+  // The number of different requests cycled through during a run.
+  private static final int REQUEST_COUNT = 64;
+
+  @Param({"1", "2", "4", "8"})
+  public int partitions;
+
+  @Param({"100000"})
+  public int eventCount;
+
+  @Param({"3"})
+  public int attendeesPerEvent;
+
+  @Param({"0.3"})
+  public double density;
+
+  @Param({"3"})
+  public int requiredCount;
+
+  @Param({"5"})
+  public int optionalCount;
+
+  @Param({"30"})
+  public int duration;
+
+  private final FindMeetingQuery query = new FindMeetingQuery();
+  private final List<WorkerProcess> workers = new ArrayList<>();
+
+  private Path snapshotFile;
+  private PartitionedCalendar calendar;
+  private MeetingRequest[] requests;
+
+  /**
+   * The next request of each benchmark thread.
+   */
+  @State(Scope.Thread)
+  public static class Cursor {
+    int next;
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    CalendarGenerator generator =
+        new CalendarGenerator(/* seed= */ 42, eventCount, attendeesPerEvent, density);
+    List<Event> events = generator.generateEvents();
+    snapshotFile = Files.createTempFile("partitioned-benchmark", ".snapshot");
+    CalendarSnapshot.write(events, snapshotFile);
+
+    List<InetSocketAddress> addresses = new ArrayList<>();
+    for (int partition = 0; partition < partitions; partition++) {
+      WorkerProcess worker = WorkerProcess.start(snapshotFile, partition, partitions);
+      workers.add(worker);
+      addresses.add(worker.getAddress());
+    }
+    calendar = new PartitionedCalendar(addresses);
+
+    requests = new MeetingRequest[REQUEST_COUNT];
+    for (int i = 0; i < REQUEST_COUNT; i++) {
+      requests[i] = generator.generateRequest(requiredCount, optionalCount, duration);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    calendar.close();
+    for (WorkerProcess worker : workers) {
+      worker.close();
+    }
+    workers.clear();
+    Files.deleteIfExists(snapshotFile);
+  }
+
+  @Benchmark
+  public Collection<TimeRange> partitionedCalendar(Cursor cursor) {
+    cursor.next = (cursor.next + 1) % REQUEST_COUNT;
+    return query.query(calendar, requests[cursor.next]);
+  }
+}
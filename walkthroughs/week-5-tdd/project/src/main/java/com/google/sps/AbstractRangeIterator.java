@@ -0,0 +1,71 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A base for iterators that find their time ranges one at a time, so that a caller who stops early
+ * doesn't pay for scanning the rest of the day. Subclasses only implement {@link #computeNext()},
+ * which produces ranges packed as in {@link TimeRangeList}, so callers that want packed ranges
+ * never allocate a {@link TimeRange}.
+ */
+abstract class AbstractRangeIterator implements Iterator<TimeRange> {
+  private long next = TimeRangeList.NONE;
+  private boolean done;
+
+  /**
+   * Returns the next range packed into a {@code long}, or {@code TimeRangeList.NONE} if there are
+   * no more ranges. Not called again once it has returned {@code TimeRangeList.NONE}.
+   */
+  protected abstract long computeNext();
+
+  @Override
+  public final boolean hasNext() {
+    if (next == TimeRangeList.NONE && !done) {
+      next = computeNext();
+      done = next == TimeRangeList.NONE;
+    }
+    return next != TimeRangeList.NONE;
+  }
+
+  @Override
+  public final TimeRange next() {
+    long range = nextPacked();
+    return TimeRange.fromStartDuration(TimeRangeList.start(range), TimeRangeList.duration(range));
+  }
+
+  /**
+   * Returns the next range packed into a {@code long}.
+   */
+  final long nextPacked() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    long range = next;
+    next = TimeRangeList.NONE;
+    return range;
+  }
+
+  /**
+   * Adds the remaining ranges to {@code ranges} without boxing them.
+   */
+  final void drainTo(TimeRangeList ranges) {
+    while (hasNext()) {
+      ranges.addPacked(nextPacked());
+    }
+  }
+}
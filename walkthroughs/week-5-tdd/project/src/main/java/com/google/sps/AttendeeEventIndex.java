@@ -0,0 +1,185 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+/**
+ * An index from each attendee to the events they are attending, so that a query only looks at the
+ * events of the people it asks about. Events are numbered in ascending order of start time, and
+ * each attendee's event numbers are kept in a compressed bitmap. Walking the union of several
+ * attendees' bitmaps therefore visits their events already ordered by start time. Indexes are
+ * considered read-only once built.
+ */
+public final class AttendeeEventIndex implements RangeFinder {
+  private static final RoaringBitmap NO_EVENTS = new RoaringBitmap();
+
+  // The events ordered by ascending start time. An event's position is its id in the index.
+  private final Event[] events;
+
+  // The ids of the events each attendee is attending.
+  private final Map<String, RoaringBitmap> postings = new HashMap<>();
+
+  /**
+   * Creates a new index.
+   *
+   * @param events The events to index. Must be non-null.
+   */
+  public AttendeeEventIndex(Collection<Event> events) {
+    if (events == null) {
+      throw new IllegalArgumentException("events cannot be null");
+    }
+
+    this.events = events.toArray(new Event[0]);
+    Arrays.sort(this.events, (a, b) -> TimeRange.ORDER_BY_START.compare(a.getWhen(), b.getWhen()));
+
+    for (int id = 0; id < this.events.length; id++) {
+      for (String attendee : this.events[id].getAttendees()) {
+        RoaringBitmap posting = postings.get(attendee);
+        if (posting == null) {
+          posting = new RoaringBitmap();
+          postings.put(attendee, posting);
+        }
+        posting.add(id);
+      }
+    }
+
+    for (RoaringBitmap posting : postings.values()) {
+      posting.runOptimize();
+    }
+  }
+
+  /**
+   * Returns the number of events in the index.
+   */
+  public int size() {
+    return events.length;
+  }
+
+  @Override
+  public int getEventCount(String attendee) {
+    return postings.getOrDefault(attendee, NO_EVENTS).getCardinality();
+  }
+
+  /**
+   * Returns the events at least one of {@code attendees} is attending, in ascending order of start
+   * time.
+   */
+  public List<Event> getAttendingEvents(Collection<String> attendees) {
+    RoaringBitmap ids = getAttendingEventIds(attendees);
+    List<Event> attendingEvents = new ArrayList<>(ids.getCardinality());
+    IntIterator idIterator = ids.getIntIterator();
+    while (idIterator.hasNext()) {
+      attendingEvents.add(events[idIterator.next()]);
+    }
+    return Collections.unmodifiableList(attendingEvents);
+  }
+
+  @Override
+  public Collection<TimeRange> getRangesWithoutConflict(
+      Collection<String> attendees, long duration) {
+    return FindMeetingQuery.getRangesWithoutConflict(
+        getConflicts(getAttendingEventIds(attendees)), duration);
+  }
+
+  /**
+   * Returns the same ranges as {@link #getRangesWithoutConflict(Collection, long)}, walking the
+   * attendees' events only as far as the caller reads.
+   */
+  @Override
+  public Iterator<TimeRange> iterateRangesWithoutConflict(
+      Collection<String> attendees, long duration) {
+    return scan(attendees, duration);
+  }
+
+  @Override
+  public TimeRangeList getRangeListWithoutConflict(Collection<String> attendees, long duration) {
+    TimeRangeList validTimeRanges = new TimeRangeList();
+    scan(attendees, duration).drainTo(validTimeRanges);
+    return validTimeRanges;
+  }
+
+  private GapIterator scan(Collection<String> attendees, long duration) {
+    IntIterator idIterator = getAttendingEventIds(attendees).getIntIterator();
+    Iterator<TimeRange> conflicts = new Iterator<TimeRange>() {
+      @Override
+      public boolean hasNext() {
+        return idIterator.hasNext();
+      }
+
+      @Override
+      public TimeRange next() {
+        return events[idIterator.next()].getWhen();
+      }
+    };
+    return new GapIterator(conflicts, duration);
+  }
+
+  @Override
+  public Map<String, Collection<TimeRange>> getRangesWithoutConflictForEach(
+      Collection<String> attendees, long duration) {
+    Map<String, Collection<TimeRange>> ranges = new HashMap<>();
+    for (String attendee : attendees) {
+      RoaringBitmap posting = postings.getOrDefault(attendee, NO_EVENTS);
+      ranges.put(attendee,
+          FindMeetingQuery.getRangesWithoutConflict(getConflicts(posting), duration));
+    }
+    return ranges;
+  }
+
+  /**
+   * Returns the union of the posting lists of {@code attendees}. Only the lists of the requested
+   * people are read, however many events the index holds.
+   */
+  private RoaringBitmap getAttendingEventIds(Collection<String> attendees) {
+    List<RoaringBitmap> attendeePostings = new ArrayList<>(attendees.size());
+    for (String attendee : attendees) {
+      RoaringBitmap posting = postings.get(attendee);
+      if (posting != null) {
+        attendeePostings.add(posting);
+      }
+    }
+
+    if (attendeePostings.isEmpty()) {
+      return NO_EVENTS;
+    }
+    if (attendeePostings.size() == 1) {
+      return attendeePostings.get(0);
+    }
+    return FastAggregation.or(attendeePostings.iterator());
+  }
+
+  /**
+   * Returns the time ranges of the events in {@code ids}, in ascending order of start time.
+   */
+  private Collection<TimeRange> getConflicts(RoaringBitmap ids) {
+    List<TimeRange> conflicts = new ArrayList<>(ids.getCardinality());
+    IntIterator idIterator = ids.getIntIterator();
+    while (idIterator.hasNext()) {
+      conflicts.add(events[idIterator.next()].getWhen());
+    }
+    return conflicts;
+  }
+}
@@ -0,0 +1,73 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gives every attendee name a dense {@code int} id, starting at zero, so that calendars can refer
+ * to people with primitive ids instead of strings.
+ */
+public final class AttendeeInterner {
+  /**
+   * The id returned for names that have not been interned.
+   */
+  public static final int UNKNOWN = -1;
+
+  private final Map<String, Integer> ids = new HashMap<>();
+  private final List<String> names = new ArrayList<>();
+
+  /**
+   * Returns the id for {@code name}, giving it the next free id if it doesn't have one yet.
+   */
+  public int intern(String name) {
+    if (name == null) {
+      throw new IllegalArgumentException("name cannot be null");
+    }
+
+    Integer id = ids.get(name);
+    if (id == null) {
+      id = names.size();
+      ids.put(name, id);
+      names.add(name);
+    }
+    return id;
+  }
+
+  /**
+   * Returns the id for {@code name}, or {@code UNKNOWN} if it has not been interned.
+   */
+  public int getId(String name) {
+    Integer id = ids.get(name);
+    return id == null ? UNKNOWN : id;
+  }
+
+  /**
+   * Returns the name that was given {@code id}.
+   */
+  public String getName(int id) {
+    return names.get(id);
+  }
+
+  /**
+   * Returns the number of interned names. Ids range from zero up to, but not including, this value.
+   */
+  public int size() {
+    return names.size();
+  }
+}
@@ -0,0 +1,231 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A calendar that keeps one {@link DayBitmap} of busy minutes per attendee, so that the busy time
+ * of a group can be found with a word-wise OR instead of sorting the group's events. Events are
+ * clipped to the day. Calendars are considered read-only once built.
+ */
+public final class BitmapCalendar implements RangeFinder {
+  // The busy minutes of each attendee.
+  private final Map<String, long[]> busyMinutes = new HashMap<>();
+
+  // Events with no duration still split a free range in two (see
+  // {@code FindMeetingQuery.getRangesWithoutConflict}), so remember where they start. This may
+  // include the closing bound of the day.
+  private final Map<String, long[]> breakMinutes = new HashMap<>();
+
+  // The number of events each attendee is attending.
+  private final Map<String, Integer> eventCounts = new HashMap<>();
+
+  // A meeting with no duration fits even between back-to-back events, which look like one long
+  // event in the bitmaps, so those meetings are found from the events themselves.
+  private final List<Event> events;
+
+  /**
+   * Creates a new calendar.
+   *
+   * @param events The events to build the calendar from. Must be non-null.
+   */
+  public BitmapCalendar(Collection<Event> events) {
+    if (events == null) {
+      throw new IllegalArgumentException("events cannot be null");
+    }
+
+    this.events = new ArrayList<>(events);
+
+    for (Event event : events) {
+      TimeRange when = event.getWhen();
+      int start = Math.max(when.start(), TimeRange.START_OF_DAY);
+      int end = Math.min(when.end(), DayBitmap.MINUTES);
+
+      for (String attendee : event.getAttendees()) {
+        eventCounts.merge(attendee, 1, Integer::sum);
+        if (when.duration() > 0) {
+          DayBitmap.setRange(getOrCreate(busyMinutes, attendee), start, end);
+        } else if (when.start() >= TimeRange.START_OF_DAY && when.start() <= DayBitmap.MINUTES) {
+          DayBitmap.set(getOrCreate(breakMinutes, attendee), when.start());
+        }
+      }
+    }
+  }
+
+  @Override
+  public int getEventCount(String attendee) {
+    return eventCounts.getOrDefault(attendee, 0);
+  }
+
+  /**
+   * Returns the ranges of the day, in ascending order, in which none of {@code attendees} are busy
+   * and that are at least {@code duration} minutes long. The ranges are the same as the ones found
+   * by sorting and scanning the attendees' events, including the last range being closed by
+   * {@code TimeRange.END_OF_DAY}.
+   *
+   * @param attendees The people who must all be free.
+   * @param duration The minimum length of a range in minutes. Cannot be negative.
+   */
+  @Override
+  public Collection<TimeRange> getRangesWithoutConflict(
+      Collection<String> attendees, long duration) {
+    Collection<TimeRange> validTimeRanges = new ArrayList<TimeRange>();
+    iterateRangesWithoutConflict(attendees, duration).forEachRemaining(validTimeRanges::add);
+    return validTimeRanges;
+  }
+
+  /**
+   * Returns the same ranges as {@link #getRangesWithoutConflict(Collection, long)}, scanning the
+   * bitmaps only as far as the caller reads.
+   */
+  @Override
+  public Iterator<TimeRange> iterateRangesWithoutConflict(
+      Collection<String> attendees, long duration) {
+    return scan(attendees, duration);
+  }
+
+  @Override
+  public TimeRangeList getRangeListWithoutConflict(Collection<String> attendees, long duration) {
+    TimeRangeList validTimeRanges = new TimeRangeList();
+    scan(attendees, duration).drainTo(validTimeRanges);
+    return validTimeRanges;
+  }
+
+  private AbstractRangeIterator scan(Collection<String> attendees, long duration) {
+    if (duration < 0) {
+      throw new IllegalArgumentException("duration cannot be negative");
+    }
+    if (duration == 0) {
+      return new GapIterator(getOrderedAttendingEvents(attendees).iterator(), duration);
+    }
+
+    long[] busy = DayBitmap.create();
+    long[] breaks = DayBitmap.create();
+    addBusyMinutes(attendees, busy, breaks);
+    return new FreeRangeIterator(busy, breaks, duration);
+  }
+
+  /**
+   * Sets the minutes in which any of {@code attendees} are busy in {@code busy}, and the starts of
+   * their events with no duration in {@code breaks}.
+   */
+  void addBusyMinutes(Collection<String> attendees, long[] busy, long[] breaks) {
+    for (String attendee : attendees) {
+      long[] attendeeBusy = busyMinutes.get(attendee);
+      if (attendeeBusy != null) {
+        DayBitmap.or(busy, attendeeBusy);
+      }
+
+      long[] attendeeBreaks = breakMinutes.get(attendee);
+      if (attendeeBreaks != null) {
+        DayBitmap.or(breaks, attendeeBreaks);
+      }
+    }
+  }
+
+  /**
+   * Returns the events at least one of {@code attendees} is attending, in ascending order of start
+   * time. Events with the same start keep the order they were given in.
+   */
+  private List<TimeRange> getOrderedAttendingEvents(Collection<String> attendees) {
+    List<TimeRange> conflicts = new ArrayList<>();
+    for (Event event : events) {
+      if (!Collections.disjoint(event.getAttendees(), attendees)) {
+        conflicts.add(event.getWhen());
+      }
+    }
+    Collections.sort(conflicts, TimeRange.ORDER_BY_START);
+    return conflicts;
+  }
+
+  /**
+   * Scans the busy and break bitmaps for the free ranges that are at least {@code duration}
+   * minutes long.
+   */
+  static Collection<TimeRange> getFreeRanges(long[] busy, long[] breaks, long duration) {
+    Collection<TimeRange> validTimeRanges = new ArrayList<TimeRange>();
+    new FreeRangeIterator(busy, breaks, duration).forEachRemaining(validTimeRanges::add);
+    return validTimeRanges;
+  }
+
+  private static long[] getOrCreate(Map<String, long[]> bitmaps, String attendee) {
+    long[] bitmap = bitmaps.get(attendee);
+    if (bitmap == null) {
+      bitmap = DayBitmap.create();
+      bitmaps.put(attendee, bitmap);
+    }
+    return bitmap;
+  }
+
+  /**
+   * Finds the free ranges in a pair of busy and break bitmaps one at a time.
+   */
+  static final class FreeRangeIterator extends AbstractRangeIterator {
+    private final long[] busy;
+    private final long[] breaks;
+    private final long duration;
+
+    private int rangeStart = TimeRange.START_OF_DAY;
+
+    FreeRangeIterator(long[] busy, long[] breaks, long duration) {
+      this.busy = busy;
+      this.breaks = breaks;
+      this.duration = duration;
+    }
+
+    @Override
+    protected long computeNext() {
+      while (rangeStart < DayBitmap.MINUTES) {
+        int nextBusy = DayBitmap.nextSetBit(busy, rangeStart);
+        if (nextBusy == -1) {
+          nextBusy = DayBitmap.MINUTES;
+        }
+
+        long range = TimeRangeList.NONE;
+        // A break at the start of a range can't make the range any shorter, so only look past it.
+        int nextBreak = DayBitmap.nextSetBit(breaks, rangeStart + 1);
+        if (nextBreak != -1 && nextBreak <= nextBusy) {
+          if (nextBreak - rangeStart >= duration) {
+            range = TimeRangeList.packStartEnd(rangeStart, nextBreak, false);
+          }
+          rangeStart = nextBreak;
+        } else if (nextBusy == DayBitmap.MINUTES) {
+          // The last range of the day is measured against the inclusive end of the day.
+          if (TimeRange.END_OF_DAY - rangeStart >= duration) {
+            range = TimeRangeList.packStartEnd(rangeStart, TimeRange.END_OF_DAY, true);
+          }
+          rangeStart = DayBitmap.MINUTES;
+        } else {
+          if (nextBusy - rangeStart >= duration) {
+            range = TimeRangeList.packStartEnd(rangeStart, nextBusy, false);
+          }
+          rangeStart = DayBitmap.nextClearBit(busy, nextBusy);
+        }
+
+        if (range != TimeRangeList.NONE) {
+          return range;
+        }
+      }
+      return TimeRangeList.NONE;
+    }
+  }
+}
@@ -0,0 +1,415 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A read-only calendar stored in a compact binary file and read through a memory mapping, so that
+ * loading it only maps the file instead of parsing it. Lookups and scans read straight from the
+ * mapped buffer, without building {@link Event} objects.
+ *
+ * <p>The file is a header followed by sections of big-endian {@code int}s, laid out the same way as
+ * the arrays of an {@link EventStore}:
+ *
+ * <pre>
+ * magic, format version, event count, attendee count, attendee entry count, name byte count
+ * starts[events]                  ascending
+ * durations[events]
+ * attendeeOffsets[events + 1]     into attendeeIds
+ * attendeeIds[entries]
+ * postingOffsets[attendees + 1]   into postings
+ * postings[entries]               each attendee's event ids, ascending
+ * nameOffsets[attendees + 1]      into the name bytes
+ * name bytes                      UTF-8, ordered by bytes, so an attendee's id is their rank
+ * </pre>
+ *
+ * Event titles are not kept. A single mapping holds at most 2GB, which is well over ten million
+ * events.
+ */
+public final class CalendarSnapshot implements RangeFinder {
+  private static final int MAGIC = 0x43414C53;
+  private static final int FORMAT_VERSION = 1;
+  private static final int HEADER_INTS = 6;
+
+  private final ByteBuffer names;
+  private final IntBuffer starts;
+  private final IntBuffer durations;
+  private final IntBuffer attendeeOffsets;
+  private final IntBuffer attendeeIds;
+  private final IntBuffer postingOffsets;
+  private final IntBuffer postings;
+  private final IntBuffer nameOffsets;
+  private final int eventCount;
+  private final int attendeeCount;
+
+  private CalendarSnapshot(ByteBuffer buffer) throws IOException {
+    if (buffer.remaining() < HEADER_INTS * Integer.BYTES || buffer.getInt(0) != MAGIC) {
+      throw new IOException("not a calendar snapshot");
+    }
+    if (buffer.getInt(Integer.BYTES) != FORMAT_VERSION) {
+      throw new IOException("unsupported snapshot version " + buffer.getInt(Integer.BYTES));
+    }
+
+    IntBuffer ints = buffer.asIntBuffer();
+    eventCount = ints.get(2);
+    attendeeCount = ints.get(3);
+    int entryCount = ints.get(4);
+    int nameByteCount = ints.get(5);
+
+    int position = HEADER_INTS;
+    starts = slice(ints, position, eventCount);
+    position += eventCount;
+    durations = slice(ints, position, eventCount);
+    position += eventCount;
+    attendeeOffsets = slice(ints, position, eventCount + 1);
+    position += eventCount + 1;
+    attendeeIds = slice(ints, position, entryCount);
+    position += entryCount;
+    postingOffsets = slice(ints, position, attendeeCount + 1);
+    position += attendeeCount + 1;
+    postings = slice(ints, position, entryCount);
+    position += entryCount;
+    nameOffsets = slice(ints, position, attendeeCount + 1);
+    position += attendeeCount + 1;
+
+    ByteBuffer nameBytes = buffer.duplicate();
+    nameBytes.position(position * Integer.BYTES);
+    if (nameBytes.remaining() != nameByteCount) {
+      throw new IOException("calendar snapshot is truncated");
+    }
+    names = nameBytes.slice();
+  }
+
+  /**
+   * Writes {@code events} to {@code file} in the snapshot format, replacing the file if it exists.
+   *
+   * @param events The events to write. Must be non-null.
+   * @param file
+   */
+  public static void write(Collection<Event> events, Path file) throws IOException {
+    if (events == null) {
+      throw new IllegalArgumentException("events cannot be null");
+    }
+
+    Event[] ordered = events.toArray(new Event[0]);
+    Arrays.sort(ordered, (a, b) -> TimeRange.ORDER_BY_START.compare(a.getWhen(), b.getWhen()));
+
+    // Give every attendee their rank in byte order as their id, so names can be binary searched.
+    Map<String, byte[]> encodedNames = new HashMap<>();
+    int entryCount = 0;
+    for (Event event : ordered) {
+      for (String attendee : event.getAttendees()) {
+        encodedNames.computeIfAbsent(attendee, name -> name.getBytes(StandardCharsets.UTF_8));
+      }
+      entryCount += event.getAttendees().size();
+    }
+    List<Map.Entry<String, byte[]>> sortedNames = new ArrayList<>(encodedNames.entrySet());
+    Collections.sort(sortedNames, (a, b) -> compareBytes(a.getValue(), b.getValue()));
+    Map<String, Integer> ids = new HashMap<>();
+    int nameByteCount = 0;
+    for (int id = 0; id < sortedNames.size(); id++) {
+      ids.put(sortedNames.get(id).getKey(), id);
+      nameByteCount += sortedNames.get(id).getValue().length;
+    }
+
+    int attendeeCount = sortedNames.size();
+    long intCount = HEADER_INTS + 2L * ordered.length + (ordered.length + 1) + 2L * entryCount
+        + 2L * (attendeeCount + 1);
+    long size = intCount * Integer.BYTES + nameByteCount;
+    if (size > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("events are too large for one snapshot");
+    }
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+        StandardOpenOption.WRITE)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+      buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(ordered.length).putInt(attendeeCount)
+          .putInt(entryCount).putInt(nameByteCount);
+
+      for (Event event : ordered) {
+        buffer.putInt(event.getWhen().start());
+      }
+      for (Event event : ordered) {
+        buffer.putInt(event.getWhen().duration());
+      }
+
+      int[] eventAttendeeIds = new int[entryCount];
+      int[] postingCounts = new int[attendeeCount + 1];
+      int offset = 0;
+      for (Event event : ordered) {
+        buffer.putInt(offset);
+        for (String attendee : event.getAttendees()) {
+          int id = ids.get(attendee);
+          eventAttendeeIds[offset++] = id;
+          postingCounts[id + 1]++;
+        }
+      }
+      buffer.putInt(offset);
+      for (int id : eventAttendeeIds) {
+        buffer.putInt(id);
+      }
+
+      // Place each event id after the attendee's earlier events. Event ids are visited in
+      // ascending order, so every run comes out sorted.
+      for (int id = 0; id < attendeeCount; id++) {
+        postingCounts[id + 1] += postingCounts[id];
+      }
+      for (int postingOffset : postingCounts) {
+        buffer.putInt(postingOffset);
+      }
+      int[] eventPostings = new int[entryCount];
+      int[] filled = Arrays.copyOf(postingCounts, attendeeCount);
+      int entry = 0;
+      for (int eventId = 0; eventId < ordered.length; eventId++) {
+        for (int i = 0; i < ordered[eventId].getAttendees().size(); i++) {
+          eventPostings[filled[eventAttendeeIds[entry++]]++] = eventId;
+        }
+      }
+      for (int eventId : eventPostings) {
+        buffer.putInt(eventId);
+      }
+
+      int nameOffset = 0;
+      for (Map.Entry<String, byte[]> name : sortedNames) {
+        buffer.putInt(nameOffset);
+        nameOffset += name.getValue().length;
+      }
+      buffer.putInt(nameOffset);
+      for (Map.Entry<String, byte[]> name : sortedNames) {
+        buffer.put(name.getValue());
+      }
+      buffer.force();
+    }
+  }
+
+  /**
+   * Maps a snapshot written by {@link #write(Collection, Path)}. Nothing is read up front beyond
+   * the header, so loading takes about the same time however many events the snapshot holds.
+   */
+  public static CalendarSnapshot load(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IOException("calendar snapshot is too large");
+      }
+      // The mapping stays valid after the channel is closed.
+      return new CalendarSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  /**
+   * Returns the number of events in the snapshot.
+   */
+  public int size() {
+    return eventCount;
+  }
+
+  /**
+   * Returns the number of distinct attendees in the snapshot.
+   */
+  public int getAttendeeCount() {
+    return attendeeCount;
+  }
+
+  /**
+   * Returns the id for {@code attendee}, or {@code AttendeeInterner.UNKNOWN} if they are not
+   * attending any events. This binary searches the mapped name table.
+   */
+  public int getAttendeeId(String attendee) {
+    byte[] name = attendee.getBytes(StandardCharsets.UTF_8);
+    int low = 0;
+    int high = attendeeCount - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int comparison = compareName(mid, name);
+      if (comparison < 0) {
+        low = mid + 1;
+      } else if (comparison > 0) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return AttendeeInterner.UNKNOWN;
+  }
+
+  /**
+   * Returns the name of the attendee with id {@code attendeeId}.
+   */
+  public String getAttendeeName(int attendeeId) {
+    int start = nameOffsets.get(attendeeId);
+    byte[] name = new byte[nameOffsets.get(attendeeId + 1) - start];
+    ByteBuffer nameBytes = names.duplicate();
+    nameBytes.position(start);
+    nameBytes.get(name);
+    return new String(name, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Returns the start of event {@code id} in minutes. Events are numbered in ascending order of
+   * start time.
+   */
+  public int getStart(int id) {
+    return starts.get(id);
+  }
+
+  /**
+   * Returns the duration of event {@code id} in minutes.
+   */
+  public int getDuration(int id) {
+    return durations.get(id);
+  }
+
+  /**
+   * Returns the ids of the attendees of event {@code id}.
+   */
+  public int[] getAttendeeIds(int id) {
+    int start = attendeeOffsets.get(id);
+    int[] ids = new int[attendeeOffsets.get(id + 1) - start];
+    for (int i = 0; i < ids.length; i++) {
+      ids[i] = attendeeIds.get(start + i);
+    }
+    return ids;
+  }
+
+  @Override
+  public int getEventCount(String attendee) {
+    int attendeeId = getAttendeeId(attendee);
+    if (attendeeId == AttendeeInterner.UNKNOWN) {
+      return 0;
+    }
+    return postingOffsets.get(attendeeId + 1) - postingOffsets.get(attendeeId);
+  }
+
+  @Override
+  public Collection<TimeRange> getRangesWithoutConflict(
+      Collection<String> attendees, long duration) {
+    Collection<TimeRange> validTimeRanges = new ArrayList<TimeRange>();
+    iterateRangesWithoutConflict(attendees, duration).forEachRemaining(validTimeRanges::add);
+    return validTimeRanges;
+  }
+
+  @Override
+  public TimeRangeList getRangeListWithoutConflict(Collection<String> attendees, long duration) {
+    TimeRangeList validTimeRanges = new TimeRangeList();
+    new MergedRunIterator(new AttendeeRuns(attendees), duration).drainTo(validTimeRanges);
+    return validTimeRanges;
+  }
+
+  @Override
+  public Iterator<TimeRange> iterateRangesWithoutConflict(
+      Collection<String> attendees, long duration) {
+    return new MergedRunIterator(new AttendeeRuns(attendees), duration);
+  }
+
+  private int compareName(int attendeeId, byte[] name) {
+    int start = nameOffsets.get(attendeeId);
+    int length = nameOffsets.get(attendeeId + 1) - start;
+    for (int i = 0; i < Math.min(length, name.length); i++) {
+      int comparison = Integer.compare(names.get(start + i) & 0xFF, name[i] & 0xFF);
+      if (comparison != 0) {
+        return comparison;
+      }
+    }
+    return Integer.compare(length, name.length);
+  }
+
+  private static int compareBytes(byte[] a, byte[] b) {
+    for (int i = 0; i < Math.min(a.length, b.length); i++) {
+      int comparison = Integer.compare(a[i] & 0xFF, b[i] & 0xFF);
+      if (comparison != 0) {
+        return comparison;
+      }
+    }
+    return Integer.compare(a.length, b.length);
+  }
+
+  private static IntBuffer slice(IntBuffer ints, int position, int length) throws IOException {
+    if (position + length > ints.limit()) {
+      throw new IOException("calendar snapshot is truncated");
+    }
+    IntBuffer section = ints.duplicate();
+    section.position(position);
+    section.limit(position + length);
+    return section.slice();
+  }
+
+  /**
+   * The runs of event ids of the requested attendees that have events, read from the mapped
+   * buffer. Event ids are in ascending order of start time, so they are also the keys.
+   */
+  private final class AttendeeRuns implements EventRuns {
+    private final int[] offsets;
+    private final int[] lengths;
+    private final int count;
+
+    AttendeeRuns(Collection<String> attendees) {
+      offsets = new int[attendees.size()];
+      lengths = new int[attendees.size()];
+      int count = 0;
+      for (String attendee : attendees) {
+        int attendeeId = getAttendeeId(attendee);
+        if (attendeeId != AttendeeInterner.UNKNOWN) {
+          offsets[count] = postingOffsets.get(attendeeId);
+          lengths[count] = postingOffsets.get(attendeeId + 1) - offsets[count];
+          count++;
+        }
+      }
+      this.count = count;
+    }
+
+    @Override
+    public int getRunCount() {
+      return count;
+    }
+
+    @Override
+    public int getLength(int run) {
+      return lengths[run];
+    }
+
+    @Override
+    public int getStart(int run, int index) {
+      return starts.get(postings.get(offsets[run] + index));
+    }
+
+    @Override
+    public int getEnd(int run, int index) {
+      int eventId = postings.get(offsets[run] + index);
+      return starts.get(eventId) + durations.get(eventId);
+    }
+
+    @Override
+    public long getKey(int run, int index) {
+      return postings.get(offsets[run] + index);
+    }
+  }
+}
@@ -0,0 +1,82 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Counts the events read by the scans of another {@link RangeFinder}.
+ */
+final class CountingRangeFinder implements RangeFinder {
+  private final RangeFinder rangeFinder;
+  private long eventsScanned;
+
+  CountingRangeFinder(RangeFinder rangeFinder) {
+    this.rangeFinder = rangeFinder;
+  }
+
+  @Override
+  public Collection<TimeRange> getRangesWithoutConflict(
+      Collection<String> attendees, long duration) {
+    count(attendees);
+    return rangeFinder.getRangesWithoutConflict(attendees, duration);
+  }
+
+  @Override
+  public TimeRangeList getRangeListWithoutConflict(Collection<String> attendees, long duration) {
+    count(attendees);
+    return rangeFinder.getRangeListWithoutConflict(attendees, duration);
+  }
+
+  @Override
+  public Iterator<TimeRange> iterateRangesWithoutConflict(
+      Collection<String> attendees, long duration) {
+    count(attendees);
+    return rangeFinder.iterateRangesWithoutConflict(attendees, duration);
+  }
+
+  @Override
+  public Map<String, Collection<TimeRange>> getRangesWithoutConflictForEach(
+      Collection<String> attendees, long duration) {
+    count(attendees);
+    return rangeFinder.getRangesWithoutConflictForEach(attendees, duration);
+  }
+
+  @Override
+  public int getEventCount(String attendee) {
+    return rangeFinder.getEventCount(attendee);
+  }
+
+  @Override
+  public int getLargestGroupSize() {
+    return rangeFinder.getLargestGroupSize();
+  }
+
+  /**
+   * Returns the number of events read so far. An event is counted once for each of the scanned
+   * attendees who is attending it.
+   */
+  long getEventsScanned() {
+    return eventsScanned;
+  }
+
+  private void count(Collection<String> attendees) {
+    for (String attendee : attendees) {
+      eventsScanned += rangeFinder.getEventCount(attendee);
+    }
+  }
+}
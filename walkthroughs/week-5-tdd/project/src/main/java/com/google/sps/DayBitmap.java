@@ -0,0 +1,130 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+/**
+ * Helpers for working with a day stored as a bitmap of minutes. Bit {@code i} of the bitmap
+ * represents minute {@code i} of the day. The bitmap has one extra bit past the last minute of the
+ * day so that a marker can be placed on the closing bound of the day.
+ */
+public final class DayBitmap {
+  /**
+   * The number of minutes represented by a bitmap, not counting the closing bound.
+   */
+  public static final int MINUTES = TimeRange.WHOLE_DAY.duration();
+
+  /**
+   * The number of {@code long} words needed to hold every minute of the day and the closing bound.
+   */
+  public static final int WORDS = (MINUTES + 1 + Long.SIZE - 1) / Long.SIZE;
+
+  private DayBitmap() {
+    // Disallow instances.
+  }
+
+  /**
+   * Returns a new bitmap with no bits set.
+   */
+  public static long[] create() {
+    return new long[WORDS];
+  }
+
+  /**
+   * Sets the bit for minute {@code index}.
+   */
+  public static void set(long[] bits, int index) {
+    bits[index >>> 6] |= 1L << index;
+  }
+
+  /**
+   * Sets every bit from {@code from} (inclusive) to {@code to} (exclusive).
+   */
+  public static void setRange(long[] bits, int from, int to) {
+    if (from >= to) {
+      return;
+    }
+
+    int firstWord = from >>> 6;
+    int lastWord = (to - 1) >>> 6;
+    // Shifts in Java only use the low six bits, so these masks select the tail of the first word
+    // and the head of the last word.
+    long firstMask = -1L << from;
+    long lastMask = -1L >>> -to;
+
+    if (firstWord == lastWord) {
+      bits[firstWord] |= firstMask & lastMask;
+      return;
+    }
+
+    bits[firstWord] |= firstMask;
+    for (int word = firstWord + 1; word < lastWord; word++) {
+      bits[word] = -1L;
+    }
+    bits[lastWord] |= lastMask;
+  }
+
+  /**
+   * Sets every bit in {@code into} that is set in {@code from}.
+   */
+  public static void or(long[] into, long[] from) {
+    for (int word = 0; word < WORDS; word++) {
+      into[word] |= from[word];
+    }
+  }
+
+  /**
+   * Returns the index of the first set bit at or after {@code from}, or {@code -1} if there is
+   * none.
+   */
+  public static int nextSetBit(long[] bits, int from) {
+    int word = from >>> 6;
+    if (word >= WORDS) {
+      return -1;
+    }
+
+    long current = bits[word] & (-1L << from);
+    while (true) {
+      if (current != 0) {
+        return (word * Long.SIZE) + Long.numberOfTrailingZeros(current);
+      }
+      if (++word == WORDS) {
+        return -1;
+      }
+      current = bits[word];
+    }
+  }
+
+  /**
+   * Returns the index of the first clear bit at or after {@code from}. Bits past the end of the
+   * bitmap are treated as clear.
+   */
+  public static int nextClearBit(long[] bits, int from) {
+    int word = from >>> 6;
+    if (word >= WORDS) {
+      return from;
+    }
+
+    long current = ~bits[word] & (-1L << from);
+    while (true) {
+      if (current != 0) {
+        return (word * Long.SIZE) + Long.numberOfTrailingZeros(current);
+      }
+      if (++word == WORDS) {
+        return WORDS * Long.SIZE;
+      }
+      current = ~bits[word];
+    }
+  }
+}
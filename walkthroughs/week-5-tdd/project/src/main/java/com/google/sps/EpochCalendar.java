@@ -0,0 +1,164 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A calendar of {@link EpochEvent}s that can be searched over any stretch of days. Each attendee's
+ * busy times are kept in their own {@link IntervalTree}, so finding the busy times of a group
+ * between two points in time only visits the group's events in that window. Recurring events are
+ * kept as their rules, and only their occurrences within the searched window are worked out.
+ * Calendars are considered read-only once built.
+ */
+public final class EpochCalendar {
+  private final Map<String, IntervalTree> busyTrees = new HashMap<>();
+  private final Map<String, List<RecurringEvent>> recurringEvents = new HashMap<>();
+
+  /**
+   * Creates a new calendar.
+   *
+   * @param events The events to build the calendar from. Must be non-null.
+   */
+  public EpochCalendar(Collection<EpochEvent> events) {
+    this(events, Collections.emptyList());
+  }
+
+  /**
+   * Creates a new calendar with recurring events.
+   *
+   * @param events The one-off events to build the calendar from. Must be non-null.
+   * @param recurringEvents The series of events to build the calendar from. Must be non-null.
+   */
+  public EpochCalendar(Collection<EpochEvent> events, Collection<RecurringEvent> recurringEvents) {
+    if (events == null) {
+      throw new IllegalArgumentException("events cannot be null");
+    }
+
+    if (recurringEvents == null) {
+      throw new IllegalArgumentException("recurringEvents cannot be null");
+    }
+
+    Map<String, List<EpochRange>> busyRanges = new HashMap<>();
+    for (EpochEvent event : events) {
+      // An event with no duration doesn't keep anybody busy.
+      if (event.getWhen().duration() == 0) {
+        continue;
+      }
+
+      for (String attendee : event.getAttendees()) {
+        List<EpochRange> ranges = busyRanges.get(attendee);
+        if (ranges == null) {
+          ranges = new ArrayList<>();
+          busyRanges.put(attendee, ranges);
+        }
+        ranges.add(event.getWhen());
+      }
+    }
+
+    for (Map.Entry<String, List<EpochRange>> entry : busyRanges.entrySet()) {
+      busyTrees.put(entry.getKey(), new IntervalTree(entry.getValue()));
+    }
+
+    for (RecurringEvent series : recurringEvents) {
+      // A series with no duration doesn't keep anybody busy.
+      if (series.getFirst().duration() == 0) {
+        continue;
+      }
+
+      for (String attendee : series.getAttendees()) {
+        List<RecurringEvent> attendeeSeries = this.recurringEvents.get(attendee);
+        if (attendeeSeries == null) {
+          attendeeSeries = new ArrayList<>();
+          this.recurringEvents.put(attendee, attendeeSeries);
+        }
+        attendeeSeries.add(series);
+      }
+    }
+  }
+
+  /**
+   * Returns the times within {@code window} when at least one of {@code attendees} is busy, as
+   * non-overlapping ranges in ascending order. Ranges that touch are merged.
+   */
+  public List<EpochRange> getBusyRanges(Collection<String> attendees, EpochRange window) {
+    List<EpochRange> overlapping = new ArrayList<>();
+    boolean recurring = false;
+    for (String attendee : attendees) {
+      IntervalTree tree = busyTrees.get(attendee);
+      if (tree != null) {
+        tree.addOverlapping(window, overlapping);
+      }
+
+      List<RecurringEvent> attendeeSeries = recurringEvents.get(attendee);
+      if (attendeeSeries != null) {
+        recurring = true;
+        for (RecurringEvent series : attendeeSeries) {
+          series.addOccurrences(window, overlapping);
+        }
+      }
+    }
+    if (attendees.size() > 1 || recurring) {
+      Collections.sort(overlapping, EpochRange.ORDER_BY_START);
+    }
+
+    List<EpochRange> merged = new ArrayList<>();
+    long mergedStart = 0;
+    long mergedEnd = Long.MIN_VALUE;
+    for (EpochRange range : overlapping) {
+      long start = Math.max(range.start(), window.start());
+      long end = Math.min(range.end(), window.end());
+      if (start > mergedEnd) {
+        if (mergedEnd != Long.MIN_VALUE) {
+          merged.add(EpochRange.fromStartEnd(mergedStart, mergedEnd));
+        }
+        mergedStart = start;
+        mergedEnd = end;
+      } else if (end > mergedEnd) {
+        mergedEnd = end;
+      }
+    }
+    if (mergedEnd != Long.MIN_VALUE) {
+      merged.add(EpochRange.fromStartEnd(mergedStart, mergedEnd));
+    }
+    return merged;
+  }
+
+  /**
+   * Returns the ranges within {@code window}, in ascending order, that are at least
+   * {@code duration} minutes long and in which none of {@code attendees} are busy.
+   */
+  public List<EpochRange> getRangesWithoutConflict(
+      Collection<String> attendees, EpochRange window, long duration) {
+    List<EpochRange> validRanges = new ArrayList<>();
+    long prevConflictEndTime = window.start();
+    for (EpochRange conflict : getBusyRanges(attendees, window)) {
+      if (conflict.start() - prevConflictEndTime >= duration) {
+        validRanges.add(EpochRange.fromStartEnd(prevConflictEndTime, conflict.start()));
+      }
+      prevConflictEndTime = conflict.end();
+    }
+
+    if (window.end() - prevConflictEndTime >= duration) {
+      validRanges.add(EpochRange.fromStartEnd(prevConflictEndTime, window.end()));
+    }
+    return validRanges;
+  }
+}
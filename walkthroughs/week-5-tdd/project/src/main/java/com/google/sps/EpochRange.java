@@ -0,0 +1,138 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Comparator;
+
+/**
+ * Class representing a span of time measured in minutes since the Unix epoch. Unlike
+ * {@link TimeRange}, an {@code EpochRange} is not limited to a single day, so it can describe
+ * events and search horizons that run across days and weeks.
+ */
+public final class EpochRange {
+  /**
+   * The number of minutes in a day.
+   */
+  public static final long MINUTES_PER_DAY = TimeRange.WHOLE_DAY.duration();
+
+  /**
+   * A comparator for sorting ranges by their start time in ascending order.
+   */
+  public static final Comparator<EpochRange> ORDER_BY_START = new Comparator<EpochRange>() {
+    @Override
+    public int compare(EpochRange a, EpochRange b) {
+      return Long.compare(a.start, b.start);
+    }
+  };
+
+  private final long start;
+  private final long duration;
+
+  private EpochRange(long start, long duration) {
+    this.start = start;
+    this.duration = duration;
+  }
+
+  /**
+   * Returns the start of the range in minutes since the epoch.
+   */
+  public long start() {
+    return start;
+  }
+
+  /**
+   * Returns the number of minutes between the start and end.
+   */
+  public long duration() {
+    return duration;
+  }
+
+  /**
+   * Returns the end of the range. This ending value is the closing exclusive bound.
+   */
+  public long end() {
+    return start + duration;
+  }
+
+  /**
+   * Checks if two ranges overlap. Ranges that only touch at their bounds do not overlap.
+   */
+  public boolean overlaps(EpochRange other) {
+    return start < other.end() && other.start < end();
+  }
+
+  /**
+   * Checks if this range completely contains another range. If two ranges are the same, they
+   * contain each other.
+   */
+  public boolean contains(EpochRange other) {
+    return start <= other.start && other.end() <= end();
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof EpochRange && equals(this, (EpochRange) other);
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(start) ^ Long.hashCode(duration);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("Range: [%d, %d)", start, start + duration);
+  }
+
+  private static boolean equals(EpochRange a, EpochRange b) {
+    return a.start == b.start && a.duration == b.duration;
+  }
+
+  /**
+   * Creates an {@code EpochRange} from {@code start} (inclusive) to {@code end} (exclusive).
+   */
+  public static EpochRange fromStartEnd(long start, long end) {
+    if (end < start) {
+      throw new IllegalArgumentException("end cannot come before start");
+    }
+    return new EpochRange(start, end - start);
+  }
+
+  /**
+   * Create an {@code EpochRange} starting at {@code start} with a duration equal to
+   * {@code duration}.
+   */
+  public static EpochRange fromStartDuration(long start, long duration) {
+    if (duration < 0) {
+      throw new IllegalArgumentException("duration cannot be negative");
+    }
+    return new EpochRange(start, duration);
+  }
+
+  /**
+   * Creates the {@code EpochRange} that covers {@code range} on the day starting at
+   * {@code dayStart} minutes since the epoch.
+   */
+  public static EpochRange onDay(long dayStart, TimeRange range) {
+    return fromStartDuration(dayStart + range.start(), range.duration());
+  }
+
+  /**
+   * Creates the {@code EpochRange} covering the whole of day number {@code day} since the epoch.
+   */
+  public static EpochRange wholeDay(long day) {
+    return new EpochRange(day * MINUTES_PER_DAY, MINUTES_PER_DAY);
+  }
+}
@@ -0,0 +1,48 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+/**
+ * The events of a group of attendees as one run per attendee, each sorted by start time, read by a
+ * {@link MergedRunIterator}. Stores expose their own columns through this rather than copying them,
+ * so merging the runs allocates nothing per event.
+ */
+interface EventRuns {
+  /**
+   * Returns the number of runs.
+   */
+  int getRunCount();
+
+  /**
+   * Returns the number of events in run {@code run}.
+   */
+  int getLength(int run);
+
+  /**
+   * Returns the start of event {@code index} of run {@code run} in minutes.
+   */
+  int getStart(int run, int index);
+
+  /**
+   * Returns the exclusive end of event {@code index} of run {@code run} in minutes.
+   */
+  int getEnd(int run, int index);
+
+  /**
+   * Returns the key of event {@code index} of run {@code run}. An event has the same key in every
+   * run it is in, and events with the same start are in ascending order of key in every run.
+   */
+  long getKey(int run, int index);
+}
@@ -0,0 +1,542 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * One immutable version of a {@link VersionedEventStore}. Each attendee's events are kept as a
+ * run sorted by start time, and the runs are spread over a fixed number of shards by attendee.
+ * A new version only copies the runs of the attendees whose events changed and the shards that
+ * hold them; everything else is shared with the version it was made from. Events with no attendees
+ * don't affect any query, so they are kept in a run of their own that no attendee reads.
+ *
+ * <p>Events with the same start are kept in the order they were added, so a snapshot finds the
+ * same ranges as {@link FindMeetingQuery#query(Collection, MeetingRequest)} over its events in the
+ * order they were added.
+ */
+public final class EventSnapshot implements RangeFinder {
+  // The number of shards the attendees are spread over. More shards make each write copy less.
+  private static final int SHARDS = 64;
+
+  private static final int[] NO_INDEXES = new int[0];
+
+  private final long version;
+  private final int size;
+  // The sequence number for the next event that is added. Sequence numbers tell apart events that
+  // are equal, and order events with the same start.
+  private final long nextSequence;
+  private final Shard[] shards;
+  // The events with no attendees.
+  private final Run unattended;
+
+  private EventSnapshot(
+      long version, int size, long nextSequence, Shard[] shards, Run unattended) {
+    this.version = version;
+    this.size = size;
+    this.nextSequence = nextSequence;
+    this.shards = shards;
+    this.unattended = unattended;
+  }
+
+  /**
+   * Returns version 0 of a store holding {@code events}.
+   */
+  static EventSnapshot of(Collection<Event> events) {
+    Shard[] shards = new Shard[SHARDS];
+    Arrays.fill(shards, new Shard(Collections.emptyMap()));
+    Run unattended = Run.merge(null, Collections.emptySet(), new Event[0], NO_INDEXES, 0);
+    EventSnapshot empty = new EventSnapshot(-1, 0, 0, shards, unattended);
+    return empty.apply(Collections.emptyList(), prepare(events));
+  }
+
+  /**
+   * Sorts and groups {@code events} by attendee so that they can be added to a snapshot by
+   * {@link #apply(Collection, Batch)}. This is the costly part of adding events, and doesn't
+   * depend on the snapshot, so a writer can do it before taking its turn.
+   */
+  static Batch prepare(Collection<Event> events) {
+    List<Event> given = new ArrayList<>(events);
+
+    // Sort the events once, by start and then by their order in the batch, as primitive keys.
+    long[] order = new long[given.size()];
+    Map<String, int[]> counts = new HashMap<>();
+    for (int index = 0; index < order.length; index++) {
+      Event event = given.get(index);
+      order[index] = ((long) event.getWhen().start() << 32) | index;
+      for (String attendee : event.getAttendees()) {
+        counts.computeIfAbsent(attendee, unused -> new int[1])[0]++;
+      }
+    }
+    Arrays.sort(order);
+
+    // Deal the sorted events out to their attendees, so each attendee's events stay sorted.
+    Map<String, int[]> indexes = new HashMap<>(counts.size() * 2);
+    for (Map.Entry<String, int[]> entry : counts.entrySet()) {
+      indexes.put(entry.getKey(), new int[entry.getValue()[0]]);
+      entry.getValue()[0] = 0;
+    }
+    int[] unattended = new int[order.length];
+    int unattendedCount = 0;
+    for (long key : order) {
+      int index = (int) key;
+      Collection<String> attendees = given.get(index).getAttendees();
+      if (attendees.isEmpty()) {
+        unattended[unattendedCount++] = index;
+      }
+      for (String attendee : attendees) {
+        int[] filled = counts.get(attendee);
+        indexes.get(attendee)[filled[0]++] = index;
+      }
+    }
+    return new Batch(given.toArray(new Event[0]), indexes,
+        Arrays.copyOf(unattended, unattendedCount));
+  }
+
+  /**
+   * Returns the version that comes after this one, with {@code removed} taken out and then
+   * {@code added} put in. Each removed event takes out the first added event that is equal to it.
+   *
+   * @throws IllegalArgumentException if a removed event is not in this version.
+   */
+  EventSnapshot apply(Collection<Event> removed, Collection<Event> added) {
+    return apply(removed, prepare(added));
+  }
+
+  /**
+   * Returns the version that comes after this one, with {@code removed} taken out and then the
+   * events of {@code added} put in, in the order they were given to
+   * {@link #prepare(Collection)}.
+   *
+   * @throws IllegalArgumentException if a removed event is not in this version.
+   */
+  EventSnapshot apply(Collection<Event> removed, Batch added) {
+    // The events removed from each attendee's run.
+    Map<String, Set<Long>> removedSequences = new HashMap<>();
+    Set<Long> removedUnattended = new HashSet<>();
+    int newSize = size;
+
+    Set<Long> removedEverywhere = new HashSet<>();
+    for (Event event : removed) {
+      long sequence = find(event, removedEverywhere);
+      if (sequence == -1) {
+        throw new IllegalArgumentException("event is not in the store: " + event.getTitle());
+      }
+      removedEverywhere.add(sequence);
+      if (event.getAttendees().isEmpty()) {
+        removedUnattended.add(sequence);
+      }
+      for (String attendee : event.getAttendees()) {
+        removedSequences.computeIfAbsent(attendee, unused -> new HashSet<>()).add(sequence);
+      }
+      newSize--;
+    }
+
+    // The events of the batch take the next sequence numbers, in the order they were given.
+    long firstSequence = nextSequence;
+    newSize += added.events.length;
+
+    Set<String> changed = new HashSet<>(removedSequences.keySet());
+    changed.addAll(added.indexes.keySet());
+    Map<Integer, Map<String, Run>> changedShards = new HashMap<>();
+    for (String attendee : changed) {
+      int shard = getShard(attendee);
+      Map<String, Run> runs = changedShards.get(shard);
+      if (runs == null) {
+        runs = new HashMap<>(shards[shard].runs);
+        changedShards.put(shard, runs);
+      }
+
+      Run run = Run.merge(runs.get(attendee),
+          removedSequences.getOrDefault(attendee, Collections.emptySet()), added.events,
+          added.indexes.getOrDefault(attendee, NO_INDEXES), firstSequence);
+      if (run.size() == 0) {
+        runs.remove(attendee);
+      } else {
+        runs.put(attendee, run);
+      }
+    }
+
+    Shard[] newShards = shards.clone();
+    for (Map.Entry<Integer, Map<String, Run>> entry : changedShards.entrySet()) {
+      newShards[entry.getKey()] = new Shard(entry.getValue());
+    }
+
+    Run newUnattended = unattended;
+    if (!removedUnattended.isEmpty() || added.unattended.length > 0) {
+      newUnattended = Run.merge(
+          unattended, removedUnattended, added.events, added.unattended, firstSequence);
+    }
+    return new EventSnapshot(version + 1, newSize, firstSequence + added.events.length,
+        newShards, newUnattended);
+  }
+
+  /**
+   * Returns the version of the store this snapshot was taken from. Every change to the store makes
+   * a new, higher version.
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Returns the number of events in the snapshot.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns every event in the snapshot, including those with no attendees, in the order they were
+   * added.
+   */
+  public List<Event> getEvents() {
+    List<Entry> entries = new ArrayList<>(size);
+    Set<Long> seen = new HashSet<>();
+    for (Shard shard : shards) {
+      for (Run run : shard.runs.values()) {
+        addEntries(run, seen, entries);
+      }
+    }
+    addEntries(unattended, seen, entries);
+    Collections.sort(entries, Entry.ORDER);
+
+    List<Event> events = new ArrayList<>(entries.size());
+    for (Entry entry : entries) {
+      events.add(entry.event);
+    }
+    return events;
+  }
+
+  /**
+   * Returns the events {@code attendee} is attending, in ascending order of start time.
+   */
+  public List<Event> getEvents(String attendee) {
+    Run run = getRun(attendee);
+    if (run == null) {
+      return Collections.emptyList();
+    }
+    return Collections.unmodifiableList(Arrays.asList(run.events));
+  }
+
+  /**
+   * Returns the parts of {@code window} in which {@code attendee} is busy, in ascending order and
+   * merged so that no two ranges overlap or touch. Events with no duration don't make anyone busy.
+   * The merged ranges of each attendee are kept with their events, so this only finds and clips
+   * the ones in the window.
+   */
+  public TimeRangeList getBusyRanges(String attendee, TimeRange window) {
+    TimeRangeList ranges = new TimeRangeList();
+    Run run = getRun(attendee);
+    if (run == null) {
+      return ranges;
+    }
+
+    // The merged ranges are sorted by their ends too, so find the first one that ends inside the
+    // window.
+    TimeRangeList busy = run.busy;
+    int low = 0;
+    int high = busy.size();
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (busy.getEnd(middle) <= window.start()) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+
+    for (int i = low; i < busy.size() && busy.getStart(i) < window.end(); i++) {
+      int start = Math.max(busy.getStart(i), window.start());
+      int end = Math.min(busy.getEnd(i), window.end());
+      ranges.add(start, end - start);
+    }
+    return ranges;
+  }
+
+  @Override
+  public int getEventCount(String attendee) {
+    Run run = getRun(attendee);
+    return run == null ? 0 : run.size();
+  }
+
+  @Override
+  public Collection<TimeRange> getRangesWithoutConflict(
+      Collection<String> attendees, long duration) {
+    Collection<TimeRange> validTimeRanges = new ArrayList<TimeRange>();
+    iterateRangesWithoutConflict(attendees, duration).forEachRemaining(validTimeRanges::add);
+    return validTimeRanges;
+  }
+
+  @Override
+  public TimeRangeList getRangeListWithoutConflict(Collection<String> attendees, long duration) {
+    TimeRangeList validTimeRanges = new TimeRangeList();
+    new MergedRunIterator(new AttendeeRuns(attendees), duration).drainTo(validTimeRanges);
+    return validTimeRanges;
+  }
+
+  /**
+   * Returns the same ranges as {@link #getRangesWithoutConflict(Collection, long)}, merging the
+   * attendees' runs only as far as the caller reads.
+   */
+  @Override
+  public Iterator<TimeRange> iterateRangesWithoutConflict(
+      Collection<String> attendees, long duration) {
+    return new MergedRunIterator(new AttendeeRuns(attendees), duration);
+  }
+
+  private Run getRun(String attendee) {
+    return shards[getShard(attendee)].runs.get(attendee);
+  }
+
+  /**
+   * Adds the events of {@code run} that aren't in {@code seen} to {@code entries}, and adds their
+   * sequence numbers to {@code seen}.
+   */
+  private static void addEntries(Run run, Set<Long> seen, List<Entry> entries) {
+    for (int i = 0; i < run.size(); i++) {
+      if (seen.add(run.sequences[i])) {
+        entries.add(new Entry(run.events[i], run.sequences[i]));
+      }
+    }
+  }
+
+  /**
+   * Returns the sequence number of an event equal to {@code event} that isn't in {@code skipped},
+   * or -1 if there is none.
+   */
+  private long find(Event event, Set<Long> skipped) {
+    Run run = event.getAttendees().isEmpty()
+        ? unattended
+        : getRun(event.getAttendees().iterator().next());
+    if (run == null) {
+      return -1;
+    }
+
+    int start = event.getWhen().start();
+    for (int i = run.firstStartingAt(start); i < run.size() && run.starts[i] == start; i++) {
+      if (run.events[i].equals(event) && !skipped.contains(run.sequences[i])) {
+        return run.sequences[i];
+      }
+    }
+    return -1;
+  }
+
+  private static int getShard(String attendee) {
+    return Math.floorMod(attendee.hashCode(), SHARDS);
+  }
+
+  /**
+   * Events sorted and grouped by attendee, ready to be added to a snapshot. Made by
+   * {@link #prepare(Collection)}.
+   */
+  static final class Batch {
+    // The events, in the order they were given.
+    private final Event[] events;
+    // For each attendee, the indexes of their events in ascending order of start and then index.
+    private final Map<String, int[]> indexes;
+    // The indexes of the events with no attendees, in the same order.
+    private final int[] unattended;
+
+    private Batch(Event[] events, Map<String, int[]> indexes, int[] unattended) {
+      this.events = events;
+      this.indexes = indexes;
+      this.unattended = unattended;
+    }
+
+    /**
+     * Returns the attendees of the events in the batch.
+     */
+    Set<String> getAttendees() {
+      return indexes.keySet();
+    }
+  }
+
+  /**
+   * The runs of the attendees that hash to one shard. Never changed once made.
+   */
+  private static final class Shard {
+    private final Map<String, Run> runs;
+
+    Shard(Map<String, Run> runs) {
+      this.runs = runs;
+    }
+  }
+
+  /**
+   * An event and its sequence number.
+   */
+  private static final class Entry {
+    static final Comparator<Entry> ORDER = Comparator.comparingLong(entry -> entry.sequence);
+
+    private final Event event;
+    private final long sequence;
+
+    Entry(Event event, long sequence) {
+      this.event = event;
+      this.sequence = sequence;
+    }
+  }
+
+  /**
+   * The events of one attendee, in ascending order of start time and then sequence number, with
+   * their columns stored side by side. Never changed once made.
+   */
+  private static final class Run {
+    private final Event[] events;
+    private final long[] sequences;
+    private final int[] starts;
+    private final int[] ends;
+    // The minutes the attendee is busy, merged. Set by merge before the run is shared.
+    private TimeRangeList busy;
+
+    private Run(int size) {
+      events = new Event[size];
+      sequences = new long[size];
+      starts = new int[size];
+      ends = new int[size];
+    }
+
+    int size() {
+      return events.length;
+    }
+
+    /**
+     * Returns the index of the first event that starts at or after {@code start}.
+     */
+    int firstStartingAt(int start) {
+      int low = 0;
+      int high = starts.length;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (starts[middle] < start) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      return low;
+    }
+
+    /**
+     * Returns a run holding the events of {@code run}, which can be null, without the events in
+     * {@code removed} and with the events of {@code batch} at {@code added}, in one pass over
+     * {@code run}. {@code added} must already be sorted, and the event at index {@code i} of the
+     * batch has sequence number {@code firstSequence + i}.
+     */
+    static Run merge(
+        Run run, Set<Long> removed, Event[] batch, int[] added, long firstSequence) {
+      int oldSize = run == null ? 0 : run.size();
+
+      Run merged = new Run(oldSize - removed.size() + added.length);
+      int count = 0;
+      int i = 0;
+      int j = 0;
+      while (i < oldSize || j < added.length) {
+        // New events have higher sequence numbers, so they go after old events with the same start.
+        if (j == added.length
+            || (i < oldSize && run.starts[i] <= batch[added[j]].getWhen().start())) {
+          if (!removed.contains(run.sequences[i])) {
+            merged.set(count++, run.events[i], run.sequences[i]);
+          }
+          i++;
+        } else {
+          merged.set(count++, batch[added[j]], firstSequence + added[j]);
+          j++;
+        }
+      }
+      merged.busy = merged.mergeBusy();
+      return merged;
+    }
+
+    /**
+     * Returns the ranges covered by the events of the run, merged. The events are sorted by
+     * start, so this is a single pass.
+     */
+    private TimeRangeList mergeBusy() {
+      TimeRangeList ranges = new TimeRangeList();
+      for (int i = 0; i < size(); i++) {
+        if (ends[i] > starts[i]) {
+          ranges.add(starts[i], ends[i] - starts[i]);
+        }
+      }
+      ranges.merge();
+      return ranges;
+    }
+
+    private void set(int index, Event event, long sequence) {
+      events[index] = event;
+      sequences[index] = sequence;
+      starts[index] = event.getWhen().start();
+      ends[index] = event.getWhen().end();
+    }
+  }
+
+  /**
+   * The runs of the requested attendees that have events. Sequence numbers are the keys, so events
+   * with the same start are merged in the order they were added.
+   */
+  private final class AttendeeRuns implements EventRuns {
+    private final Run[] runs;
+    private final int count;
+
+    AttendeeRuns(Collection<String> attendees) {
+      runs = new Run[attendees.size()];
+      int count = 0;
+      for (String attendee : attendees) {
+        Run run = getRun(attendee);
+        if (run != null) {
+          runs[count++] = run;
+        }
+      }
+      this.count = count;
+    }
+
+    @Override
+    public int getRunCount() {
+      return count;
+    }
+
+    @Override
+    public int getLength(int run) {
+      return runs[run].size();
+    }
+
+    @Override
+    public int getStart(int run, int index) {
+      return runs[run].starts[index];
+    }
+
+    @Override
+    public int getEnd(int run, int index) {
+      return runs[run].ends[index];
+    }
+
+    @Override
+    public long getKey(int run, int index) {
+      return runs[run].sequences[index];
+    }
+  }
+}
@@ -0,0 +1,243 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A read-only calendar stored as parallel primitive arrays instead of {@link Event} objects.
+ * Attendees are interned to dense ids, events are numbered in ascending order of start time, and
+ * each attendee's events are kept as a sorted run of event ids. Finding the ranges without conflict
+ * for a group merges the group's runs and reads start and end times straight from the arrays, so
+ * the scan allocates nothing per event.
+ */
+public final class EventStore implements RangeFinder {
+  private final AttendeeInterner attendees = new AttendeeInterner();
+
+  // Event columns, indexed by event id.
+  private final String[] titles;
+  private final int[] starts;
+  private final int[] ends;
+
+  // The attendees of event {@code i} are {@code attendeeIds[attendeeOffsets[i]]} up to, but not
+  // including, {@code attendeeIds[attendeeOffsets[i + 1]]}.
+  private final int[] attendeeOffsets;
+  private final int[] attendeeIds;
+
+  // The events of attendee {@code a}, in ascending order, are {@code postings[postingOffsets[a]]}
+  // up to, but not including, {@code postings[postingOffsets[a + 1]]}.
+  private final int[] postingOffsets;
+  private final int[] postings;
+
+  /**
+   * Creates a new store.
+   *
+   * @param events The events to store. Must be non-null.
+   */
+  public EventStore(Collection<Event> events) {
+    if (events == null) {
+      throw new IllegalArgumentException("events cannot be null");
+    }
+
+    Event[] ordered = events.toArray(new Event[0]);
+    Arrays.sort(ordered, (a, b) -> TimeRange.ORDER_BY_START.compare(a.getWhen(), b.getWhen()));
+
+    int attendeeTotal = 0;
+    for (Event event : ordered) {
+      attendeeTotal += event.getAttendees().size();
+    }
+
+    titles = new String[ordered.length];
+    starts = new int[ordered.length];
+    ends = new int[ordered.length];
+    attendeeOffsets = new int[ordered.length + 1];
+    attendeeIds = new int[attendeeTotal];
+
+    int offset = 0;
+    for (int id = 0; id < ordered.length; id++) {
+      Event event = ordered[id];
+      titles[id] = event.getTitle();
+      starts[id] = event.getWhen().start();
+      ends[id] = event.getWhen().end();
+      attendeeOffsets[id] = offset;
+      for (String attendee : event.getAttendees()) {
+        attendeeIds[offset++] = attendees.intern(attendee);
+      }
+    }
+    attendeeOffsets[ordered.length] = offset;
+
+    // Count the events of each attendee, then place each event id after the attendee's earlier
+    // events. Event ids are visited in ascending order, so every run comes out sorted.
+    postingOffsets = new int[attendees.size() + 1];
+    for (int attendeeId : attendeeIds) {
+      postingOffsets[attendeeId + 1]++;
+    }
+    for (int attendeeId = 0; attendeeId < attendees.size(); attendeeId++) {
+      postingOffsets[attendeeId + 1] += postingOffsets[attendeeId];
+    }
+
+    postings = new int[attendeeTotal];
+    int[] filled = Arrays.copyOf(postingOffsets, attendees.size());
+    for (int id = 0; id < ordered.length; id++) {
+      for (int i = attendeeOffsets[id]; i < attendeeOffsets[id + 1]; i++) {
+        postings[filled[attendeeIds[i]]++] = id;
+      }
+    }
+  }
+
+  /**
+   * Returns the number of events in the store.
+   */
+  public int size() {
+    return starts.length;
+  }
+
+  /**
+   * Returns the number of distinct attendees in the store.
+   */
+  public int getAttendeeCount() {
+    return attendees.size();
+  }
+
+  /**
+   * Returns the id for {@code attendee}, or {@code AttendeeInterner.UNKNOWN} if they are not
+   * attending any events.
+   */
+  public int getAttendeeId(String attendee) {
+    return attendees.getId(attendee);
+  }
+
+  @Override
+  public int getEventCount(String attendee) {
+    int attendeeId = attendees.getId(attendee);
+    if (attendeeId == AttendeeInterner.UNKNOWN) {
+      return 0;
+    }
+    return postingOffsets[attendeeId + 1] - postingOffsets[attendeeId];
+  }
+
+  /**
+   * Returns the name of the attendee with id {@code attendeeId}.
+   */
+  public String getAttendeeName(int attendeeId) {
+    return attendees.getName(attendeeId);
+  }
+
+  /**
+   * Returns the start of event {@code id} in minutes.
+   */
+  public int getStart(int id) {
+    return starts[id];
+  }
+
+  /**
+   * Returns the exclusive end of event {@code id} in minutes.
+   */
+  public int getEnd(int id) {
+    return ends[id];
+  }
+
+  /**
+   * Returns event {@code id} as an {@link Event}. This allocates, so it is meant for handing events
+   * to callers rather than for scanning.
+   */
+  public Event getEvent(int id) {
+    List<String> eventAttendees = new ArrayList<>(attendeeOffsets[id + 1] - attendeeOffsets[id]);
+    for (int i = attendeeOffsets[id]; i < attendeeOffsets[id + 1]; i++) {
+      eventAttendees.add(attendees.getName(attendeeIds[i]));
+    }
+    return new Event(
+        titles[id], TimeRange.fromStartEnd(starts[id], ends[id], false), eventAttendees);
+  }
+
+  @Override
+  public Collection<TimeRange> getRangesWithoutConflict(
+      Collection<String> attendees, long duration) {
+    Collection<TimeRange> validTimeRanges = new ArrayList<TimeRange>();
+    iterateRangesWithoutConflict(attendees, duration).forEachRemaining(validTimeRanges::add);
+    return validTimeRanges;
+  }
+
+  @Override
+  public TimeRangeList getRangeListWithoutConflict(Collection<String> attendees, long duration) {
+    TimeRangeList validTimeRanges = new TimeRangeList();
+    new MergedRunIterator(new AttendeeRuns(attendees), duration).drainTo(validTimeRanges);
+    return validTimeRanges;
+  }
+
+  /**
+   * Returns the same ranges as {@link #getRangesWithoutConflict(Collection, long)}, merging the
+   * attendees' runs only as far as the caller reads.
+   */
+  @Override
+  public Iterator<TimeRange> iterateRangesWithoutConflict(
+      Collection<String> attendees, long duration) {
+    return new MergedRunIterator(new AttendeeRuns(attendees), duration);
+  }
+
+  /**
+   * The runs of event ids of the requested attendees that have events. Event ids are in ascending
+   * order of start time, so they are also the keys.
+   */
+  private final class AttendeeRuns implements EventRuns {
+    private final int[] offsets;
+    private final int[] lengths;
+    private final int count;
+
+    AttendeeRuns(Collection<String> attendees) {
+      offsets = new int[attendees.size()];
+      lengths = new int[attendees.size()];
+      int count = 0;
+      for (String attendee : attendees) {
+        int attendeeId = EventStore.this.attendees.getId(attendee);
+        if (attendeeId != AttendeeInterner.UNKNOWN) {
+          offsets[count] = postingOffsets[attendeeId];
+          lengths[count] = postingOffsets[attendeeId + 1] - postingOffsets[attendeeId];
+          count++;
+        }
+      }
+      this.count = count;
+    }
+
+    @Override
+    public int getRunCount() {
+      return count;
+    }
+
+    @Override
+    public int getLength(int run) {
+      return lengths[run];
+    }
+
+    @Override
+    public int getStart(int run, int index) {
+      return starts[postings[offsets[run] + index]];
+    }
+
+    @Override
+    public int getEnd(int run, int index) {
+      return ends[postings[offsets[run] + index]];
+    }
+
+    @Override
+    public long getKey(int run, int index) {
+      return postings[offsets[run] + index];
+    }
+  }
+}
@@ -0,0 +1,88 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes an {@link Event} as {@code {"title": ..., "when": ..., "attendees": [...]}}
+ * without reflection. Events are read through the {@link Event} constructor, so a missing title,
+ * time or attendee list is rejected with the same {@link IllegalArgumentException}. Unknown fields
+ * are skipped.
+ */
+public final class EventTypeAdapter extends TypeAdapter<Event> {
+  private final TimeRangeTypeAdapter timeRangeAdapter = new TimeRangeTypeAdapter();
+
+  @Override
+  public void write(JsonWriter out, Event event) throws IOException {
+    if (event == null) {
+      out.nullValue();
+      return;
+    }
+
+    out.beginObject();
+    out.name("title").value(event.getTitle());
+    out.name("when");
+    timeRangeAdapter.write(out, event.getWhen());
+    out.name("attendees");
+    MeetingRequestTypeAdapter.writeNames(out, event.getAttendees());
+    out.endObject();
+  }
+
+  @Override
+  public Event read(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+
+    String title = null;
+    TimeRange when = null;
+    List<String> attendees = null;
+    in.beginObject();
+    while (in.hasNext()) {
+      switch (in.nextName()) {
+        case "title":
+          if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+          } else {
+            title = in.nextString();
+          }
+          break;
+        case "when":
+          when = timeRangeAdapter.read(in);
+          break;
+        case "attendees":
+          if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+          } else {
+            attendees = new ArrayList<>();
+            MeetingRequestTypeAdapter.readNames(in, attendees);
+          }
+          break;
+        default:
+          in.skipValue();
+      }
+    }
+    in.endObject();
+    return new Event(title, when, attendees);
+  }
+}
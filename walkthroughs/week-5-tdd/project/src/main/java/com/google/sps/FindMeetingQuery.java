@@ -15,13 +15,24 @@
 package com.google.sps;
 
 import org.apache.commons.math3.util.CombinatoricsUtils;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public final class FindMeetingQuery {
   /**
@@ -29,18 +40,253 @@ public final class FindMeetingQuery {
    *
    * If time ranges are available with optional attendees, those ranges are returned.
    * Otherwise, the time ranges when required attendees are available are returned.
+   *
+   * If the request has a quorum, only times when enough of its members can stay for the whole
+   * meeting are returned, and the duration must be positive. A meeting can be held anywhere
+   * within each range, but ranges can then overlap.
    * @param events
    * @param request
    * @return Returns the collection of time ranges when the event can be held.
    */
   public Collection<TimeRange> query(Collection<Event> events, MeetingRequest request) {
-    if (request.getDuration() > TimeRange.WHOLE_DAY.duration()) {
+    return query(new EventListRangeFinder(events), request);
+  }
+
+  /**
+   * Get the time ranges when an event can be held as a lazy stream, in ascending order. The
+   * stream holds the same ranges as {@link #query(Collection, MeetingRequest)}, but ranges are only
+   * found as they are read, so {@code findFirst()} or {@code limit(k)} stop scanning once the first
+   * or the first {@code k} ranges are known. The attendees' events are kept in a heap rather than
+   * sorted up front.
+   *
+   * <p>The required attendees' ranges are always found in full when there are optional attendees,
+   * since choosing the optimal group of optional attendees depends on the whole day.
+   * @param events
+   * @param request
+   * @return Returns a stream of the time ranges when the event can be held.
+   */
+  public Stream<TimeRange> stream(Collection<Event> events, MeetingRequest request) {
+    return stream(new EventListRangeFinder(events), request);
+  }
+
+  /**
+   * Get the collection of time ranges when an event can be held, finding when the attendees are
+   * free with {@code rangeFinder}. Every calendar in this package is a {@link RangeFinder}, from
+   * busy bitmaps to a snapshot of a {@link VersionedEventStore} or a {@link PartitionedCalendar},
+   * and each returns the same ranges as {@link #query(Collection, MeetingRequest)} over the same
+   * events. Some calendars need the duration to be positive.
+   * @param rangeFinder
+   * @param request
+   * @return Returns the collection of time ranges when the event can be held.
+   */
+  public Collection<TimeRange> query(RangeFinder rangeFinder, MeetingRequest request) {
+    return query(rangeFinder, request, SearchBudget.unlimited(), null).toTimeRanges();
+  }
+
+  /**
+   * Get the time ranges when an event can be held, packed into a {@link TimeRangeList}, in the
+   * same way as {@link #query(RangeFinder, MeetingRequest)}. Range finders that scan packed ranges
+   * never allocate a {@link TimeRange}, so callers can leave boxing to the edge of the server.
+   *
+   * <p>The search over groups of optional attendees stops once {@code budget} runs out, and the
+   * best ranges found so far are returned. If {@code trace} is not null, how much work the query
+   * did and how long each of its passes took are written to it.
+   * @param rangeFinder
+   * @param request
+   * @param budget
+   * @param trace Can be null.
+   * @return Returns the time ranges when the event can be held.
+   */
+  public TimeRangeList query(RangeFinder rangeFinder, MeetingRequest request,
+      SearchBudget budget, QueryTrace trace) {
+    if (trace == null) {
+      return findRanges(rangeFinder, request, budget, null);
+    }
+
+    CountingRangeFinder countingRangeFinder = new CountingRangeFinder(rangeFinder);
+    long startTime = System.nanoTime();
+    TimeRangeList ranges = findRanges(countingRangeFinder, request, budget, trace);
+    trace.totalNanos = System.nanoTime() - startTime;
+    trace.eventsScanned = countingRangeFinder.getEventsScanned();
+    trace.combinationsEvaluated = budget.getSubsetsEvaluated();
+    trace.rangesProduced = ranges.size();
+    return ranges;
+  }
+
+  /**
+   * Get the collection of time ranges when an event can be held in a room that holds everyone
+   * attending. A meeting can be held anywhere within each returned range in a single room, found
+   * with {@link RoomCalendar#getFreeRooms(TimeRange, int)}. Ranges of different rooms can overlap,
+   * so the ranges are sorted by start but not merged. If the request has a quorum, the room must
+   * also hold the members the quorum needs beyond the ones already attending.
+   *
+   * <p>Optional attendees are added in the same way as {@link #query(Collection, MeetingRequest)},
+   * except that the largest groups of optional attendees are first found without rooms. If no room
+   * holds one of those groups, every smaller group that fits in the largest room is checked, one
+   * size at a time, before the ranges for the required attendees are returned.
+   * @param events
+   * @param rooms
+   * @param request Must have a positive duration.
+   * @return Returns the collection of time ranges when the event can be held.
+   */
+  public Collection<TimeRange> query(
+      Collection<Event> events, RoomCalendar rooms, MeetingRequest request) {
+    return query(new RoomRangeFinder(new EventListRangeFinder(events), rooms, request), request);
+  }
+
+  /**
+   * Get the collection of time ranges when an event can be held in a room that holds everyone
+   * attending, in the same way as {@link #query(Collection, RoomCalendar, MeetingRequest)}.
+   * @param rangeFinder
+   * @param rooms
+   * @param request Must have a positive duration.
+   * @return Returns the collection of time ranges when the event can be held.
+   */
+  public Collection<TimeRange> query(
+      RangeFinder rangeFinder, RoomCalendar rooms, MeetingRequest request) {
+    return query(new RoomRangeFinder(rangeFinder, rooms, request), request);
+  }
+
+  /**
+   * Get the collection of time ranges when an event can be held for each of the request's
+   * durations, as {@link #query(Collection, MeetingRequest)} would find them for each duration on
+   * its own. The gaps between the events of each group of attendees are found once, for the
+   * shortest positive duration, and only filtered for the longer ones, so the optional attendees
+   * of every duration share their scans too.
+   * @param events
+   * @param request
+   * @return Returns the time ranges when the event can be held, by duration in ascending order.
+   */
+  public SortedMap<Long, Collection<TimeRange>> queryEachDuration(
+      Collection<Event> events, MeetingRequest request) {
+    SortedMap<Long, TimeRangeList> ranges =
+        queryEachDuration(new EventListRangeFinder(events), request, null);
+    SortedMap<Long, Collection<TimeRange>> timeRanges = new TreeMap<>();
+    for (Map.Entry<Long, TimeRangeList> entry : ranges.entrySet()) {
+      timeRanges.put(entry.getKey(), entry.getValue().toTimeRanges());
+    }
+    return timeRanges;
+  }
+
+  /**
+   * Get the time ranges when an event can be held for each of the request's durations, packed
+   * into {@link TimeRangeList}s, in the same way as
+   * {@link #queryEachDuration(Collection, MeetingRequest)}. If {@code metrics} is not null, each
+   * duration's work is recorded in it as a query of its own.
+   * @param rangeFinder
+   * @param request
+   * @param metrics Can be null.
+   * @return Returns the time ranges when the event can be held, by duration in ascending order.
+   */
+  public SortedMap<Long, TimeRangeList> queryEachDuration(
+      RangeFinder rangeFinder, MeetingRequest request, QueryMetrics metrics) {
+    // Durations that aren't positive find different gaps, so they are queried on their own.
+    SortedSet<Long> positiveDurations = request.getDurations().tailSet(1L);
+    RangeFinder sharedRangeFinder = positiveDurations.isEmpty()
+        ? rangeFinder
+        : new SharedGapsRangeFinder(rangeFinder, positiveDurations.first());
+
+    SortedMap<Long, TimeRangeList> ranges = new TreeMap<>();
+    for (long duration : request.getDurations()) {
+      MeetingRequest durationRequest = request.withDuration(duration);
+      QueryTrace trace = metrics == null ? null : new QueryTrace(durationRequest);
+      ranges.put(duration,
+          query(sharedRangeFinder, durationRequest, SearchBudget.unlimited(), trace));
+      if (trace != null) {
+        metrics.record(trace);
+      }
+    }
+    return ranges;
+  }
+
+  /**
+   * Get the collection of ranges within {@code horizon} when an event can be held. The horizon can
+   * span any number of days, so a whole week can be searched in one call. Optional attendees are
+   * handled the same way as in {@link #query(Collection, MeetingRequest)}.
+   * @param calendar
+   * @param request Must have a positive duration.
+   * @param horizon The window to search.
+   * @return Returns the collection of ranges when the event can be held.
+   */
+  public Collection<EpochRange> query(
+      EpochCalendar calendar, MeetingRequest request, EpochRange horizon) {
+    if (request.getDuration() <= 0) {
+      throw new IllegalArgumentException("duration must be positive");
+    }
+
+    if (request.getDuration() > horizon.duration()) {
       return Arrays.asList();
     }
 
+    Collection<EpochRange> rangesAvailableRequired = calendar.getRangesWithoutConflict(
+        request.getAttendees(), horizon, request.getDuration());
+
+    if (rangesAvailableRequired.isEmpty() || request.getOptionalAttendees().isEmpty()) {
+      return rangesAvailableRequired;
+    }
+
+    Collection<EpochRange> rangesAvailableOptional = OptionalAttendeeSolver.optimalRanges(
+        calendar, request, horizon, rangesAvailableRequired);
+
+    if (rangesAvailableOptional.isEmpty()) {
+      return rangesAvailableRequired;
+    } else {
+      return rangesAvailableOptional;
+    }
+  }
+
+  /**
+   * Get the time ranges when an event can be held, spending at most about {@code budget} on
+   * choosing between groups of optional attendees. The most promising groups are tried first, and
+   * when the budget runs out the best ranges found so far are returned. The result says whether
+   * the ranges are proven optimal, and how many groups and events were looked at.
+   * @param events
+   * @param request
+   * @param budget How long the search over optional attendees may take. Must not be negative.
+   * @return Returns the time ranges when the event can be held, with the work it took.
+   */
+  public MeetingQueryResult query(
+      Collection<Event> events, MeetingRequest request, Duration budget) {
+    return query(new EventListRangeFinder(events), request, budget);
+  }
+
+  /**
+   * Get the time ranges when an event can be held within a time budget, in the same way as
+   * {@link #query(Collection, MeetingRequest, Duration)}, finding when the attendees are free with
+   * {@code rangeFinder}.
+   * @param rangeFinder
+   * @param request
+   * @param budget Must not be negative.
+   * @return Returns the time ranges when the event can be held, with the work it took.
+   */
+  public MeetingQueryResult query(
+      RangeFinder rangeFinder, MeetingRequest request, Duration budget) {
+    SearchBudget searchBudget = SearchBudget.of(budget);
+    QueryTrace trace = new QueryTrace(request);
+    TimeRangeList ranges = query(rangeFinder, request, searchBudget, trace);
+    return new MeetingQueryResult(ranges.toTimeRanges(), !searchBudget.hasStopped(),
+        trace.getCombinationsEvaluated(), trace.getEventsScanned());
+  }
+
+  /**
+   * Finds the ranges for {@code request}. If {@code trace} is not null, the wall time of the
+   * required and optional passes is written to it.
+   */
+  private TimeRangeList findRanges(RangeFinder rangeFinder, MeetingRequest request,
+      SearchBudget budget, QueryTrace trace) {
+    if (request.getDuration() > TimeRange.WHOLE_DAY.duration()) {
+      return new TimeRangeList(0);
+    }
+    rangeFinder = withQuorum(rangeFinder, request);
+
+    long requiredStartTime = System.nanoTime();
     Collection<String> requiredAttendees = request.getAttendees();
-    Collection<TimeRange> rangesAvailableRequired =
-        getRangesWithoutConflict(events, requiredAttendees, request.getDuration());
+    TimeRangeList rangesAvailableRequired =
+        rangeFinder.getRangeListWithoutConflict(requiredAttendees, request.getDuration());
+    long optionalStartTime = System.nanoTime();
+    if (trace != null) {
+      trace.requiredPassNanos = optionalStartTime - requiredStartTime;
+    }
     
     if (rangesAvailableRequired.isEmpty() || 
         request.getOptionalAttendees().isEmpty()) {
@@ -49,7 +295,16 @@ public final class FindMeetingQuery {
       return rangesAvailableRequired;
     }
 
-    Collection<TimeRange> rangesAvailableOptional = optionalAttendeeOptimalRange(events, request);
+    // Meetings with no duration can fit between back-to-back events, which the sweep doesn't
+    // model, so they still check every combination of optional attendees.
+    TimeRangeList rangesAvailableOptional = request.getDuration() > 0
+        ? OptionalAttendeeSolver.optimalRanges(
+            rangeFinder, request, rangesAvailableRequired, budget)
+        : optionalAttendeeOptimalRange(rangeFinder, request, budget);
+    if (trace != null) {
+      trace.optionalPassNanos = System.nanoTime() - optionalStartTime;
+      trace.optionalPassRan = true;
+    }
     
     if (rangesAvailableOptional.isEmpty()) {
       return rangesAvailableRequired;
@@ -58,9 +313,109 @@ public final class FindMeetingQuery {
     }
   }
 
+  /**
+   * Get the time ranges when an event can be held as a lazy stream, in the same way as
+   * {@link #stream(Collection, MeetingRequest)}, finding when the attendees are free with
+   * {@code rangeFinder}. Range finders that scan lazily, such as busy bitmaps, an index of events
+   * or an {@link EventStore}, only scan as far as the stream is read.
+   * @param rangeFinder
+   * @param request
+   * @return Returns a stream of the time ranges when the event can be held.
+   */
+  public Stream<TimeRange> stream(RangeFinder rangeFinder, MeetingRequest request) {
+    if (request.getDuration() > TimeRange.WHOLE_DAY.duration()) {
+      return Stream.empty();
+    }
+    rangeFinder = withQuorum(rangeFinder, request);
+
+    if (request.getOptionalAttendees().isEmpty()) {
+      return stream(
+          rangeFinder.iterateRangesWithoutConflict(request.getAttendees(), request.getDuration()));
+    }
+    if (request.getDuration() <= 0) {
+      return query(rangeFinder, request).stream();
+    }
+
+    TimeRangeList rangesAvailableRequired =
+        rangeFinder.getRangeListWithoutConflict(request.getAttendees(), request.getDuration());
+    if (rangesAvailableRequired.isEmpty()) {
+      return Stream.empty();
+    }
+
+    Iterator<TimeRange> rangesAvailableOptional = OptionalAttendeeSolver.iterateOptimalRanges(
+        rangeFinder, request, rangesAvailableRequired);
+    if (rangesAvailableOptional.hasNext()) {
+      return stream(rangesAvailableOptional);
+    } else {
+      return rangesAvailableRequired.toTimeRanges().stream();
+    }
+  }
+
+  /**
+   * Returns {@code rangeFinder} narrowed to the times when the request's quorum can attend, or
+   * {@code rangeFinder} itself if the request has no quorum. Every group of attendees the query
+   * looks at, optional attendees included, is narrowed in the same way.
+   */
+  private static RangeFinder withQuorum(RangeFinder rangeFinder, MeetingRequest request) {
+    if (request.getQuorumMinimum() == 0) {
+      return rangeFinder;
+    }
+    return new QuorumRangeFinder(
+        rangeFinder, request.getQuorumMembers(), request.getQuorumMinimum());
+  }
+
+  private static Stream<TimeRange> stream(Iterator<TimeRange> ranges) {
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+        ranges, Spliterator.ORDERED | Spliterator.NONNULL), false);
+  }
+
   private Collection<TimeRange> getRangesWithoutConflict(
       Collection<Event> events, Collection<String> attendees, long rangeDuration) {
-    Iterator<TimeRange> conflictsIterator = getOrderedAttendingEvents(events, attendees).iterator();
+    return getRangesWithoutConflict(getOrderedAttendingEvents(events, attendees), rangeDuration);
+  }
+
+  /**
+   * Get the time ranges without conflict for each attendee on their own, with a single pass over
+   * the events.
+   * @param events
+   * @param attendees
+   * @param rangeDuration
+   * @return Returns a map from each attendee to their time ranges without conflict.
+   */
+  private Map<String, Collection<TimeRange>> getRangesWithoutConflictForEach(
+      Collection<Event> events, Collection<String> attendees, long rangeDuration) {
+    Map<String, List<TimeRange>> timeConflicts = new HashMap<>();
+    for (String attendee : attendees) {
+      timeConflicts.put(attendee, new ArrayList<TimeRange>());
+    }
+
+    for (Event event : events) {
+      for (String attendee : event.getAttendees()) {
+        List<TimeRange> attendeeConflicts = timeConflicts.get(attendee);
+        if (attendeeConflicts != null) {
+          attendeeConflicts.add(event.getWhen());
+        }
+      }
+    }
+
+    Map<String, Collection<TimeRange>> validTimeRanges = new HashMap<>();
+    for (Map.Entry<String, List<TimeRange>> entry : timeConflicts.entrySet()) {
+      Collections.sort(entry.getValue(), TimeRange.ORDER_BY_START);
+      validTimeRanges.put(
+          entry.getKey(), getRangesWithoutConflict(entry.getValue(), rangeDuration));
+    }
+    return validTimeRanges;
+  }
+
+  /**
+   * Get the gaps of at least {@code rangeDuration} minutes between conflicts.
+   * @param orderedConflicts The conflicts in ascending order of start time.
+   * @param rangeDuration
+   * @return Returns the time ranges without conflict.
+   */
+  static Collection<TimeRange> getRangesWithoutConflict(
+      Collection<TimeRange> orderedConflicts, long rangeDuration) {
+    Iterator<TimeRange> conflictsIterator = orderedConflicts.iterator();
     
     int prevConflictEndTime = TimeRange.START_OF_DAY;
     Collection<TimeRange> validTimeRanges = new ArrayList<TimeRange>();
@@ -111,36 +466,72 @@ public final class FindMeetingQuery {
   }
 
   /**
-   * Find the optimal time ranges for optional attendees.
-   *
+   * Get an iterator over the events at least one of the attendees is attending, in ascending order
+   * of start time. The events are heaped instead of sorted, so reading only the first few of them
+   * doesn't pay for ordering the rest. Events with the same start come out in the order they were
+   * given, as they do from {@link #getOrderedAttendingEvents(Collection, Collection)}, since a
+   * meeting with no duration can fit between them.
    * @param events
+   * @param attendees
+   * @return Returns an iterator that removes the events from the heap as it goes.
+   */
+  private Iterator<TimeRange> getAttendingEventHeap(
+      Collection<Event> events, Collection<String> attendees) {
+    // Adding in arbitrary order takes constant time on average, unlike sorting. Each event is
+    // heaped as its start and then its position, so that ties are broken by position.
+    List<TimeRange> conflicts = new ArrayList<>();
+    PriorityQueue<Long> heap = new PriorityQueue<>();
+    for (Event event : events) {
+      if (!Collections.disjoint(event.getAttendees(), attendees)) {
+        heap.add(((long) event.getWhen().start() << 32) | conflicts.size());
+        conflicts.add(event.getWhen());
+      }
+    }
+    return new Iterator<TimeRange>() {
+      @Override
+      public boolean hasNext() {
+        return !heap.isEmpty();
+      }
+
+      @Override
+      public TimeRange next() {
+        return conflicts.get((int) (long) heap.remove());
+      }
+    };
+  }
+
+  /**
+   * Find the optimal time ranges for optional attendees by checking every combination of them.
+   * Only used for meetings with no duration, which the sweep doesn't model.
+   *
+   * @param rangeFinder
    * @param request
+   * @param budget Limits how many combinations are checked after the first.
    * @return Returns the optimal time ranges for optional attendees. Can be empty.
    */
-  private Collection<TimeRange> optionalAttendeeOptimalRange(
-      Collection<Event> events, MeetingRequest request) {
-    // This works by checking each combination of optional attendees in increasing quantity.
-    // Starting with groups of one attendee, then two, etc. Until less than two combinations
-    // had non-empty ranges (see optimization notes below) or all combinations have been checked.
-    // 
-    // For large numbers of optional attendees, this can quickly become inefficient.
-    // There is room here for a dynamic programming approach following the logic that a combination
-    // of three elements could be more efficiently computed by using a previously-computed
-    // combination of two elements. 
+  private TimeRangeList optionalAttendeeOptimalRange(
+      RangeFinder rangeFinder, MeetingRequest request, SearchBudget budget) {
+    // A meeting with no duration fits in any gap, even an empty one, so every combination of
+    // optional attendees has some ranges. The optimal ranges therefore come from the largest
+    // combinations whose ranges have any total duration at all, picking the longest total and then
+    // the first in combination order. This checks the combinations in decreasing quantity, starting
+    // with all of the optional attendees, so it can usually stop after the very first combination.
 
     ArrayList<String> optionalAttendees = 
         new ArrayList<String>(request.getOptionalAttendees());
     Collection<String> attendees = request.getAttendees();
 
-    Collection<TimeRange> bestTimeRange = Arrays.asList();
-    for (int i = 1; i <= optionalAttendees.size(); i++) {
+    for (int i = optionalAttendees.size(); i >= 1; i--) {
       Iterator<int[]> attendeeCombinations = 
           CombinatoricsUtils.combinationsIterator(optionalAttendees.size(), i);
-      int successfulCombinations = 0;
-      int longestDuration = 0;
+      TimeRangeList bestTimeRange = new TimeRangeList(0);
+      long longestDuration = 0;
 
       // Find the longest duration of time ranges for each combination of i attendees.
       while (attendeeCombinations.hasNext()) {
+        if (budget.getSubsetsEvaluated() > 0 && budget.shouldStop()) {
+          return bestTimeRange;
+        }
         int[] combination = attendeeCombinations.next();
 
         Stream<String> optionalAttendeeCombination = 
@@ -149,42 +540,77 @@ public final class FindMeetingQuery {
             Stream.concat(optionalAttendeeCombination, attendees.stream())
                 .collect(Collectors.toList());
 
-        Collection<TimeRange> availableRanges = 
-            getRangesWithoutConflict(events, attendeeCombination, request.getDuration());
-
-        if (!availableRanges.isEmpty()) {
-          successfulCombinations++;
+        budget.recordSubset();
+        TimeRangeList availableRanges = 
+            rangeFinder.getRangeListWithoutConflict(attendeeCombination, request.getDuration());
 
-          int totalTime = getTotalDurationOfRanges(availableRanges);
-          if (totalTime > longestDuration) {
-            bestTimeRange = availableRanges;
-            longestDuration = totalTime;
-          }
+        long totalTime = availableRanges.totalDuration();
+        if (totalTime > longestDuration) {
+          bestTimeRange = availableRanges;
+          longestDuration = totalTime;
         }
       }
 
-      // Following the logic that if only one combination of n elements
-      // was successful, there can be no combination of (n + 1) elements that is also successful.
-      if (successfulCombinations < 2) {
-        break;
+      // Smaller combinations can only be checked if no combination of i attendees had any time.
+      if (longestDuration > 0) {
+        return bestTimeRange;
       }
     }
 
-    return bestTimeRange;
+    return new TimeRangeList(0);
   }
 
   /**
-   * Gets the total duration of a collection of non-overlapping time ranges.
-   * Precondition: The time ranges are not overlapping.
-   * @param timeRanges
-   * @return Returns the total duration of the time ranges.
+   * Finds time ranges by scanning a plain collection of events.
    */
-  private int getTotalDurationOfRanges(Collection<TimeRange> timeRanges) {
-    int totalTime = 0;
-    for (TimeRange timeRange : timeRanges) {
-      totalTime += timeRange.duration();
+  private final class EventListRangeFinder implements RangeFinder {
+    private final Collection<Event> events;
+
+    // Only counted when asked for, since plain queries never need the counts.
+    private Map<String, Integer> eventCounts;
+
+    EventListRangeFinder(Collection<Event> events) {
+      this.events = events;
+    }
+
+    @Override
+    public Collection<TimeRange> getRangesWithoutConflict(
+        Collection<String> attendees, long duration) {
+      return FindMeetingQuery.this.getRangesWithoutConflict(events, attendees, duration);
     }
 
-    return totalTime;
+    @Override
+    public TimeRangeList getRangeListWithoutConflict(
+        Collection<String> attendees, long duration) {
+      TimeRangeList validTimeRanges = new TimeRangeList();
+      new GapIterator(getOrderedAttendingEvents(events, attendees).iterator(), duration)
+          .drainTo(validTimeRanges);
+      return validTimeRanges;
+    }
+
+    @Override
+    public Iterator<TimeRange> iterateRangesWithoutConflict(
+        Collection<String> attendees, long duration) {
+      return new GapIterator(getAttendingEventHeap(events, attendees), duration);
+    }
+
+    @Override
+    public Map<String, Collection<TimeRange>> getRangesWithoutConflictForEach(
+        Collection<String> attendees, long duration) {
+      return FindMeetingQuery.this.getRangesWithoutConflictForEach(events, attendees, duration);
+    }
+
+    @Override
+    public int getEventCount(String attendee) {
+      if (eventCounts == null) {
+        eventCounts = new HashMap<>();
+        for (Event event : events) {
+          for (String eventAttendee : event.getAttendees()) {
+            eventCounts.merge(eventAttendee, 1, Integer::sum);
+          }
+        }
+      }
+      return eventCounts.getOrDefault(attendee, 0);
+    }
   }
 }
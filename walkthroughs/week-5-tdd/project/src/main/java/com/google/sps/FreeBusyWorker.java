@@ -0,0 +1,303 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the calendars of one partition of the attendees and serves their busy time to a
+ * {@link PartitionedCalendar} over a socket. An attendee belongs to partition
+ * {@link PartitionedCalendar#partitionOf(String, int)}, and a worker only keeps the events of the
+ * attendees in its own partition, so each worker needs only its share of the memory.
+ *
+ * <p>For each group of attendees it is asked about, a worker answers with the merged busy minutes
+ * of the group as a {@link DayBitmap}, along with a second bitmap marking where the group's events
+ * with no duration start. The answer is the same size however busy the group is, and the
+ * coordinator combines the answers of several workers with a word-wise OR.
+ */
+public final class FreeBusyWorker implements Closeable {
+  // Asks for the busy minutes of groups of attendees: the number of groups, then for each group
+  // the number of attendees and their names. Answered with a busy and a break bitmap per group.
+  static final int OP_BUSY = 1;
+
+  // Asks for the number of events an attendee is attending: their name. Answered with the count.
+  static final int OP_EVENT_COUNT = 2;
+
+  private final int partition;
+  private final BitmapCalendar calendar;
+  private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+
+  private ServerSocket server;
+
+  /**
+   * Creates a new worker for partition {@code partition} of {@code partitions}, keeping only the
+   * attendees of {@code events} who fall in that partition.
+   *
+   * @param events The events of the whole calendar, or any part of it that includes the
+   *     partition. Must be non-null.
+   * @param partition The partition to serve, from 0 to {@code partitions - 1}.
+   * @param partitions The number of partitions the attendees are split into. Must be positive.
+   */
+  public FreeBusyWorker(Collection<Event> events, int partition, int partitions) {
+    this(partition, new BitmapCalendar(inPartition(events, partition, partitions)));
+  }
+
+  private FreeBusyWorker(int partition, BitmapCalendar calendar) {
+    this.partition = partition;
+    this.calendar = calendar;
+  }
+
+  /**
+   * Creates a new worker for partition {@code partition} of {@code partitions}, reading the events
+   * of a {@link CalendarSnapshot}. The snapshot doesn't hold titles, so the events have none. Only
+   * the events of attendees in the partition are created, so the worker never holds the rest of
+   * the calendar.
+   */
+  public static FreeBusyWorker fromSnapshot(
+      CalendarSnapshot snapshot, int partition, int partitions) {
+    checkPartition(partition, partitions);
+
+    // Each attendee is placed once, rather than once per event they attend.
+    String[] members = new String[snapshot.getAttendeeCount()];
+    for (int attendeeId = 0; attendeeId < members.length; attendeeId++) {
+      String name = snapshot.getAttendeeName(attendeeId);
+      if (PartitionedCalendar.partitionOf(name, partitions) == partition) {
+        members[attendeeId] = name;
+      }
+    }
+
+    List<Event> events = new ArrayList<>();
+    for (int id = 0; id < snapshot.size(); id++) {
+      List<String> attendees = null;
+      for (int attendeeId : snapshot.getAttendeeIds(id)) {
+        if (members[attendeeId] != null) {
+          if (attendees == null) {
+            attendees = new ArrayList<>();
+          }
+          attendees.add(members[attendeeId]);
+        }
+      }
+      if (attendees != null) {
+        events.add(new Event("",
+            TimeRange.fromStartDuration(snapshot.getStart(id), snapshot.getDuration(id)),
+            attendees));
+      }
+    }
+    return new FreeBusyWorker(partition, new BitmapCalendar(events));
+  }
+
+  /**
+   * Returns the events of {@code events} with their attendees cut down to the ones in partition
+   * {@code partition}, leaving out the events with none left.
+   */
+  private static List<Event> inPartition(Collection<Event> events, int partition, int partitions) {
+    if (events == null) {
+      throw new IllegalArgumentException("events cannot be null");
+    }
+    checkPartition(partition, partitions);
+
+    List<Event> partitionEvents = new ArrayList<>();
+    for (Event event : events) {
+      List<String> attendees = new ArrayList<>();
+      for (String attendee : event.getAttendees()) {
+        if (PartitionedCalendar.partitionOf(attendee, partitions) == partition) {
+          attendees.add(attendee);
+        }
+      }
+      if (!attendees.isEmpty()) {
+        partitionEvents.add(new Event(event.getTitle(), event.getWhen(), attendees));
+      }
+    }
+    return partitionEvents;
+  }
+
+  private static void checkPartition(int partition, int partitions) {
+    if (partitions <= 0 || partition < 0 || partition >= partitions) {
+      throw new IllegalArgumentException("partition must be between 0 and partitions - 1");
+    }
+  }
+
+  public int getPartition() {
+    return partition;
+  }
+
+  /**
+   * Returns the number of events {@code attendee} is attending, or 0 if they aren't in this
+   * worker's partition.
+   */
+  public int getEventCount(String attendee) {
+    return calendar.getEventCount(attendee);
+  }
+
+  /**
+   * Returns the address the worker is listening on, or null if it hasn't been started.
+   */
+  public synchronized InetSocketAddress getAddress() {
+    return server == null ? null : (InetSocketAddress) server.getLocalSocketAddress();
+  }
+
+  /**
+   * Starts serving on {@code port} of the loopback address, or on any free port if {@code port} is
+   * 0. Each connection is served by its own thread until the coordinator closes it.
+   *
+   * @return Returns the address the worker is listening on.
+   */
+  public synchronized InetSocketAddress start(int port) throws IOException {
+    if (server != null) {
+      throw new IllegalStateException("worker has already been started");
+    }
+
+    server = new ServerSocket(port, 0, InetAddress.getLoopbackAddress());
+    ServerSocket listening = server;
+    startDaemon(() -> accept(listening), "free-busy-worker-" + partition);
+    return getAddress();
+  }
+
+  /**
+   * Stops accepting connections and closes the open ones.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (server != null) {
+      server.close();
+    }
+    for (Socket socket : connections) {
+      socket.close();
+    }
+  }
+
+  private void accept(ServerSocket listening) {
+    try {
+      while (true) {
+        Socket socket = listening.accept();
+        connections.add(socket);
+        startDaemon(() -> serve(socket), "free-busy-connection-" + partition);
+      }
+    } catch (IOException e) {
+      // The worker has been closed.
+    }
+  }
+
+  private void serve(Socket socket) {
+    try (Socket connection = socket) {
+      connection.setTcpNoDelay(true);
+      DataInputStream in =
+          new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+      DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+
+      while (true) {
+        int operation;
+        try {
+          operation = in.readInt();
+        } catch (EOFException e) {
+          return;
+        }
+
+        switch (operation) {
+          case OP_BUSY:
+            answerBusy(in, out);
+            break;
+          case OP_EVENT_COUNT:
+            out.writeInt(getEventCount(in.readUTF()));
+            break;
+          default:
+            throw new IOException("unknown operation " + operation);
+        }
+        out.flush();
+      }
+    } catch (IOException e) {
+      // The coordinator went away or sent something we don't understand, so drop the connection.
+    } finally {
+      connections.remove(socket);
+    }
+  }
+
+  private void answerBusy(DataInputStream in, DataOutputStream out) throws IOException {
+    int groupCount = in.readInt();
+    long[] busy = DayBitmap.create();
+    long[] breaks = DayBitmap.create();
+    for (int group = 0; group < groupCount; group++) {
+      int attendeeCount = in.readInt();
+      List<String> attendees = new ArrayList<>(attendeeCount);
+      for (int i = 0; i < attendeeCount; i++) {
+        attendees.add(in.readUTF());
+      }
+
+      // Clear the bitmaps for each group, rather than allocating new ones.
+      Arrays.fill(busy, 0);
+      Arrays.fill(breaks, 0);
+      calendar.addBusyMinutes(attendees, busy, breaks);
+      writeBitmap(out, busy);
+      writeBitmap(out, breaks);
+    }
+  }
+
+  private static void writeBitmap(DataOutputStream out, long[] bitmap) throws IOException {
+    for (long word : bitmap) {
+      out.writeLong(word);
+    }
+  }
+
+  private static void startDaemon(Runnable task, String name) {
+    Thread thread = new Thread(task, name);
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Runs a worker in its own process. Takes the path of a {@link CalendarSnapshot}, the partition
+   * to serve and the number of partitions, and optionally a port. Prints the port it is listening
+   * on as the first line of its output, and stops when its standard input is closed, so the
+   * process that started it can't leave it running by accident.
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 3 || args.length > 4) {
+      System.err.println("usage: FreeBusyWorker <snapshot> <partition> <partitions> [port]");
+      System.exit(2);
+    }
+
+    CalendarSnapshot snapshot = CalendarSnapshot.load(Paths.get(args[0]));
+    int port = args.length == 4 ? Integer.parseInt(args[3]) : 0;
+    try (FreeBusyWorker worker = FreeBusyWorker.fromSnapshot(
+        snapshot, Integer.parseInt(args[1]), Integer.parseInt(args[2]))) {
+      System.out.println(worker.start(port).getPort());
+      System.out.flush();
+
+      InputStream stdin = System.in;
+      while (stdin.read() != -1) {
+        // Wait for the parent to close our input.
+      }
+    }
+  }
+}
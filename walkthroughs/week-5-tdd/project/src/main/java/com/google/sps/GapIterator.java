@@ -0,0 +1,66 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Iterator;
+
+/**
+ * Finds the gaps of at least a given length between conflicts, one gap at a time. This is the lazy
+ * form of {@code FindMeetingQuery.getRangesWithoutConflict}: conflicts are only read up to the end
+ * of the gap being returned, and the last gap of the day is closed by {@code TimeRange.END_OF_DAY}.
+ */
+final class GapIterator extends AbstractRangeIterator {
+  private final Iterator<TimeRange> orderedConflicts;
+  private final long rangeDuration;
+
+  private int prevConflictEndTime = TimeRange.START_OF_DAY;
+  private boolean conflictsDone;
+
+  /**
+   * @param orderedConflicts The conflicts in ascending order of start time.
+   * @param rangeDuration The minimum length of a gap in minutes.
+   */
+  GapIterator(Iterator<TimeRange> orderedConflicts, long rangeDuration) {
+    this.orderedConflicts = orderedConflicts;
+    this.rangeDuration = rangeDuration;
+  }
+
+  @Override
+  protected long computeNext() {
+    while (orderedConflicts.hasNext()) {
+      TimeRange conflict = orderedConflicts.next();
+      long gap = TimeRangeList.NONE;
+      if (conflict.start() - prevConflictEndTime >= rangeDuration) {
+        gap = TimeRangeList.packStartEnd(prevConflictEndTime, conflict.start(), false);
+      }
+
+      // Nested events can end before the previous conflict does.
+      if (conflict.end() > prevConflictEndTime) {
+        prevConflictEndTime = conflict.end();
+      }
+      if (gap != TimeRangeList.NONE) {
+        return gap;
+      }
+    }
+
+    if (!conflictsDone) {
+      conflictsDone = true;
+      if (TimeRange.END_OF_DAY - prevConflictEndTime >= rangeDuration) {
+        return TimeRangeList.packStartEnd(prevConflictEndTime, TimeRange.END_OF_DAY, true);
+      }
+    }
+    return TimeRangeList.NONE;
+  }
+}
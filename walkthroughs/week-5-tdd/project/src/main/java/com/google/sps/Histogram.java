@@ -0,0 +1,147 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of non-negative values that is cheap enough to update on every request. Values below
+ * 32 get a bucket each, and every higher power of two is split into 32 buckets, so a reported
+ * percentile is within about 3% of the true value. Recording is a few atomic adds and never takes
+ * a lock, so many threads can record at once; reads taken while values are being recorded can be
+ * slightly out of step with each other.
+ */
+public final class Histogram {
+  // Each power of two is split into {@code 1 << SUB_BUCKET_BITS} buckets.
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  // Enough buckets for the largest positive {@code long}.
+  private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+  /**
+   * Records one value. Must be non-negative.
+   */
+  public void record(long value) {
+    if (value < 0) {
+      throw new IllegalArgumentException("value cannot be negative");
+    }
+
+    counts.incrementAndGet(getBucket(value));
+    count.increment();
+    sum.add(value);
+    max.accumulate(value);
+  }
+
+  /**
+   * Returns the number of values recorded.
+   */
+  public long getCount() {
+    return count.sum();
+  }
+
+  /**
+   * Returns the mean of the values recorded, or 0 if there are none.
+   */
+  public double getMean() {
+    long values = count.sum();
+    return values == 0 ? 0 : (double) sum.sum() / values;
+  }
+
+  /**
+   * Returns the largest value recorded, or 0 if there are none.
+   */
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * Returns a value that at least {@code percentile} percent of the recorded values are at or
+   * below, or 0 if there are none. The value is the top of the bucket the percentile falls in, but
+   * never more than the largest value recorded.
+   *
+   * @param percentile Must be between 0 and 100.
+   */
+  public long getValueAtPercentile(double percentile) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("percentile must be between 0 and 100");
+    }
+
+    long total = 0;
+    for (int bucket = 0; bucket < BUCKETS; bucket++) {
+      total += counts.get(bucket);
+    }
+    if (total == 0) {
+      return 0;
+    }
+
+    long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+    long seen = 0;
+    for (int bucket = 0; bucket < BUCKETS; bucket++) {
+      seen += counts.get(bucket);
+      if (seen >= rank) {
+        return Math.min(getBucketTop(bucket), getMax());
+      }
+    }
+    return getMax();
+  }
+
+  /**
+   * Forgets every value recorded so far. Values recorded while the histogram is being reset may
+   * or may not be kept.
+   */
+  public void reset() {
+    for (int bucket = 0; bucket < BUCKETS; bucket++) {
+      counts.set(bucket, 0);
+    }
+    count.reset();
+    sum.reset();
+    max.reset();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("Histogram: %d values, mean %.1f, p50 %d, p99 %d, max %d", getCount(),
+        getMean(), getValueAtPercentile(50), getValueAtPercentile(99), getMax());
+  }
+
+  static int getBucket(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    // The bits after the highest set bit pick the bucket within its power of two.
+    int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+    int shift = exponent - SUB_BUCKET_BITS;
+    return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+  }
+
+  /**
+   * Returns the largest value that falls in {@code bucket}.
+   */
+  static long getBucketTop(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int shift = bucket / SUB_BUCKETS - 1;
+    long bottom = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+    return bottom + (1L << shift) - 1;
+  }
+}
@@ -0,0 +1,841 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Reads the {@code VEVENT}s of an iCalendar (RFC 5545) export and turns the ones that take place
+ * on a single day into {@link Event}s. The export is read as a stream, one unfolded line at a time,
+ * and only the event being read is kept, so the importer's own memory stays the same however large
+ * the export is. Events are handed on in batches, ready for {@link VersionedEventStore#addAll}.
+ *
+ * <p>Times with a {@code TZID} are read in that zone, times ending in {@code Z} in UTC, and
+ * floating times and dates in the importer's zone. Each event is clipped to the day in the
+ * importer's zone and becomes a {@link TimeRange} from that day's midnight. Attendee addresses are
+ * lowercased and interned, so every event of a person shares one {@code String}.
+ *
+ * <p>Daily and weekly {@code RRULE}s, with {@code INTERVAL}, {@code BYDAY}, {@code WKST},
+ * {@code UNTIL}, {@code COUNT} and {@code EXDATE}, are expanded in the wall-clock time of their
+ * first occurrence, so a series stays at the same local time across daylight saving changes.
+ * Other rules are rejected. An instance moved with {@code RECURRENCE-ID} is imported like any other
+ * event, but the instance it replaces is only left out of its series if the series also lists it
+ * in {@code EXDATE}, since finding it would mean holding on to every series until the end of the
+ * export.
+ *
+ * <p>Cancelled and transparent events, declined attendees and events that take no time are
+ * skipped, since none of them make anyone busy.
+ */
+public final class IcsImporter {
+  /**
+   * The number of events handed on at a time unless another size is given.
+   */
+  public static final int DEFAULT_BATCH_SIZE = 10000;
+
+  // Logical lines longer than this are cut short, so an inlined attachment can't take up the heap.
+  // The properties the importer reads are far shorter.
+  static final int MAX_LINE_LENGTH = 8192;
+
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  // The properties the importer reads. Every other line is skipped.
+  private static final Set<String> PROPERTIES = new HashSet<>(Arrays.asList("BEGIN", "END",
+      "SUMMARY", "DTSTART", "DTEND", "DURATION", "RRULE", "EXDATE", "STATUS", "TRANSP", "ATTENDEE",
+      "ORGANIZER"));
+
+  private static final DateTimeFormatter DATE_TIME =
+      DateTimeFormatter.ofPattern("uuuuMMdd'T'HHmmss", Locale.ROOT);
+  private static final DateTimeFormatter DATE = DateTimeFormatter.BASIC_ISO_DATE;
+
+  private final ZoneId zone;
+  private final int batchSize;
+
+  // The day being imported, in minutes since the epoch. Days with a daylight saving change are
+  // still cut off after TimeRange.WHOLE_DAY.
+  private final long dayStart;
+  private final long dayEnd;
+
+  private final AttendeeInterner attendees = new AttendeeInterner();
+  private final Map<String, ZoneId> zones = new HashMap<>();
+
+  /**
+   * Creates an importer for {@code day}, handing on {@code DEFAULT_BATCH_SIZE} events at a time.
+   */
+  public IcsImporter(LocalDate day, ZoneId zone) {
+    this(day, zone, DEFAULT_BATCH_SIZE);
+  }
+
+  /**
+   * Creates a new importer.
+   *
+   * @param day The day to import events for. Must be non-null.
+   * @param zone The zone {@code day} is in, also used for floating times. Must be non-null.
+   * @param batchSize The number of events handed on at a time. Must be positive.
+   */
+  public IcsImporter(LocalDate day, ZoneId zone, int batchSize) {
+    if (day == null) {
+      throw new IllegalArgumentException("day cannot be null");
+    }
+
+    if (zone == null) {
+      throw new IllegalArgumentException("zone cannot be null");
+    }
+
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("batchSize must be positive");
+    }
+
+    this.zone = zone;
+    this.batchSize = batchSize;
+    this.dayStart = toMinutes(day.atStartOfDay(zone).toEpochSecond());
+    this.dayEnd = Math.min(toMinutes(day.plusDays(1).atStartOfDay(zone).toEpochSecond()),
+        dayStart + TimeRange.WHOLE_DAY.duration());
+  }
+
+  /**
+   * Returns the number of distinct attendee addresses seen so far.
+   */
+  public int getAttendeeCount() {
+    return attendees.size();
+  }
+
+  /**
+   * Reads the export from {@code in} and adds its events for the day to {@code store}, one batch
+   * per version. The reader is not closed.
+   */
+  public Result importInto(Reader in, VersionedEventStore store) throws IOException {
+    return importFrom(in, batch -> store.addAll(batch));
+  }
+
+  /**
+   * Reads the export from {@code in} and hands its events for the day to {@code sink}, at most a
+   * batch at a time. Each batch is a new list that the sink may keep. The reader is not closed.
+   */
+  public Result importFrom(Reader in, Consumer<List<Event>> sink) throws IOException {
+    long startNanos = System.nanoTime();
+    Result result = new Result();
+    LineReader lines = new LineReader(in);
+    List<Event> batch = new ArrayList<>(batchSize);
+
+    PendingEvent event = null;
+    // How deep the line is inside components nested in the event, such as alarms.
+    int depth = 0;
+    String line;
+    while ((line = lines.readLine()) != null) {
+      String name = getName(line);
+      // Most lines of an export are properties the importer doesn't read, so they are dropped
+      // before their value is cut out.
+      if (!PROPERTIES.contains(name) || (event == null && !name.equals("BEGIN"))) {
+        continue;
+      }
+      int colon = findValue(line);
+      if (colon == -1) {
+        continue;
+      }
+      String head = line.substring(0, colon);
+      String value = line.substring(colon + 1);
+
+      if (name.equals("BEGIN")) {
+        if (event != null) {
+          depth++;
+        } else if (value.equalsIgnoreCase("VEVENT")) {
+          event = new PendingEvent();
+        }
+      } else if (name.equals("END")) {
+        if (event == null) {
+          continue;
+        }
+        if (depth > 0) {
+          depth--;
+          continue;
+        }
+
+        result.eventsRead++;
+        try {
+          if (!addOccurrences(event, batch)) {
+            result.eventsSkipped++;
+          }
+        } catch (DateTimeException | IllegalArgumentException e) {
+          result.eventsRejected++;
+        }
+        event = null;
+
+        if (batch.size() >= batchSize) {
+          result.add(batch);
+          sink.accept(batch);
+          batch = new ArrayList<>(batchSize);
+        }
+      } else if (event != null && depth == 0 && !event.rejected) {
+        try {
+          read(event, name, head, value);
+        } catch (DateTimeException | IllegalArgumentException e) {
+          event.rejected = true;
+        }
+      }
+    }
+
+    if (!batch.isEmpty()) {
+      result.add(batch);
+      sink.accept(batch);
+    }
+    result.characters = lines.characters;
+    result.lines = lines.lines;
+    result.elapsedNanos = System.nanoTime() - startNanos;
+    return result;
+  }
+
+  private void read(PendingEvent event, String name, String head, String value) {
+    switch (name) {
+      case "SUMMARY":
+        event.title = unescape(value);
+        break;
+      case "DTSTART":
+        event.startZone = getZone(head, value);
+        event.start = parseDateTime(value);
+        event.allDay = value.length() == 8;
+        break;
+      case "DTEND":
+        event.end = toInstant(parseDateTime(value), getZone(head, value));
+        break;
+      case "DURATION":
+        event.duration = parseDuration(value);
+        break;
+      case "RRULE":
+        event.rule = value;
+        break;
+      case "EXDATE":
+        ZoneId exceptionZone = getZone(head, value);
+        for (String exception : value.split(",")) {
+          event.exceptions.add(toInstant(parseDateTime(exception), exceptionZone));
+        }
+        break;
+      case "STATUS":
+        event.cancelled = value.equalsIgnoreCase("CANCELLED");
+        break;
+      case "TRANSP":
+        event.transparent = value.equalsIgnoreCase("TRANSPARENT");
+        break;
+      case "ATTENDEE":
+      case "ORGANIZER":
+        String status = getParameter(head, "PARTSTAT");
+        if (status == null || !status.equalsIgnoreCase("DECLINED")) {
+          String address = toAddress(value);
+          if (!address.isEmpty()) {
+            event.attendees.add(attendees.getName(attendees.intern(address)));
+          }
+        }
+        break;
+      default:
+        break;
+    }
+  }
+
+  /**
+   * Adds the parts of {@code event} that fall on the day to {@code batch}.
+   *
+   * @return Returns false if the event was skipped because it doesn't make anyone busy.
+   */
+  private boolean addOccurrences(PendingEvent event, List<Event> batch) {
+    if (event.rejected || event.start == null) {
+      throw new IllegalArgumentException("event has no valid start");
+    }
+    if (event.cancelled || event.transparent || event.attendees.isEmpty()) {
+      return false;
+    }
+
+    long start = toInstant(event.start, event.startZone);
+    long duration;
+    if (event.end != null) {
+      duration = event.end - start;
+    } else if (event.duration != null) {
+      duration = event.duration;
+    } else {
+      // Without an end, a date lasts the whole day and a time takes no time at all.
+      duration = event.allDay ? EpochRange.MINUTES_PER_DAY : 0;
+    }
+    if (duration <= 0) {
+      return false;
+    }
+
+    String title = event.title == null ? "" : event.title;
+    if (event.rule == null) {
+      addOnDay(title, start, start + duration, event.attendees, batch);
+      return true;
+    }
+
+    // The series is expanded in the wall-clock minutes of its first occurrence, and every
+    // occurrence is then placed back in its zone.
+    RecurringEvent series = parseSeries(title, event.rule, toWall(event.start), duration,
+        event.startZone, event.exceptions, event.attendees);
+    EpochRange window = EpochRange.fromStartEnd(
+        toWall(dayStart, event.startZone) - EpochRange.MINUTES_PER_DAY,
+        toWall(dayEnd, event.startZone) + EpochRange.MINUTES_PER_DAY);
+    for (EpochRange occurrence : series.getOccurrences(window)) {
+      long occurrenceStart = toInstant(fromWall(occurrence.start()), event.startZone);
+      addOnDay(title, occurrenceStart, occurrenceStart + duration, event.attendees, batch);
+    }
+    return true;
+  }
+
+  private void addOnDay(
+      String title, long start, long end, Collection<String> attendees, List<Event> batch) {
+    long clippedStart = Math.max(start, dayStart);
+    long clippedEnd = Math.min(end, dayEnd);
+    if (clippedStart < clippedEnd) {
+      TimeRange when = TimeRange.fromStartEnd(
+          (int) (clippedStart - dayStart), (int) (clippedEnd - dayStart), false);
+      batch.add(new Event(title, when, attendees));
+    }
+  }
+
+  /**
+   * Turns a daily or weekly {@code RRULE} into a series over wall-clock minutes whose first
+   * occurrence starts at {@code firstWall}.
+   *
+   * @throws IllegalArgumentException if the rule can't be expanded.
+   */
+  private RecurringEvent parseSeries(String title, String value, long firstWall, long duration,
+      ZoneId ruleZone, List<Long> exceptions, Collection<String> attendees) {
+    String frequency = null;
+    int interval = 1;
+    Set<DayOfWeek> weekdays = EnumSet.noneOf(DayOfWeek.class);
+    DayOfWeek weekStart = DayOfWeek.MONDAY;
+    long until = Long.MAX_VALUE;
+    int count = -1;
+
+    for (String part : value.split(";")) {
+      int equals = part.indexOf('=');
+      if (equals == -1) {
+        throw new IllegalArgumentException("malformed rule part " + part);
+      }
+      String key = part.substring(0, equals).toUpperCase(Locale.ROOT);
+      String partValue = part.substring(equals + 1);
+      switch (key) {
+        case "FREQ":
+          frequency = partValue.toUpperCase(Locale.ROOT);
+          break;
+        case "INTERVAL":
+          interval = Integer.parseInt(partValue);
+          break;
+        case "BYDAY":
+          for (String day : partValue.split(",")) {
+            weekdays.add(parseWeekday(day));
+          }
+          break;
+        case "UNTIL":
+          // UNTIL is inclusive, and a date covers the whole of that day.
+          if (partValue.length() == 8) {
+            until = toWall(parseDateTime(partValue)) + EpochRange.MINUTES_PER_DAY;
+          } else {
+            long untilWall = partValue.endsWith("Z")
+                ? toWall(toInstant(parseDateTime(partValue), ZoneOffset.UTC), ruleZone)
+                : toWall(parseDateTime(partValue));
+            until = untilWall + 1;
+          }
+          break;
+        case "COUNT":
+          count = Integer.parseInt(partValue);
+          break;
+        case "WKST":
+          weekStart = parseWeekday(partValue);
+          break;
+        default:
+          throw new IllegalArgumentException("unsupported rule part " + key);
+      }
+    }
+
+    if (interval <= 0 || count == 0) {
+      throw new IllegalArgumentException("rule has no occurrences");
+    }
+
+    // A weekly series counts its weeks from the start of the week the first occurrence is in, not
+    // from the first occurrence, so it is anchored at the start of that week and the occurrences
+    // of that week that come before the first one are skipped.
+    RecurrenceRule rule;
+    long anchor = firstWall;
+    long period;
+    long[] offsets;
+    List<Long> skipped = new ArrayList<>();
+    if ("DAILY".equals(frequency) && weekdays.isEmpty()) {
+      rule = RecurrenceRule.everyDays(interval);
+      period = interval * EpochRange.MINUTES_PER_DAY;
+      offsets = new long[] {0};
+    } else if ("WEEKLY".equals(frequency)) {
+      DayOfWeek firstDay = fromWall(firstWall).getDayOfWeek();
+      if (weekdays.isEmpty()) {
+        weekdays.add(firstDay);
+      }
+      anchor = firstWall - daysAfter(weekStart, firstDay) * EpochRange.MINUTES_PER_DAY;
+      rule = RecurrenceRule.everyWeeks(interval, weekdays);
+      period = interval * 7 * EpochRange.MINUTES_PER_DAY;
+
+      offsets = new long[weekdays.size()];
+      int offsetCount = 0;
+      for (DayOfWeek weekday : weekdays) {
+        offsets[offsetCount++] = daysAfter(weekStart, weekday) * EpochRange.MINUTES_PER_DAY;
+      }
+      Arrays.sort(offsets);
+      for (long offset : offsets) {
+        if (anchor + offset < firstWall) {
+          skipped.add(anchor + offset);
+        }
+      }
+    } else {
+      throw new IllegalArgumentException("unsupported rule frequency " + frequency);
+    }
+
+    if (count > 0) {
+      // COUNT counts the excluded occurrences too, so the last one counted is found from the
+      // whole periods before it and its place in its own period.
+      long index = skipped.size() + count - 1L;
+      long last =
+          anchor + index / offsets.length * period + offsets[(int) (index % offsets.length)];
+      until = Math.min(until, last + 1);
+    }
+    rule = rule.until(until);
+
+    for (long exception : exceptions) {
+      skipped.add(toWall(exception, ruleZone));
+    }
+    if (!skipped.isEmpty()) {
+      rule = rule.except(skipped);
+    }
+    return new RecurringEvent(title, EpochRange.fromStartDuration(anchor, duration), rule,
+        attendees);
+  }
+
+  /**
+   * Returns how many days {@code day} comes after {@code weekStart} in a week that starts on
+   * {@code weekStart}.
+   */
+  private static int daysAfter(DayOfWeek weekStart, DayOfWeek day) {
+    return (day.getValue() - weekStart.getValue() + 7) % 7;
+  }
+
+  private static DayOfWeek parseWeekday(String day) {
+    switch (day.trim().toUpperCase(Locale.ROOT)) {
+      case "MO":
+        return DayOfWeek.MONDAY;
+      case "TU":
+        return DayOfWeek.TUESDAY;
+      case "WE":
+        return DayOfWeek.WEDNESDAY;
+      case "TH":
+        return DayOfWeek.THURSDAY;
+      case "FR":
+        return DayOfWeek.FRIDAY;
+      case "SA":
+        return DayOfWeek.SATURDAY;
+      case "SU":
+        return DayOfWeek.SUNDAY;
+      default:
+        // Days with an ordinal, such as 1MO, only make sense for monthly and yearly rules.
+        throw new IllegalArgumentException("unsupported weekday " + day);
+    }
+  }
+
+  /**
+   * Returns the zone a date or time property is in: UTC for times ending in {@code Z}, the zone of
+   * its {@code TZID} if it has one the JDK knows, and the importer's zone otherwise.
+   */
+  private ZoneId getZone(String head, String value) {
+    if (value.endsWith("Z")) {
+      return ZoneOffset.UTC;
+    }
+
+    String id = getParameter(head, "TZID");
+    if (id == null) {
+      return zone;
+    }
+    ZoneId found = zones.get(id);
+    if (found == null) {
+      try {
+        found = ZoneId.of(id);
+      } catch (DateTimeException e) {
+        found = zone;
+      }
+      zones.put(id, found);
+    }
+    return found;
+  }
+
+  /**
+   * Reads a date or a date and time, ignoring a trailing {@code Z}. A date reads as its midnight.
+   */
+  private static LocalDateTime parseDateTime(String value) {
+    String text = value.trim();
+    if (text.length() == 8) {
+      return LocalDate.parse(text, DATE).atStartOfDay();
+    }
+    if (text.endsWith("Z")) {
+      text = text.substring(0, text.length() - 1);
+    }
+    return LocalDateTime.parse(text, DATE_TIME);
+  }
+
+  /**
+   * Reads an RFC 5545 duration, such as {@code PT1H30M} or {@code P1W}, in minutes.
+   */
+  static long parseDuration(String value) {
+    String text = value.trim();
+    int weeks = text.indexOf('W');
+    if (weeks != -1) {
+      int start = text.indexOf('P') + 1;
+      long days = Long.parseLong(text.substring(start, weeks)) * 7;
+      return (text.startsWith("-") ? -days : days) * EpochRange.MINUTES_PER_DAY;
+    }
+    return Duration.parse(text).toMinutes();
+  }
+
+  /**
+   * Returns the lowercased address of an {@code ATTENDEE} or {@code ORGANIZER} value, without its
+   * {@code mailto:} scheme.
+   */
+  private static String toAddress(String value) {
+    String address = value.trim();
+    if (address.regionMatches(true, 0, "mailto:", 0, "mailto:".length())) {
+      address = address.substring("mailto:".length()).trim();
+    }
+    return address.toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * Returns the uppercased name of the property on a content line.
+   */
+  private static String getName(String line) {
+    int end = 0;
+    while (end < line.length() && line.charAt(end) != ';' && line.charAt(end) != ':') {
+      end++;
+    }
+    return line.substring(0, end).toUpperCase(Locale.ROOT);
+  }
+
+  /**
+   * Returns the index of the colon that starts the value of a content line, skipping colons inside
+   * quoted parameter values, or {@code -1} if the line has no value.
+   */
+  private static int findValue(String line) {
+    boolean quoted = false;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (c == '"') {
+        quoted = !quoted;
+      } else if (c == ':' && !quoted) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the value of parameter {@code name} in the name and parameters of a content line, or
+   * null if it isn't there.
+   */
+  static String getParameter(String head, String name) {
+    int start = head.indexOf(';');
+    while (start != -1) {
+      int end = start + 1;
+      boolean quoted = false;
+      while (end < head.length() && (quoted || head.charAt(end) != ';')) {
+        if (head.charAt(end) == '"') {
+          quoted = !quoted;
+        }
+        end++;
+      }
+
+      int equals = start + 1 + name.length();
+      if (equals < end && head.charAt(equals) == '='
+          && head.regionMatches(true, start + 1, name, 0, name.length())) {
+        String value = head.substring(equals + 1, end);
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+          value = value.substring(1, value.length() - 1);
+        }
+        return value;
+      }
+      start = end < head.length() ? end : -1;
+    }
+    return null;
+  }
+
+  private static String unescape(String text) {
+    if (text.indexOf('\\') == -1) {
+      return text;
+    }
+
+    StringBuilder unescaped = new StringBuilder(text.length());
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (c == '\\' && i + 1 < text.length()) {
+        char next = text.charAt(++i);
+        unescaped.append(next == 'n' || next == 'N' ? '\n' : next);
+      } else {
+        unescaped.append(c);
+      }
+    }
+    return unescaped.toString();
+  }
+
+  private static long toMinutes(long epochSecond) {
+    return Math.floorDiv(epochSecond, 60);
+  }
+
+  private static long toInstant(LocalDateTime time, ZoneId zone) {
+    return toMinutes(time.atZone(zone).toEpochSecond());
+  }
+
+  private static long toWall(LocalDateTime time) {
+    return toMinutes(time.toEpochSecond(ZoneOffset.UTC));
+  }
+
+  private static long toWall(long instant, ZoneId zone) {
+    Instant at = Instant.ofEpochSecond(instant * 60);
+    return toWall(LocalDateTime.ofInstant(at, zone));
+  }
+
+  private static LocalDateTime fromWall(long wall) {
+    return LocalDateTime.ofEpochSecond(wall * 60, 0, ZoneOffset.UTC);
+  }
+
+  /**
+   * Loads an export into a store and prints how long it took.
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2 || args.length > 3) {
+      System.err.println("usage: IcsImporter <export.ics> <yyyy-mm-dd> [zone]");
+      System.exit(2);
+    }
+
+    ZoneId zone = args.length == 3 ? ZoneId.of(args[2]) : ZoneId.systemDefault();
+    IcsImporter importer = new IcsImporter(LocalDate.parse(args[1]), zone);
+    VersionedEventStore store = new VersionedEventStore(new ArrayList<>());
+    Result result;
+    try (Reader in = new InputStreamReader(
+        Files.newInputStream(Paths.get(args[0])), StandardCharsets.UTF_8)) {
+      result = importer.importInto(in, store);
+    }
+
+    Runtime runtime = Runtime.getRuntime();
+    System.out.println(result);
+    System.out.printf("%d attendees, %d events in the store, %d MB of heap in use%n",
+        importer.getAttendeeCount(), store.snapshot().size(),
+        (runtime.totalMemory() - runtime.freeMemory()) >> 20);
+  }
+
+  /**
+   * What an import read and how fast it read it.
+   */
+  public static final class Result {
+    private long eventsRead;
+    private long eventsImported;
+    private long eventsSkipped;
+    private long eventsRejected;
+    private long batches;
+    private long characters;
+    private long lines;
+    private long elapsedNanos;
+
+    private Result() {}
+
+    private void add(List<Event> batch) {
+      eventsImported += batch.size();
+      batches++;
+    }
+
+    /**
+     * Returns the number of {@code VEVENT}s read.
+     */
+    public long getEventsRead() {
+      return eventsRead;
+    }
+
+    /**
+     * Returns the number of events handed on. A series can add several, and an event that is not
+     * on the day adds none.
+     */
+    public long getEventsImported() {
+      return eventsImported;
+    }
+
+    /**
+     * Returns the number of {@code VEVENT}s that were skipped because they don't make anyone busy.
+     */
+    public long getEventsSkipped() {
+      return eventsSkipped;
+    }
+
+    /**
+     * Returns the number of {@code VEVENT}s that couldn't be read, or that repeat by a rule the
+     * importer can't expand.
+     */
+    public long getEventsRejected() {
+      return eventsRejected;
+    }
+
+    public long getBatches() {
+      return batches;
+    }
+
+    public long getCharacters() {
+      return characters;
+    }
+
+    public long getLines() {
+      return lines;
+    }
+
+    public long getElapsedNanos() {
+      return elapsedNanos;
+    }
+
+    /**
+     * Returns the number of {@code VEVENT}s read per second.
+     */
+    public double getEventsPerSecond() {
+      return elapsedNanos == 0 ? 0 : eventsRead * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Returns the number of characters read per second.
+     */
+    public double getCharactersPerSecond() {
+      return elapsedNanos == 0 ? 0 : characters * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(Locale.ROOT,
+          "read %d events (%d imported in %d batches, %d skipped, %d rejected) from %d lines"
+              + " in %.1f s: %.0f events/s, %.1f MB/s",
+          eventsRead, eventsImported, batches, eventsSkipped, eventsRejected, lines,
+          elapsedNanos / 1e9, getEventsPerSecond(), getCharactersPerSecond() / (1 << 20));
+    }
+  }
+
+  /**
+   * What has been read of the event being read.
+   */
+  private static final class PendingEvent {
+    private final Set<String> attendees = new LinkedHashSet<>();
+    private final List<Long> exceptions = new ArrayList<>();
+    private String title;
+    private LocalDateTime start;
+    private ZoneId startZone;
+    private boolean allDay;
+    private Long end;
+    private Long duration;
+    private String rule;
+    private boolean cancelled;
+    private boolean transparent;
+    private boolean rejected;
+  }
+
+  /**
+   * Reads unfolded content lines through a fixed buffer. A line that starts with a space or a tab
+   * continues the line before it.
+   */
+  private static final class LineReader {
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final StringBuilder line = new StringBuilder();
+    private int position;
+    private int limit;
+    private long characters;
+    private long lines;
+
+    LineReader(Reader in) {
+      this.in = in;
+    }
+
+    /**
+     * Returns the next unfolded line, cut short after {@code MAX_LINE_LENGTH} characters, or null
+     * at the end of the input.
+     */
+    String readLine() throws IOException {
+      if (!fill()) {
+        return null;
+      }
+
+      line.setLength(0);
+      while (true) {
+        readPhysicalLine();
+        if (!fill() || (buffer[position] != ' ' && buffer[position] != '\t')) {
+          return line.toString();
+        }
+        position++;
+      }
+    }
+
+    private void readPhysicalLine() throws IOException {
+      lines++;
+      while (fill()) {
+        int end = position;
+        while (end < limit && buffer[end] != '\n') {
+          end++;
+        }
+        line.append(buffer, position,
+            Math.min(end - position, Math.max(0, MAX_LINE_LENGTH - line.length())));
+        position = end;
+        if (end < limit) {
+          position++;
+          break;
+        }
+      }
+
+      int last = line.length() - 1;
+      if (last >= 0 && line.charAt(last) == '\r') {
+        line.setLength(last);
+      }
+    }
+
+    private boolean fill() throws IOException {
+      while (position == limit) {
+        int read = in.read(buffer);
+        if (read == -1) {
+          return false;
+        }
+        characters += read;
+        position = 0;
+        limit = read;
+      }
+      return true;
+    }
+  }
+}
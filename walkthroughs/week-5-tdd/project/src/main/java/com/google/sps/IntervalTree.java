@@ -0,0 +1,115 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * An augmented interval tree over {@link EpochRange}s. The ranges are kept in an array sorted by
+ * start time, which is treated as an implicit balanced binary search tree: the root of any slice of
+ * the array is its middle element. Every node also records the latest end time in its subtree, so a
+ * search can skip any subtree that finishes before the window starts and stop as soon as ranges
+ * start after the window ends. Finding the {@code k} ranges that overlap a window takes
+ * {@code O(log n + k)} time when ranges rarely nest inside one another, and never more than
+ * {@code O(k log n)}. Trees are considered read-only once built.
+ */
+public final class IntervalTree {
+  private final EpochRange[] ranges;
+
+  // The latest end time in the subtree rooted at each position of {@code ranges}.
+  private final long[] maxEnds;
+
+  /**
+   * Creates a new tree.
+   *
+   * @param ranges The ranges to store. Must be non-null.
+   */
+  public IntervalTree(Collection<EpochRange> ranges) {
+    if (ranges == null) {
+      throw new IllegalArgumentException("ranges cannot be null");
+    }
+
+    this.ranges = ranges.toArray(new EpochRange[0]);
+    Arrays.sort(this.ranges, EpochRange.ORDER_BY_START);
+    this.maxEnds = new long[this.ranges.length];
+    computeMaxEnds(0, this.ranges.length);
+  }
+
+  /**
+   * Returns the number of ranges in the tree.
+   */
+  public int size() {
+    return ranges.length;
+  }
+
+  /**
+   * Returns the ranges that overlap {@code window}, in ascending order of start time.
+   */
+  public List<EpochRange> getOverlapping(EpochRange window) {
+    List<EpochRange> overlapping = new ArrayList<>();
+    addOverlapping(window, overlapping);
+    return overlapping;
+  }
+
+  /**
+   * Adds the ranges that overlap {@code window} to {@code overlapping}, in ascending order of start
+   * time.
+   */
+  public void addOverlapping(EpochRange window, List<EpochRange> overlapping) {
+    addOverlapping(0, ranges.length, window.start(), window.end(), overlapping);
+  }
+
+  private long computeMaxEnds(int from, int to) {
+    if (from >= to) {
+      return Long.MIN_VALUE;
+    }
+
+    int root = (from + to) >>> 1;
+    long maxEnd = ranges[root].end();
+    maxEnd = Math.max(maxEnd, computeMaxEnds(from, root));
+    maxEnd = Math.max(maxEnd, computeMaxEnds(root + 1, to));
+    maxEnds[root] = maxEnd;
+    return maxEnd;
+  }
+
+  private void addOverlapping(
+      int from, int to, long windowStart, long windowEnd, List<EpochRange> overlapping) {
+    if (from >= to) {
+      return;
+    }
+
+    int root = (from + to) >>> 1;
+    if (maxEnds[root] <= windowStart) {
+      // Everything in this subtree is over before the window starts.
+      return;
+    }
+
+    addOverlapping(from, root, windowStart, windowEnd, overlapping);
+
+    EpochRange range = ranges[root];
+    if (range.start() >= windowEnd) {
+      // This range and everything after it start after the window ends.
+      return;
+    }
+    if (range.end() > windowStart) {
+      overlapping.add(range);
+    }
+
+    addOverlapping(root + 1, to, windowStart, windowEnd, overlapping);
+  }
+}
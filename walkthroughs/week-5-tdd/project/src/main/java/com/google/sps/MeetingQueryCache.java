@@ -0,0 +1,281 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * A bounded cache of meeting query answers. Answers are keyed by the required attendees, the
+ * optional attendees and the duration, and are only handed out for the calendar version they were
+ * computed against, so a new calendar version never sees an old answer.
+ *
+ * <p>An answer only depends on the events of the people in its request. When an event changes,
+ * calling {@link #invalidate(Collection, long)} with its attendees drops just the answers that
+ * involve one of them and moves the cache on to the new calendar version; every other answer stays
+ * cached. A lookup against a newer version that the cache wasn't told about empties the cache.
+ *
+ * <p>When the cache is full, the least recently used answer is evicted. The cache is safe to share
+ * between threads.
+ */
+public final class MeetingQueryCache {
+  private final int capacity;
+  private final LinkedHashMap<Key, Collection<TimeRange>> answers;
+
+  // The cached answers that involve each attendee.
+  private final Map<String, Set<Key>> dependents = new HashMap<>();
+
+  // The calendar version that every cached answer is valid for.
+  private long calendarVersion = Long.MIN_VALUE;
+
+  private long hits;
+  private long misses;
+  private long evictions;
+  private long invalidations;
+
+  /**
+   * Creates a new cache.
+   *
+   * @param capacity The largest number of answers to keep. Must be positive.
+   */
+  public MeetingQueryCache(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive");
+    }
+
+    this.capacity = capacity;
+    // An access-ordered map keeps the least recently used answer first.
+    this.answers = new LinkedHashMap<Key, Collection<TimeRange>>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, Collection<TimeRange>> eldest) {
+        if (size() > MeetingQueryCache.this.capacity) {
+          evictions++;
+          removeDependencies(eldest.getKey());
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Returns the answer for {@code request} against version {@code calendarVersion} of the
+   * calendar, calling {@code query} to compute it if it isn't cached. {@code query} is called
+   * without holding the cache's lock, so slow queries don't hold up other threads. Answers for a
+   * version older than the cache's are computed but not cached.
+   *
+   * @return Returns a read-only collection of the time ranges when the meeting can be held.
+   */
+  public Collection<TimeRange> get(
+      MeetingRequest request, long calendarVersion, Supplier<Collection<TimeRange>> query) {
+    Key key = new Key(request);
+    synchronized (this) {
+      if (calendarVersion > this.calendarVersion) {
+        // Nothing is known about what changed, so no answer can be trusted.
+        moveToVersion(calendarVersion);
+      }
+      if (calendarVersion == this.calendarVersion) {
+        Collection<TimeRange> answer = answers.get(key);
+        if (answer != null) {
+          hits++;
+          return answer;
+        }
+      }
+      misses++;
+    }
+
+    Collection<TimeRange> answer =
+        Collections.unmodifiableList(new ArrayList<TimeRange>(query.get()));
+    synchronized (this) {
+      // Skip answers that were computed against a calendar that has since changed.
+      if (calendarVersion == this.calendarVersion) {
+        answers.put(key, answer);
+        addDependencies(key);
+      }
+    }
+    return answer;
+  }
+
+  /**
+   * Drops the answers that involve {@code event}'s attendees and moves the cache on to version
+   * {@code newCalendarVersion}. Call this after {@code event} was added to or removed from the
+   * calendar, or after it was moved.
+   */
+  public void invalidate(Event event, long newCalendarVersion) {
+    invalidate(event.getAttendees(), newCalendarVersion);
+  }
+
+  /**
+   * Drops the answers whose required, optional or quorum attendees include any of
+   * {@code attendees} and moves the cache on to version {@code newCalendarVersion}. The remaining
+   * answers are kept for the new version, so {@code attendees} must cover everyone whose events
+   * changed since the cache's current version.
+   *
+   * @param newCalendarVersion The version of the calendar after the change. Must be newer than
+   *     any version the cache has seen.
+   */
+  public synchronized void invalidate(Collection<String> attendees, long newCalendarVersion) {
+    if (newCalendarVersion <= calendarVersion) {
+      throw new IllegalArgumentException(
+          "newCalendarVersion must be newer than " + calendarVersion);
+    }
+
+    for (String attendee : attendees) {
+      Set<Key> keys = dependents.get(attendee);
+      if (keys == null) {
+        continue;
+      }
+      for (Key key : new ArrayList<>(keys)) {
+        answers.remove(key);
+        removeDependencies(key);
+        invalidations++;
+      }
+    }
+    calendarVersion = newCalendarVersion;
+  }
+
+  /**
+   * Removes every answer from the cache. The counters are kept.
+   */
+  public synchronized void clear() {
+    answers.clear();
+    dependents.clear();
+  }
+
+  /**
+   * Returns the number of answers in the cache.
+   */
+  public synchronized int size() {
+    return answers.size();
+  }
+
+  /**
+   * Returns the number of lookups that found a cached answer.
+   */
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  /**
+   * Returns the number of lookups that had to compute an answer.
+   */
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  /**
+   * Returns the number of answers removed to make room for newer ones.
+   */
+  public synchronized long getEvictions() {
+    return evictions;
+  }
+
+  /**
+   * Returns the number of answers removed because an event they depend on changed.
+   */
+  public synchronized long getInvalidations() {
+    return invalidations;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return String.format(
+        "MeetingQueryCache: %d/%d answers, %d hits, %d misses, %d evictions, %d invalidations",
+        answers.size(), capacity, hits, misses, evictions, invalidations);
+  }
+
+  private void moveToVersion(long newCalendarVersion) {
+    clear();
+    calendarVersion = newCalendarVersion;
+  }
+
+  private void addDependencies(Key key) {
+    for (String attendee : key.attendees) {
+      dependents.computeIfAbsent(attendee, unused -> new HashSet<>()).add(key);
+    }
+    for (String attendee : key.optionalAttendees) {
+      dependents.computeIfAbsent(attendee, unused -> new HashSet<>()).add(key);
+    }
+    for (String attendee : key.quorumMembers) {
+      dependents.computeIfAbsent(attendee, unused -> new HashSet<>()).add(key);
+    }
+  }
+
+  private void removeDependencies(Key key) {
+    removeDependencies(key, key.attendees);
+    removeDependencies(key, key.optionalAttendees);
+    removeDependencies(key, key.quorumMembers);
+  }
+
+  private void removeDependencies(Key key, Set<String> attendees) {
+    for (String attendee : attendees) {
+      Set<Key> keys = dependents.get(attendee);
+      if (keys != null && keys.remove(key) && keys.isEmpty()) {
+        dependents.remove(attendee);
+      }
+    }
+  }
+
+  /**
+   * The normalised form of a meeting request. Attendees are kept as sets, so the order and
+   * repetition of names in the request don't matter.
+   */
+  private static final class Key {
+    private final Set<String> attendees;
+    private final Set<String> optionalAttendees;
+    private final Set<String> quorumMembers;
+    private final int quorumMinimum;
+    private final long duration;
+    // Keys are hashed by both the answer map and the dependency sets, so only hash them once.
+    private final int hashCode;
+
+    Key(MeetingRequest request) {
+      this.attendees = new HashSet<>(request.getAttendees());
+      this.optionalAttendees = new HashSet<>(request.getOptionalAttendees());
+      this.optionalAttendees.removeAll(this.attendees);
+      this.quorumMinimum = request.getQuorumMinimum();
+      // Without a quorum, the members don't change the answer.
+      this.quorumMembers = quorumMinimum == 0
+          ? Collections.emptySet()
+          : new HashSet<>(request.getQuorumMembers());
+      this.duration = request.getDuration();
+      this.hashCode = (((attendees.hashCode() * 31 + optionalAttendees.hashCode()) * 31
+          + quorumMembers.hashCode()) * 31 + quorumMinimum) * 31 + Long.hashCode(duration);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof Key && equals(this, (Key) other);
+    }
+
+    private static boolean equals(Key a, Key b) {
+      return a.duration == b.duration && a.quorumMinimum == b.quorumMinimum
+          && a.attendees.equals(b.attendees) && a.optionalAttendees.equals(b.optionalAttendees)
+          && a.quorumMembers.equals(b.quorumMembers);
+    }
+  }
+}
@@ -0,0 +1,73 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * The answer to a meeting query that was given a time budget, along with how much work it took.
+ */
+public final class MeetingQueryResult {
+  private final Collection<TimeRange> ranges;
+  private final boolean optimal;
+  private final int subsetsEvaluated;
+  private final long eventsScanned;
+
+  MeetingQueryResult(
+      Collection<TimeRange> ranges, boolean optimal, int subsetsEvaluated, long eventsScanned) {
+    this.ranges = Collections.unmodifiableList(new ArrayList<TimeRange>(ranges));
+    this.optimal = optimal;
+    this.subsetsEvaluated = subsetsEvaluated;
+    this.eventsScanned = eventsScanned;
+  }
+
+  /**
+   * Returns a read-only collection of the time ranges when the meeting can be held.
+   */
+  public Collection<TimeRange> getRanges() {
+    return ranges;
+  }
+
+  /**
+   * Returns true if the search finished within its budget, so the ranges are the same as an
+   * unbudgeted query would return. Otherwise the ranges are the best ones found in time.
+   */
+  public boolean isOptimal() {
+    return optimal;
+  }
+
+  /**
+   * Returns the number of groups of optional attendees whose ranges were evaluated.
+   */
+  public int getSubsetsEvaluated() {
+    return subsetsEvaluated;
+  }
+
+  /**
+   * Returns the number of events read, counting an event once for each scanned attendee who is
+   * attending it.
+   */
+  public long getEventsScanned() {
+    return eventsScanned;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("MeetingQueryResult: %s, optimal=%b, %d subsets, %d events",
+        ranges, optimal, subsetsEvaluated, eventsScanned);
+  }
+}
@@ -19,6 +19,8 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.SortedSet;
+import java.util.TreeSet;
 
 public final class MeetingRequest {
   // All the people that should be attending this new meeting. Use a set to avoid duplicates.
@@ -30,9 +32,17 @@ public final class MeetingRequest {
   // The duration of the meeting in minutes.
   private final long duration;
 
+  // Every duration to find ranges for, including the duration of the meeting.
+  private final SortedSet<Long> durations = new TreeSet<>();
+
+  // The people of whom at least quorumMinimum must attend. Use a set to avoid duplicates.
+  private final Collection<String> quorumMembers = new HashSet<>();
+  private int quorumMinimum;
+
   public MeetingRequest(Collection<String> attendees, long duration) {
     this.duration = duration;
     this.attendees.addAll(attendees);
+    this.durations.add(duration);
   }
 
   /**
@@ -64,4 +74,68 @@ public final class MeetingRequest {
   public long getDuration() {
     return duration;
   }
+
+  /**
+   * Adds another duration to find ranges for, so that one request can ask about meetings of
+   * several lengths.
+   */
+  public void addDuration(long duration) {
+    durations.add(duration);
+  }
+
+  /**
+   * Returns a read-only copy of every duration to find ranges for, in ascending order. Always
+   * includes {@link #getDuration()}.
+   */
+  public SortedSet<Long> getDurations() {
+    return Collections.unmodifiableSortedSet(durations);
+  }
+
+  /**
+   * Requires at least {@code minimum} of {@code members} to attend for the whole meeting, without
+   * caring which of them do. Replaces any quorum set before.
+   *
+   * @throws IllegalArgumentException if {@code minimum} is negative or more than the number of
+   *     distinct members.
+   */
+  public void setQuorum(Collection<String> members, int minimum) {
+    if (members == null) {
+      throw new IllegalArgumentException("members cannot be null");
+    }
+    Collection<String> distinctMembers = new HashSet<>(members);
+    if (minimum < 0 || minimum > distinctMembers.size()) {
+      throw new IllegalArgumentException("minimum must be between 0 and the number of members");
+    }
+
+    quorumMembers.clear();
+    quorumMembers.addAll(distinctMembers);
+    quorumMinimum = minimum;
+  }
+
+  /**
+   * Returns a read-only copy of the people of whom at least {@link #getQuorumMinimum()} must
+   * attend.
+   */
+  public Collection<String> getQuorumMembers() {
+    return Collections.unmodifiableCollection(quorumMembers);
+  }
+
+  /**
+   * Returns how many of the quorum's members must attend, or 0 if the request has no quorum.
+   */
+  public int getQuorumMinimum() {
+    return quorumMinimum;
+  }
+
+  /**
+   * Returns a request for the same attendees and quorum with a duration of {@code duration}
+   * minutes, and no other durations.
+   */
+  MeetingRequest withDuration(long duration) {
+    MeetingRequest request = new MeetingRequest(attendees, duration);
+    request.optional_attendees.addAll(optional_attendees);
+    request.quorumMembers.addAll(quorumMembers);
+    request.quorumMinimum = quorumMinimum;
+    return request;
+  }
 }
@@ -0,0 +1,186 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads and writes a {@link MeetingRequest} as
+ * {@code {"attendees": [...], "optional_attendees": [...], "duration": ...}} without reflection.
+ * Extra durations are sent as {@code "durations": [...]}, and a request with only
+ * {@code "durations"} takes the shortest of them as its duration. A quorum is sent as
+ * {@code "quorum": {"members": [...], "minimum": ...}}. Missing or null attendee lists are read as
+ * empty, and unknown fields are skipped. A quorum whose minimum is negative or more than its
+ * members, or a quorum on a request with a duration that isn't positive, can't be answered and is
+ * rejected with a {@link JsonSyntaxException}.
+ */
+public final class MeetingRequestTypeAdapter extends TypeAdapter<MeetingRequest> {
+  @Override
+  public void write(JsonWriter out, MeetingRequest request) throws IOException {
+    if (request == null) {
+      out.nullValue();
+      return;
+    }
+
+    out.beginObject();
+    out.name("attendees");
+    writeNames(out, request.getAttendees());
+    out.name("optional_attendees");
+    writeNames(out, request.getOptionalAttendees());
+    out.name("duration").value(request.getDuration());
+    if (request.getDurations().size() > 1) {
+      out.name("durations");
+      out.beginArray();
+      for (long duration : request.getDurations()) {
+        out.value(duration);
+      }
+      out.endArray();
+    }
+    if (request.getQuorumMinimum() > 0) {
+      out.name("quorum");
+      out.beginObject();
+      out.name("members");
+      writeNames(out, request.getQuorumMembers());
+      out.name("minimum").value(request.getQuorumMinimum());
+      out.endObject();
+    }
+    out.endObject();
+  }
+
+  @Override
+  public MeetingRequest read(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+
+    List<String> attendees = new ArrayList<>();
+    List<String> optionalAttendees = new ArrayList<>();
+    Long duration = null;
+    List<Long> durations = new ArrayList<>();
+    List<String> quorumMembers = new ArrayList<>();
+    int quorumMinimum = 0;
+    in.beginObject();
+    while (in.hasNext()) {
+      switch (in.nextName()) {
+        case "attendees":
+          readNames(in, attendees);
+          break;
+        case "optional_attendees":
+          readNames(in, optionalAttendees);
+          break;
+        case "duration":
+          duration = in.nextLong();
+          break;
+        case "durations":
+          readDurations(in, durations);
+          break;
+        case "quorum":
+          if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            break;
+          }
+          in.beginObject();
+          while (in.hasNext()) {
+            switch (in.nextName()) {
+              case "members":
+                readNames(in, quorumMembers);
+                break;
+              case "minimum":
+                quorumMinimum = in.nextInt();
+                break;
+              default:
+                in.skipValue();
+            }
+          }
+          in.endObject();
+          break;
+        default:
+          in.skipValue();
+      }
+    }
+    in.endObject();
+
+    // Optional attendees are added once the required attendees are known, since an attendee who
+    // is required can't also be optional.
+    if (duration == null) {
+      duration = durations.isEmpty() ? 0L : Collections.min(durations);
+    }
+    MeetingRequest request = new MeetingRequest(attendees, duration);
+    for (String attendee : optionalAttendees) {
+      request.addOptionalAttendee(attendee);
+    }
+    for (long extraDuration : durations) {
+      request.addDuration(extraDuration);
+    }
+    if (quorumMinimum != 0 || !quorumMembers.isEmpty()) {
+      try {
+        request.setQuorum(quorumMembers, quorumMinimum);
+      } catch (IllegalArgumentException e) {
+        throw new JsonSyntaxException("bad quorum: " + e.getMessage());
+      }
+    }
+    if (request.getQuorumMinimum() > 0 && request.getDurations().first() <= 0) {
+      throw new JsonSyntaxException("a request with a quorum needs positive durations");
+    }
+    return request;
+  }
+
+  private static void readDurations(JsonReader in, List<Long> durations) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return;
+    }
+
+    in.beginArray();
+    while (in.hasNext()) {
+      durations.add(in.nextLong());
+    }
+    in.endArray();
+  }
+
+  static void writeNames(JsonWriter out, Collection<String> names) throws IOException {
+    out.beginArray();
+    for (String name : names) {
+      out.value(name);
+    }
+    out.endArray();
+  }
+
+  static void readNames(JsonReader in, List<String> names) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return;
+    }
+
+    in.beginArray();
+    while (in.hasNext()) {
+      if (in.peek() == JsonToken.NULL) {
+        throw new JsonSyntaxException("attendee names cannot be null at " + in.getPath());
+      }
+      names.add(in.nextString());
+    }
+    in.endArray();
+  }
+}
@@ -0,0 +1,96 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+/**
+ * The same scan as {@code FindMeetingQuery.getRangesWithoutConflict}, with the conflicts coming
+ * from merging sorted runs of events in ascending order of start time and then key. An event that
+ * is in several runs is only visited once, so a meeting with no duration doesn't fit between an
+ * event and itself.
+ */
+final class MergedRunIterator extends AbstractRangeIterator {
+  private final EventRuns runs;
+  private final long duration;
+
+  // One cursor into each run.
+  private final int[] cursors;
+
+  private int prevConflictEndTime = TimeRange.START_OF_DAY;
+  private boolean visitedAny;
+  private long prevKey;
+  private boolean eventsDone;
+
+  /**
+   * @param runs The runs to merge.
+   * @param duration The minimum length of a range in minutes.
+   */
+  MergedRunIterator(EventRuns runs, long duration) {
+    this.runs = runs;
+    this.duration = duration;
+    cursors = new int[runs.getRunCount()];
+  }
+
+  @Override
+  protected long computeNext() {
+    while (!eventsDone) {
+      int next = -1;
+      for (int run = 0; run < cursors.length; run++) {
+        if (cursors[run] < runs.getLength(run)
+            && (next == -1 || isBefore(run, cursors[run], next, cursors[next]))) {
+          next = run;
+        }
+      }
+      if (next == -1) {
+        eventsDone = true;
+        if (TimeRange.END_OF_DAY - prevConflictEndTime >= duration) {
+          return TimeRangeList.packStartEnd(prevConflictEndTime, TimeRange.END_OF_DAY, true);
+        }
+        break;
+      }
+
+      int index = cursors[next]++;
+      long key = runs.getKey(next, index);
+      if (visitedAny && key == prevKey) {
+        // Several of the attendees are at this event.
+        continue;
+      }
+      visitedAny = true;
+      prevKey = key;
+
+      int conflictStartTime = runs.getStart(next, index);
+      int conflictEndTime = runs.getEnd(next, index);
+      long gap = TimeRangeList.NONE;
+      if (conflictStartTime - prevConflictEndTime >= duration) {
+        gap = TimeRangeList.packStartEnd(prevConflictEndTime, conflictStartTime, false);
+      }
+      if (conflictEndTime > prevConflictEndTime) {
+        prevConflictEndTime = conflictEndTime;
+      }
+      if (gap != TimeRangeList.NONE) {
+        return gap;
+      }
+    }
+    return TimeRangeList.NONE;
+  }
+
+  private boolean isBefore(int runA, int indexA, int runB, int indexB) {
+    int startA = runs.getStart(runA, indexA);
+    int startB = runs.getStart(runB, indexB);
+    if (startA != startB) {
+      return startA < startB;
+    }
+    return runs.getKey(runA, indexA) < runs.getKey(runB, indexB);
+  }
+}
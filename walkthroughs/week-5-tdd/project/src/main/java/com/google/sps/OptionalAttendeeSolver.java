@@ -0,0 +1,469 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Finds the meeting ranges that let the most optional attendees attend. Instead of checking every
+ * combination of optional attendees, this sweeps once over the boundaries of each attendee's free
+ * ranges and counts how many optional attendees are free at every possible meeting start. The sweep
+ * works on plain start times, so it serves both single-day and multi-day searches.
+ */
+final class OptionalAttendeeSolver {
+  // Marks the boundaries that belong to the required attendees' free ranges.
+  private static final int REQUIRED_OWNER = 0;
+
+  /**
+   * Orders sets of optional attendee indices of the same size the same way
+   * {@code CombinatoricsUtils.combinationsIterator} does, by comparing the largest indices first.
+   */
+  private static final Comparator<BitSet> COMBINATION_ORDER = new Comparator<BitSet>() {
+    @Override
+    public int compare(BitSet a, BitSet b) {
+      int indexA = a.length() - 1;
+      int indexB = b.length() - 1;
+      while (indexA >= 0 && indexB >= 0) {
+        if (indexA != indexB) {
+          return Integer.compare(indexA, indexB);
+        }
+        indexA = a.previousSetBit(indexA - 1);
+        indexB = b.previousSetBit(indexB - 1);
+      }
+      return Integer.compare(indexA, indexB);
+    }
+  };
+
+  private OptionalAttendeeSolver() {
+    // Disallow instances.
+  }
+
+  /**
+   * Find the optimal time ranges for optional attendees. The optimal ranges are the ones for the
+   * largest group of optional attendees that can meet with the required attendees. If several
+   * groups are the largest, the group with the longest total duration of ranges is chosen, and ties
+   * go to the group that comes first in combination order.
+   *
+   * @param rangeFinder
+   * @param request Must have a positive duration.
+   * @param requiredRanges The time ranges when the required attendees can meet.
+   * @param budget Limits how many groups are compared once the largest groups are known.
+   * @return Returns the optimal time ranges for optional attendees. Can be empty.
+   */
+  static TimeRangeList optimalRanges(RangeFinder rangeFinder, MeetingRequest request,
+      TimeRangeList requiredRanges, SearchBudget budget) {
+    List<String> optionalAttendees = new ArrayList<String>(request.getOptionalAttendees());
+    List<long[]> optionalStarts = getOptionalStarts(rangeFinder, request, optionalAttendees);
+    long[] requiredStarts = getStarts(requiredRanges, TimeRange.END_OF_DAY, request.getDuration());
+    return optimalRanges(rangeFinder, request, optionalAttendees, requiredStarts, optionalStarts,
+        requiredRanges, budget);
+  }
+
+  /**
+   * Returns the same ranges as
+   * {@link #optimalRanges(RangeFinder, MeetingRequest, TimeRangeList, SearchBudget)} with no
+   * budget. When only one group of optional attendees can be optimal, its ranges are found lazily,
+   * so a caller who only wants the first few ranges doesn't scan the rest of the day for them.
+   */
+  static Iterator<TimeRange> iterateOptimalRanges(
+      RangeFinder rangeFinder, MeetingRequest request, TimeRangeList requiredRanges) {
+    List<String> optionalAttendees = new ArrayList<String>(request.getOptionalAttendees());
+    List<long[]> optionalStarts = getOptionalStarts(rangeFinder, request, optionalAttendees);
+    long[] requiredStarts = getStarts(requiredRanges, TimeRange.END_OF_DAY, request.getDuration());
+    List<BitSet> largestGroups = findLargestGroups(requiredStarts, optionalStarts);
+
+    if (largestGroups.size() == 1
+        && largestGroups.get(0).cardinality() <= getLargestOptionalGroup(rangeFinder, request)) {
+      Iterator<TimeRange> ranges = rangeFinder.iterateRangesWithoutConflict(
+          getGroupAttendees(largestGroups.get(0), optionalAttendees, request.getAttendees()),
+          request.getDuration());
+      if (ranges.hasNext()) {
+        return ranges;
+      }
+    }
+
+    return optimalRanges(rangeFinder, request, optionalAttendees, requiredStarts, optionalStarts,
+        requiredRanges, SearchBudget.unlimited()).toTimeRanges().iterator();
+  }
+
+  /**
+   * Chooses among the largest groups found by the sweep. The sweep only knows when each attendee
+   * is free, so when the range finder also limits how large a group can be, such as by needing a
+   * room that holds everyone, the largest groups can have no ranges at all. Smaller groups are
+   * then checked one size at a time, starting with the largest size the range finder allows. For
+   * each size the sweep is run again with its groups capped at that size, so a size costs one
+   * sweep and one check per group found, however many optional attendees there are.
+   */
+  private static TimeRangeList optimalRanges(RangeFinder rangeFinder, MeetingRequest request,
+      List<String> optionalAttendees, long[] requiredStarts, List<long[]> optionalStarts,
+      TimeRangeList requiredRanges, SearchBudget budget) {
+    int largestAllowed = getLargestOptionalGroup(rangeFinder, request);
+    int largestSize = Integer.MAX_VALUE;
+    for (int size = optionalAttendees.size(); size >= 1; size = Math.min(size, largestSize) - 1) {
+      if (size > largestAllowed) {
+        if (largestAllowed < 1) {
+          break;
+        }
+        size = largestAllowed;
+      }
+
+      List<BitSet> groups = findLargestGroups(requiredStarts, optionalStarts, size);
+      if (groups.isEmpty()) {
+        break;
+      }
+      largestSize = groups.get(0).cardinality();
+
+      TimeRangeList ranges = chooseGroup(groups, optionalAttendees, request.getAttendees(),
+          attendees -> rangeFinder.getRangeListWithoutConflict(attendees, request.getDuration()),
+          TimeRangeList::coveredDuration, new TimeRangeList(0), requiredRanges.coveredDuration(),
+          budget);
+      if (!ranges.isEmpty() || budget.hasStopped()) {
+        return ranges;
+      }
+    }
+    return new TimeRangeList(0);
+  }
+
+  /**
+   * Returns the largest number of optional attendees that can join the required attendees without
+   * the group getting too large for {@code rangeFinder}.
+   */
+  private static int getLargestOptionalGroup(RangeFinder rangeFinder, MeetingRequest request) {
+    return rangeFinder.getLargestGroupSize() - request.getAttendees().size();
+  }
+
+  /**
+   * Find the optimal ranges for optional attendees within {@code horizon}, in the same way as
+   * {@link #optimalRanges(RangeFinder, MeetingRequest, TimeRangeList, SearchBudget)} with no
+   * budget.
+   *
+   * @param calendar
+   * @param request Must have a positive duration.
+   * @param horizon The window to search.
+   * @param requiredRanges The ranges within the horizon when the required attendees can meet.
+   * @return Returns the optimal ranges for optional attendees. Can be empty.
+   */
+  static Collection<EpochRange> optimalRanges(EpochCalendar calendar, MeetingRequest request,
+      EpochRange horizon, Collection<EpochRange> requiredRanges) {
+    long duration = request.getDuration();
+    List<String> optionalAttendees = new ArrayList<String>(request.getOptionalAttendees());
+
+    List<long[]> optionalStarts = new ArrayList<>();
+    for (String attendee : optionalAttendees) {
+      Collection<EpochRange> ranges = calendar.getRangesWithoutConflict(
+          Collections.singleton(attendee), horizon, duration);
+      optionalStarts.add(getEpochStarts(ranges, duration));
+    }
+    List<BitSet> largestGroups =
+        findLargestGroups(getEpochStarts(requiredRanges, duration), optionalStarts);
+
+    return chooseGroup(largestGroups, optionalAttendees, request.getAttendees(),
+        attendees -> calendar.getRangesWithoutConflict(attendees, horizon, duration),
+        OptionalAttendeeSolver::getTotalDuration, Arrays.asList(),
+        getTotalDuration(requiredRanges), SearchBudget.unlimited());
+  }
+
+  /**
+   * Finds the largest groups of optional attendees that can meet with the required attendees.
+   * Meeting start times are given as flattened pairs of {@code [from, to)} bounds, in ascending
+   * order, so that {@code starts[2 * i]} up to {@code starts[2 * i + 1]} is the {@code i}th stretch
+   * of allowed start times.
+   *
+   * @param requiredStarts The start times allowed by the required attendees.
+   * @param optionalStarts The start times allowed by each optional attendee.
+   * @return Returns the largest groups, as sets of indices into {@code optionalStarts}, with the
+   *     groups that are free for the most start times first. Empty if no optional attendee can meet
+   *     with the required attendees.
+   */
+  static List<BitSet> findLargestGroups(long[] requiredStarts, List<long[]> optionalStarts) {
+    return findLargestGroups(requiredStarts, optionalStarts, optionalStarts.size());
+  }
+
+  /**
+   * Finds the largest groups of at most {@code maxSize} optional attendees that can meet with the
+   * required attendees, in the same way as {@link #findLargestGroups(long[], List)}. Where more
+   * than {@code maxSize} optional attendees are free, only the ones free for the most start times
+   * are kept, so the sweep never lists the many smaller groups inside a larger one.
+   */
+  static List<BitSet> findLargestGroups(
+      long[] requiredStarts, List<long[]> optionalStarts, int maxSize) {
+    // The optional attendees, most available first. Ties keep the attendee that comes first, as
+    // combination order prefers.
+    Integer[] byAvailability = null;
+    if (maxSize < optionalStarts.size()) {
+      long[] available = new long[optionalStarts.size()];
+      byAvailability = new Integer[optionalStarts.size()];
+      for (int owner = 0; owner < available.length; owner++) {
+        long[] starts = optionalStarts.get(owner);
+        for (int stretch = 0; stretch < starts.length; stretch += 2) {
+          available[owner] += starts[stretch + 1] - starts[stretch];
+        }
+        byAvailability[owner] = owner;
+      }
+      Arrays.sort(byAvailability,
+          Comparator.comparingLong((Integer owner) -> available[owner]).reversed());
+    }
+
+    // Positions are stored relative to the earliest bound so that they fit in a boundary.
+    long origin = Long.MAX_VALUE;
+    int boundaryCount = requiredStarts.length;
+    if (requiredStarts.length > 0) {
+      origin = requiredStarts[0];
+    }
+    for (long[] starts : optionalStarts) {
+      boundaryCount += starts.length;
+      if (starts.length > 0) {
+        origin = Math.min(origin, starts[0]);
+      }
+    }
+
+    long[] boundaries = new long[boundaryCount];
+    int count = addBoundaries(boundaries, 0, requiredStarts, origin, REQUIRED_OWNER);
+    for (int i = 0; i < optionalStarts.size(); i++) {
+      count = addBoundaries(boundaries, count, optionalStarts.get(i), origin, i + 1);
+    }
+    Arrays.sort(boundaries);
+
+    // Sweep over the meeting start times, keeping track of which optional attendees are free. Every
+    // group of optional attendees that can meet is a subset of the free attendees at some start
+    // time, so the largest groups are the largest sets of free attendees.
+    BitSet free = new BitSet(optionalStarts.size());
+    boolean requiredFree = false;
+    int mostFree = 0;
+    // The number of start times at which each of the largest groups is free, which hints at how
+    // long the group's ranges are.
+    Map<BitSet, Long> largestGroups = new HashMap<>();
+
+    int i = 0;
+    while (i < boundaries.length) {
+      int position = getPosition(boundaries[i]);
+      while (i < boundaries.length && getPosition(boundaries[i]) == position) {
+        long boundary = boundaries[i++];
+        int owner = getOwner(boundary);
+        if (owner == REQUIRED_OWNER) {
+          requiredFree = isOpen(boundary);
+        } else {
+          free.set(owner - 1, isOpen(boundary));
+        }
+      }
+
+      if (!requiredFree) {
+        continue;
+      }
+
+      int freeCount = free.cardinality();
+      if (freeCount == optionalStarts.size() && byAvailability == null) {
+        // Every optional attendee can meet, so no other group can be as large.
+        return Collections.singletonList(free);
+      }
+      BitSet group = free;
+      if (freeCount > maxSize) {
+        group = new BitSet(optionalStarts.size());
+        for (int k = 0; group.cardinality() < maxSize; k++) {
+          if (free.get(byAvailability[k])) {
+            group.set(byAvailability[k]);
+          }
+        }
+        freeCount = maxSize;
+      }
+      if (freeCount > mostFree) {
+        mostFree = freeCount;
+        largestGroups.clear();
+      }
+      if (freeCount == mostFree && freeCount > 0) {
+        // The required attendees are free here, so their closing boundary is still to come.
+        long freeStarts = getPosition(boundaries[i]) - position;
+        largestGroups.merge(group == free ? (BitSet) free.clone() : group, freeStarts, Long::sum);
+      }
+    }
+
+    List<BitSet> orderedGroups = new ArrayList<>(largestGroups.keySet());
+    Collections.sort(orderedGroups, Comparator
+        .comparing((BitSet group) -> largestGroups.get(group), Comparator.reverseOrder())
+        .thenComparing(COMBINATION_ORDER));
+    return orderedGroups;
+  }
+
+  /**
+   * Picks the group whose ranges have the longest total duration, keeping the group that comes
+   * first in combination order on ties. Once a group reaches {@code longestPossible}, only groups
+   * that would win a tie against it are still evaluated. When the budget runs out, the best group
+   * evaluated so far is picked; at least one group is always evaluated.
+   *
+   * @param groups The candidate groups, as sets of indices into {@code optionalAttendees}.
+   * @param optionalAttendees
+   * @param requiredAttendees
+   * @param rangesFor Finds the ranges when a collection of attendees can meet.
+   * @param totalDurationOf Returns the total duration of a group's ranges.
+   * @param noRanges The ranges to return when there are no groups.
+   * @param longestPossible The total duration of the required attendees' ranges, which bounds the
+   *     total duration of every group.
+   * @param budget
+   * @return Returns the ranges of the chosen group, or {@code noRanges} if there are no groups.
+   */
+  static <R> R chooseGroup(List<BitSet> groups, List<String> optionalAttendees,
+      Collection<String> requiredAttendees, Function<Collection<String>, R> rangesFor,
+      ToLongFunction<R> totalDurationOf, R noRanges, long longestPossible, SearchBudget budget) {
+    if (groups.size() == 1) {
+      // A single group wins without comparing durations.
+      budget.recordSubset();
+      return rangesFor.apply(
+          getGroupAttendees(groups.get(0), optionalAttendees, requiredAttendees));
+    }
+
+    R bestRanges = noRanges;
+    BitSet bestGroup = null;
+    long longestDuration = 0;
+    for (BitSet group : groups) {
+      if (bestGroup != null) {
+        if (longestDuration >= longestPossible && COMBINATION_ORDER.compare(group, bestGroup) > 0) {
+          continue;
+        }
+        if (budget.shouldStop()) {
+          break;
+        }
+      }
+
+      budget.recordSubset();
+      R availableRanges =
+          rangesFor.apply(getGroupAttendees(group, optionalAttendees, requiredAttendees));
+      long totalTime = totalDurationOf.applyAsLong(availableRanges);
+      if (totalTime > longestDuration || (totalTime == longestDuration && bestGroup != null
+          && COMBINATION_ORDER.compare(group, bestGroup) < 0)) {
+        bestRanges = availableRanges;
+        bestGroup = group;
+        longestDuration = totalTime;
+      }
+    }
+
+    return bestRanges;
+  }
+
+  /**
+   * Returns the required attendees followed by the optional attendees in {@code group}.
+   */
+  private static List<String> getGroupAttendees(
+      BitSet group, List<String> optionalAttendees, Collection<String> requiredAttendees) {
+    List<String> attendees = new ArrayList<String>(requiredAttendees);
+    for (int index = group.nextSetBit(0); index >= 0; index = group.nextSetBit(index + 1)) {
+      attendees.add(optionalAttendees.get(index));
+    }
+    return attendees;
+  }
+
+  private static long getTotalDuration(Collection<EpochRange> ranges) {
+    long totalTime = 0;
+    for (EpochRange range : ranges) {
+      totalTime += range.duration();
+    }
+    return totalTime;
+  }
+
+  /**
+   * Returns the meeting start times each optional attendee allows during the day.
+   */
+  private static List<long[]> getOptionalStarts(
+      RangeFinder rangeFinder, MeetingRequest request, List<String> optionalAttendees) {
+    long duration = request.getDuration();
+    Map<String, Collection<TimeRange>> optionalRanges =
+        rangeFinder.getRangesWithoutConflictForEach(optionalAttendees, duration);
+
+    // The meeting has to finish by {@code TimeRange.END_OF_DAY}.
+    List<long[]> optionalStarts = new ArrayList<>();
+    for (String attendee : optionalAttendees) {
+      optionalStarts.add(getStarts(optionalRanges.get(attendee), TimeRange.END_OF_DAY, duration));
+    }
+    return optionalStarts;
+  }
+
+  /**
+   * Returns the meeting start times allowed by {@code ranges}. A meeting can start at {@code t}
+   * when {@code [t, t + duration)} fits in one of the ranges and the meeting finishes by
+   * {@code latestEnd}.
+   */
+  private static long[] getStarts(Collection<TimeRange> ranges, long latestEnd, long duration) {
+    return getStarts(TimeRangeList.of(ranges), latestEnd, duration);
+  }
+
+  private static long[] getStarts(TimeRangeList ranges, long latestEnd, long duration) {
+    long[] starts = new long[ranges.size() * 2];
+    int count = 0;
+    for (int i = 0; i < ranges.size(); i++) {
+      long lastStart = Math.min(ranges.getEnd(i), latestEnd) - duration;
+      if (lastStart < ranges.getStart(i)) {
+        continue;
+      }
+      if (count > 0 && ranges.getStart(i) <= starts[count - 1]) {
+        // Ranges can overlap when they come from different rooms, so join their start times.
+        starts[count - 1] = Math.max(starts[count - 1], lastStart + 1);
+      } else {
+        starts[count++] = ranges.getStart(i);
+        starts[count++] = lastStart + 1;
+      }
+    }
+    return Arrays.copyOf(starts, count);
+  }
+
+  private static long[] getEpochStarts(Collection<EpochRange> ranges, long duration) {
+    long[] starts = new long[ranges.size() * 2];
+    int count = 0;
+    for (EpochRange range : ranges) {
+      long lastStart = range.end() - duration;
+      if (lastStart >= range.start()) {
+        starts[count++] = range.start();
+        starts[count++] = lastStart + 1;
+      }
+    }
+    return Arrays.copyOf(starts, count);
+  }
+
+  private static int addBoundaries(
+      long[] boundaries, int count, long[] starts, long origin, int owner) {
+    for (int i = 0; i < starts.length; i += 2) {
+      boundaries[count++] = encode(Math.toIntExact(starts[i] - origin), owner, true);
+      boundaries[count++] = encode(Math.toIntExact(starts[i + 1] - origin), owner, false);
+    }
+    return count;
+  }
+
+  // A boundary is packed into a long so that sorting the boundaries orders them by position. At the
+  // same position, an attendee's closing boundary comes before their next opening boundary.
+  private static long encode(int position, int owner, boolean open) {
+    return ((long) position << 32) | ((long) owner << 1) | (open ? 1 : 0);
+  }
+
+  private static int getPosition(long boundary) {
+    return (int) (boundary >> 32);
+  }
+
+  private static int getOwner(long boundary) {
+    return (int) (boundary & 0xFFFFFFFFL) >>> 1;
+  }
+
+  private static boolean isOpen(long boundary) {
+    return (boundary & 1) != 0;
+  }
+}
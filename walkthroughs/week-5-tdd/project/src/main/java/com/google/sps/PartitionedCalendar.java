@@ -0,0 +1,388 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A calendar split by attendee across {@link FreeBusyWorker} processes. Each query asks only the
+ * workers holding the attendees in it for their merged busy minutes, asks them all at once, and
+ * combines their answers into the free ranges here. The ranges are the same as the ones
+ * {@link BitmapCalendar} finds for the whole calendar.
+ *
+ * <p>A calendar keeps one connection to each worker. Queries from several threads share the
+ * connections, taking turns on each of them. Connecting to a worker and waiting for its answer
+ * both time out, so a worker that hangs fails the queries that need it rather than blocking them
+ * for good. A connection that fails is dropped and opened again by the next query that needs it.
+ */
+public final class PartitionedCalendar implements RangeFinder, Closeable {
+  /**
+   * How long to wait for a worker to accept a connection or answer, unless another time is given.
+   */
+  public static final int DEFAULT_TIMEOUT_MILLIS = 10000;
+
+  private final List<WorkerConnection> workers = new ArrayList<>();
+  private final ExecutorService executor;
+
+  /**
+   * Connects to the workers of a partitioned calendar, waiting up to
+   * {@code DEFAULT_TIMEOUT_MILLIS} for each of them.
+   */
+  public PartitionedCalendar(List<InetSocketAddress> workers) throws IOException {
+    this(workers, DEFAULT_TIMEOUT_MILLIS);
+  }
+
+  /**
+   * Connects to the workers of a partitioned calendar.
+   *
+   * @param workers The addresses of the workers, where worker {@code i} serves partition
+   *     {@code i}. Must be non-empty.
+   * @param timeoutMillis How long to wait for a worker to accept a connection, and for each read
+   *     of its answer. Must be positive.
+   */
+  public PartitionedCalendar(List<InetSocketAddress> workers, int timeoutMillis)
+      throws IOException {
+    if (workers == null || workers.isEmpty()) {
+      throw new IllegalArgumentException("workers cannot be null or empty");
+    }
+
+    if (timeoutMillis <= 0) {
+      throw new IllegalArgumentException("timeoutMillis must be positive");
+    }
+
+    try {
+      for (InetSocketAddress address : workers) {
+        this.workers.add(new WorkerConnection(address, timeoutMillis));
+      }
+    } catch (IOException e) {
+      closeConnections();
+      throw e;
+    }
+
+    executor = Executors.newFixedThreadPool(workers.size(), task -> {
+      Thread thread = new Thread(task, "partitioned-calendar");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Returns the partition {@code attendee} belongs to when the attendees are split into
+   * {@code partitions} partitions.
+   */
+  public static int partitionOf(String attendee, int partitions) {
+    return Math.floorMod(attendee.hashCode(), partitions);
+  }
+
+  public int getPartitionCount() {
+    return workers.size();
+  }
+
+  @Override
+  public int getEventCount(String attendee) {
+    WorkerConnection worker = workers.get(partitionOf(attendee, workers.size()));
+    try {
+      return worker.getEventCount(attendee);
+    } catch (IOException e) {
+      throw new UncheckedIOException("failed to reach the worker for " + attendee, e);
+    }
+  }
+
+  /**
+   * Returns the ranges of the day, in ascending order, in which none of {@code attendees} are busy
+   * and that are at least {@code duration} minutes long.
+   *
+   * @param attendees The people who must all be free.
+   * @param duration The minimum length of a range in minutes. Must be positive.
+   * @throws UncheckedIOException if a worker can't be reached.
+   */
+  @Override
+  public Collection<TimeRange> getRangesWithoutConflict(
+      Collection<String> attendees, long duration) {
+    return getRangeListWithoutConflict(attendees, duration).toTimeRanges();
+  }
+
+  @Override
+  public TimeRangeList getRangeListWithoutConflict(Collection<String> attendees, long duration) {
+    TimeRangeList validTimeRanges = new TimeRangeList();
+    scan(attendees, duration).drainTo(validTimeRanges);
+    return validTimeRanges;
+  }
+
+  @Override
+  public Iterator<TimeRange> iterateRangesWithoutConflict(
+      Collection<String> attendees, long duration) {
+    return scan(attendees, duration);
+  }
+
+  /**
+   * Returns the ranges for each of {@code attendees} on their own, asking each worker once for all
+   * of its attendees.
+   */
+  @Override
+  public Map<String, Collection<TimeRange>> getRangesWithoutConflictForEach(
+      Collection<String> attendees, long duration) {
+    checkDuration(duration);
+
+    List<List<List<String>>> groups = newGroupsByPartition();
+    for (String attendee : new LinkedHashSet<>(attendees)) {
+      List<String> group = new ArrayList<>(1);
+      group.add(attendee);
+      groups.get(partitionOf(attendee, workers.size())).add(group);
+    }
+
+    List<long[][]> answers = askAll(groups);
+    Map<String, Collection<TimeRange>> ranges = new HashMap<>();
+    for (int partition = 0; partition < groups.size(); partition++) {
+      long[][] bitmaps = answers.get(partition);
+      List<List<String>> partitionGroups = groups.get(partition);
+      for (int group = 0; group < partitionGroups.size(); group++) {
+        ranges.put(partitionGroups.get(group).get(0),
+            BitmapCalendar.getFreeRanges(bitmaps[2 * group], bitmaps[2 * group + 1], duration));
+      }
+    }
+    return ranges;
+  }
+
+  /**
+   * Closes the connections to the workers. The workers keep running.
+   */
+  @Override
+  public void close() throws IOException {
+    executor.shutdownNow();
+    closeConnections();
+  }
+
+  private BitmapCalendar.FreeRangeIterator scan(Collection<String> attendees, long duration) {
+    checkDuration(duration);
+
+    List<List<List<String>>> groups = newGroupsByPartition();
+    for (String attendee : attendees) {
+      List<List<String>> partitionGroups = groups.get(partitionOf(attendee, workers.size()));
+      if (partitionGroups.isEmpty()) {
+        partitionGroups.add(new ArrayList<>());
+      }
+      partitionGroups.get(0).add(attendee);
+    }
+
+    long[] busy = DayBitmap.create();
+    long[] breaks = DayBitmap.create();
+    for (long[][] bitmaps : askAll(groups)) {
+      if (bitmaps.length > 0) {
+        DayBitmap.or(busy, bitmaps[0]);
+        DayBitmap.or(breaks, bitmaps[1]);
+      }
+    }
+    return new BitmapCalendar.FreeRangeIterator(busy, breaks, duration);
+  }
+
+  private List<List<List<String>>> newGroupsByPartition() {
+    List<List<List<String>>> groups = new ArrayList<>(workers.size());
+    for (int partition = 0; partition < workers.size(); partition++) {
+      groups.add(new ArrayList<>());
+    }
+    return groups;
+  }
+
+  /**
+   * Asks every worker with groups in {@code groups} for their busy and break bitmaps. The answer
+   * for partition {@code i} holds the bitmaps of group {@code g} at {@code 2 * g} and
+   * {@code 2 * g + 1}, and is empty if the partition had no groups.
+   */
+  private List<long[][]> askAll(List<List<List<String>>> groups) {
+    int asked = 0;
+    for (List<List<String>> partitionGroups : groups) {
+      if (!partitionGroups.isEmpty()) {
+        asked++;
+      }
+    }
+
+    try {
+      List<long[][]> answers = new ArrayList<>(groups.size());
+      if (asked <= 1) {
+        // Handing a single request to another thread would only add a wait.
+        for (int partition = 0; partition < groups.size(); partition++) {
+          List<List<String>> partitionGroups = groups.get(partition);
+          answers.add(partitionGroups.isEmpty()
+              ? new long[0][]
+              : workers.get(partition).getBusy(partitionGroups));
+        }
+        return answers;
+      }
+
+      List<Future<long[][]>> pending = new ArrayList<>(groups.size());
+      for (int partition = 0; partition < groups.size(); partition++) {
+        List<List<String>> partitionGroups = groups.get(partition);
+        WorkerConnection worker = workers.get(partition);
+        pending.add(partitionGroups.isEmpty()
+            ? null
+            : executor.submit(() -> worker.getBusy(partitionGroups)));
+      }
+      for (Future<long[][]> answer : pending) {
+        answers.add(answer == null ? new long[0][] : answer.get());
+      }
+      return answers;
+    } catch (IOException e) {
+      throw new UncheckedIOException("failed to reach a worker", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw new UncheckedIOException("failed to reach a worker", (IOException) e.getCause());
+      }
+      throw new IllegalStateException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("interrupted while waiting for a worker", e);
+    }
+  }
+
+  private static void checkDuration(long duration) {
+    if (duration <= 0) {
+      throw new IllegalArgumentException("duration must be positive");
+    }
+  }
+
+  private void closeConnections() throws IOException {
+    IOException failure = null;
+    for (WorkerConnection worker : workers) {
+      try {
+        worker.close();
+      } catch (IOException e) {
+        failure = e;
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  /**
+   * A connection to one worker. Requests on it are answered in order, so callers take turns. A
+   * request that fails part way leaves the stream out of step, so the connection is then closed and
+   * opened again for the next request.
+   */
+  private static final class WorkerConnection implements Closeable {
+    private final InetSocketAddress address;
+    private final int timeoutMillis;
+
+    // Null while the connection is closed. Volatile so close() doesn't wait behind a request.
+    private volatile Socket socket;
+    private DataInputStream in;
+    private DataOutputStream out;
+
+    WorkerConnection(InetSocketAddress address, int timeoutMillis) throws IOException {
+      this.address = address;
+      this.timeoutMillis = timeoutMillis;
+      connect();
+    }
+
+    synchronized long[][] getBusy(List<List<String>> groups) throws IOException {
+      try {
+        if (socket == null) {
+          connect();
+        }
+        out.writeInt(FreeBusyWorker.OP_BUSY);
+        out.writeInt(groups.size());
+        for (List<String> group : groups) {
+          out.writeInt(group.size());
+          for (String attendee : group) {
+            out.writeUTF(attendee);
+          }
+        }
+        out.flush();
+
+        long[][] bitmaps = new long[2 * groups.size()][];
+        for (int i = 0; i < bitmaps.length; i++) {
+          bitmaps[i] = new long[DayBitmap.WORDS];
+          for (int word = 0; word < DayBitmap.WORDS; word++) {
+            bitmaps[i][word] = in.readLong();
+          }
+        }
+        return bitmaps;
+      } catch (IOException e) {
+        disconnect();
+        throw e;
+      }
+    }
+
+    synchronized int getEventCount(String attendee) throws IOException {
+      try {
+        if (socket == null) {
+          connect();
+        }
+        out.writeInt(FreeBusyWorker.OP_EVENT_COUNT);
+        out.writeUTF(attendee);
+        out.flush();
+        return in.readInt();
+      } catch (IOException e) {
+        disconnect();
+        throw e;
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      Socket open = socket;
+      if (open != null) {
+        open.close();
+      }
+    }
+
+    private void connect() throws IOException {
+      Socket connecting = new Socket();
+      try {
+        connecting.setTcpNoDelay(true);
+        connecting.setSoTimeout(timeoutMillis);
+        connecting.connect(address, timeoutMillis);
+        in = new DataInputStream(new BufferedInputStream(connecting.getInputStream()));
+        out = new DataOutputStream(new BufferedOutputStream(connecting.getOutputStream()));
+      } catch (IOException e) {
+        connecting.close();
+        throw e;
+      }
+      socket = connecting;
+    }
+
+    private void disconnect() {
+      Socket open = socket;
+      socket = null;
+      if (open != null) {
+        try {
+          open.close();
+        } catch (IOException e) {
+          // The connection is being dropped anyway.
+        }
+      }
+    }
+  }
+}
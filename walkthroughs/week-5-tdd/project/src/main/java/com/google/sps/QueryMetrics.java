@@ -0,0 +1,167 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Aggregates the {@link QueryTrace}s of many meeting queries into histograms, along with the
+ * slowest queries seen, so that slow requests can be found and tail latency tracked. Total latency
+ * is also kept separately for each number of optional attendees, since that is what makes the
+ * optional pass expensive. Safe to share between threads; recording a trace doesn't take a lock
+ * unless the query is one of the slowest.
+ */
+public final class QueryMetrics {
+  /**
+   * Queries with at least this many optional attendees share one latency histogram.
+   */
+  public static final int MAX_OPTIONAL_ATTENDEES = 16;
+
+  private static final Comparator<QueryTrace> BY_TOTAL_NANOS =
+      Comparator.comparingLong(QueryTrace::getTotalNanos);
+
+  private final int slowestCapacity;
+
+  private final Histogram totalNanos = new Histogram();
+  private final Histogram requiredPassNanos = new Histogram();
+  private final Histogram optionalPassNanos = new Histogram();
+  private final Histogram eventsScanned = new Histogram();
+  private final Histogram combinationsEvaluated = new Histogram();
+  private final Histogram rangesProduced = new Histogram();
+  private final Histogram[] totalNanosByOptionalAttendees =
+      new Histogram[MAX_OPTIONAL_ATTENDEES + 1];
+
+  // The slowest queries seen, fastest first.
+  private final PriorityQueue<QueryTrace> slowest = new PriorityQueue<>(BY_TOTAL_NANOS);
+  // A query has to be slower than this to join {@code slowest}.
+  private volatile long slowestThreshold = -1;
+
+  /**
+   * Creates new metrics.
+   *
+   * @param slowestCapacity The number of slowest queries to keep. Must not be negative.
+   */
+  public QueryMetrics(int slowestCapacity) {
+    if (slowestCapacity < 0) {
+      throw new IllegalArgumentException("slowestCapacity cannot be negative");
+    }
+
+    this.slowestCapacity = slowestCapacity;
+    for (int i = 0; i < totalNanosByOptionalAttendees.length; i++) {
+      totalNanosByOptionalAttendees[i] = new Histogram();
+    }
+  }
+
+  /**
+   * Adds one query's trace to the metrics.
+   */
+  public void record(QueryTrace trace) {
+    totalNanos.record(trace.getTotalNanos());
+    requiredPassNanos.record(trace.getRequiredPassNanos());
+    eventsScanned.record(trace.getEventsScanned());
+    rangesProduced.record(trace.getRangesProduced());
+    // Queries without an optional pass would only pull its percentiles towards 0.
+    if (trace.hadOptionalPass()) {
+      optionalPassNanos.record(trace.getOptionalPassNanos());
+      combinationsEvaluated.record(trace.getCombinationsEvaluated());
+    }
+    getTotalNanos(trace.getOptionalAttendees()).record(trace.getTotalNanos());
+
+    if (slowestCapacity > 0 && trace.getTotalNanos() > slowestThreshold) {
+      synchronized (slowest) {
+        slowest.add(trace);
+        if (slowest.size() > slowestCapacity) {
+          slowest.poll();
+        }
+        if (slowest.size() == slowestCapacity) {
+          slowestThreshold = slowest.peek().getTotalNanos();
+        }
+      }
+    }
+  }
+
+  public Histogram getTotalNanos() {
+    return totalNanos;
+  }
+
+  public Histogram getRequiredPassNanos() {
+    return requiredPassNanos;
+  }
+
+  /**
+   * Returns the wall time of the optional pass, over the queries that had one.
+   */
+  public Histogram getOptionalPassNanos() {
+    return optionalPassNanos;
+  }
+
+  public Histogram getEventsScanned() {
+    return eventsScanned;
+  }
+
+  /**
+   * Returns the number of groups of optional attendees evaluated, over the queries that had an
+   * optional pass.
+   */
+  public Histogram getCombinationsEvaluated() {
+    return combinationsEvaluated;
+  }
+
+  public Histogram getRangesProduced() {
+    return rangesProduced;
+  }
+
+  /**
+   * Returns the total latency of queries with {@code optionalAttendees} optional attendees. Queries
+   * with {@link #MAX_OPTIONAL_ATTENDEES} or more share one histogram.
+   */
+  public Histogram getTotalNanos(int optionalAttendees) {
+    return totalNanosByOptionalAttendees[Math.min(optionalAttendees, MAX_OPTIONAL_ATTENDEES)];
+  }
+
+  /**
+   * Returns the slowest queries seen since the metrics were created or reset, slowest first.
+   */
+  public List<QueryTrace> getSlowest() {
+    List<QueryTrace> traces;
+    synchronized (slowest) {
+      traces = new ArrayList<>(slowest);
+    }
+    traces.sort(BY_TOTAL_NANOS.reversed());
+    return traces;
+  }
+
+  /**
+   * Forgets every query recorded so far.
+   */
+  public void reset() {
+    totalNanos.reset();
+    requiredPassNanos.reset();
+    optionalPassNanos.reset();
+    eventsScanned.reset();
+    combinationsEvaluated.reset();
+    rangesProduced.reset();
+    for (Histogram histogram : totalNanosByOptionalAttendees) {
+      histogram.reset();
+    }
+    synchronized (slowest) {
+      slowest.clear();
+      slowestThreshold = -1;
+    }
+  }
+}
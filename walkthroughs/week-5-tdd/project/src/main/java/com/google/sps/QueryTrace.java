@@ -0,0 +1,114 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+/**
+ * How much work one meeting query did, and how long each of its phases took. The required pass
+ * finds the ranges for the required attendees, and the optional pass picks the best group of
+ * optional attendees. Many queries have no optional pass, which {@link #hadOptionalPass()} tells
+ * apart from a fast one.
+ */
+public final class QueryTrace {
+  private final int requiredAttendees;
+  private final int optionalAttendees;
+  private final long duration;
+
+  // Filled in by {@link FindMeetingQuery} as the query runs.
+  long requiredPassNanos;
+  long optionalPassNanos;
+  boolean optionalPassRan;
+  long totalNanos;
+  long eventsScanned;
+  int combinationsEvaluated;
+  int rangesProduced;
+
+  public QueryTrace(MeetingRequest request) {
+    this.requiredAttendees = request.getAttendees().size();
+    this.optionalAttendees = request.getOptionalAttendees().size();
+    this.duration = request.getDuration();
+  }
+
+  public int getRequiredAttendees() {
+    return requiredAttendees;
+  }
+
+  public int getOptionalAttendees() {
+    return optionalAttendees;
+  }
+
+  /**
+   * Returns the duration of the requested meeting in minutes.
+   */
+  public long getDuration() {
+    return duration;
+  }
+
+  public long getRequiredPassNanos() {
+    return requiredPassNanos;
+  }
+
+  /**
+   * Returns the wall time of the optional pass, or 0 if the query had none.
+   */
+  public long getOptionalPassNanos() {
+    return optionalPassNanos;
+  }
+
+  /**
+   * Returns whether the query looked for a group of optional attendees. It doesn't when there are
+   * none, or when the required attendees have no ranges.
+   */
+  public boolean hadOptionalPass() {
+    return optionalPassRan;
+  }
+
+  /**
+   * Returns the wall time of the whole query, which includes both passes.
+   */
+  public long getTotalNanos() {
+    return totalNanos;
+  }
+
+  /**
+   * Returns the number of events read, counting an event once for each scanned attendee who is
+   * attending it.
+   */
+  public long getEventsScanned() {
+    return eventsScanned;
+  }
+
+  /**
+   * Returns the number of groups of optional attendees whose ranges were evaluated.
+   */
+  public int getCombinationsEvaluated() {
+    return combinationsEvaluated;
+  }
+
+  /**
+   * Returns the number of ranges in the answer.
+   */
+  public int getRangesProduced() {
+    return rangesProduced;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "QueryTrace: %d required, %d optional, %d minutes, %d ns (required %d ns, optional %d ns),"
+            + " %d events, %d combinations, %d ranges",
+        requiredAttendees, optionalAttendees, duration, totalNanos, requiredPassNanos,
+        optionalPassNanos, eventsScanned, combinationsEvaluated, rangesProduced);
+  }
+}
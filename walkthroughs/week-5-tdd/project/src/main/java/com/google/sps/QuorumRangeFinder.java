@@ -0,0 +1,136 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Narrows the ranges of another {@link RangeFinder} to the times when at least a minimum number of
+ * the members of a quorum can stay for the whole meeting. A meeting can start anywhere from the
+ * start of one of a member's ranges until it would run past the end of it, so one counting sweep
+ * over the boundaries of those start times gives how many members can stay for a meeting starting
+ * at each minute. That is linear in the members' events however many members there are.
+ *
+ * <p>A meeting can be held anywhere within each returned range. When too few members can start a
+ * meeting at some minute, the ranges either side of it can still overlap, so like the ranges of
+ * {@link RoomRangeFinder}, ranges are sorted by start but not merged.
+ */
+final class QuorumRangeFinder implements RangeFinder {
+  private final RangeFinder rangeFinder;
+  private final Collection<String> members;
+  private final int minimum;
+
+  // How many members can stay for a meeting of countedDuration starting at each minute.
+  private long countedDuration;
+  private int[] freeMembers;
+
+  QuorumRangeFinder(RangeFinder rangeFinder, Collection<String> members, int minimum) {
+    this.rangeFinder = rangeFinder;
+    this.members = members;
+    this.minimum = minimum;
+  }
+
+  @Override
+  public Collection<TimeRange> getRangesWithoutConflict(
+      Collection<String> attendees, long duration) {
+    return getRangeListWithoutConflict(attendees, duration).toTimeRanges();
+  }
+
+  @Override
+  public TimeRangeList getRangeListWithoutConflict(Collection<String> attendees, long duration) {
+    return fit(rangeFinder.getRangeListWithoutConflict(attendees, duration), duration);
+  }
+
+  @Override
+  public Map<String, Collection<TimeRange>> getRangesWithoutConflictForEach(
+      Collection<String> attendees, long duration) {
+    return rangeFinder.getRangesWithoutConflictForEach(attendees, duration);
+  }
+
+  @Override
+  public int getEventCount(String attendee) {
+    return rangeFinder.getEventCount(attendee);
+  }
+
+  @Override
+  public int getLargestGroupSize() {
+    return rangeFinder.getLargestGroupSize();
+  }
+
+  /**
+   * Returns the parts of {@code ranges} in which a meeting of {@code duration} minutes can be held
+   * with at least the minimum number of members.
+   */
+  private TimeRangeList fit(TimeRangeList ranges, long duration) {
+    if (duration <= 0) {
+      throw new IllegalArgumentException("duration must be positive");
+    }
+    if (minimum == 0) {
+      return ranges;
+    }
+
+    int[] counts = getFreeMembers(duration);
+    TimeRangeList fitted = new TimeRangeList();
+    for (int i = 0; i < ranges.size(); i++) {
+      int firstStart = Math.max(ranges.getStart(i), TimeRange.START_OF_DAY);
+      long lastStart = Math.min(ranges.getEnd(i) - duration, DayBitmap.MINUTES);
+
+      int runStart = -1;
+      for (int start = firstStart; start <= lastStart; start++) {
+        if (counts[start] >= minimum) {
+          if (runStart == -1) {
+            runStart = start;
+          }
+        } else if (runStart != -1) {
+          fitted.add(runStart, (int) (start - 1 + duration - runStart));
+          runStart = -1;
+        }
+      }
+      if (runStart != -1) {
+        fitted.add(runStart, (int) (lastStart + duration - runStart));
+      }
+    }
+    return fitted;
+  }
+
+  private int[] getFreeMembers(long duration) {
+    if (freeMembers != null && countedDuration == duration) {
+      return freeMembers;
+    }
+
+    // Count +1 where each member's start times begin and -1 just after they end, then add the
+    // changes up along the day.
+    int[] counts = new int[DayBitmap.MINUTES + 2];
+    for (Collection<TimeRange> memberRanges :
+        rangeFinder.getRangesWithoutConflictForEach(members, duration).values()) {
+      for (TimeRange range : memberRanges) {
+        int firstStart = Math.max(range.start(), TimeRange.START_OF_DAY);
+        long lastStart = Math.min(range.end() - duration, DayBitmap.MINUTES);
+        if (firstStart <= lastStart) {
+          counts[firstStart]++;
+          counts[(int) lastStart + 1]--;
+        }
+      }
+    }
+    for (int minute = 1; minute < counts.length; minute++) {
+      counts[minute] += counts[minute - 1];
+    }
+
+    countedDuration = duration;
+    freeMembers = counts;
+    return counts;
+  }
+}
@@ -0,0 +1,79 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Finds the time ranges of the day when none of a group of attendees are busy. Lets
+ * {@link FindMeetingQuery} run the same query logic against different calendar representations.
+ */
+public interface RangeFinder {
+  /**
+   * Returns the ranges, in ascending order, that are at least {@code duration} minutes long and in
+   * which none of {@code attendees} are busy.
+   */
+  Collection<TimeRange> getRangesWithoutConflict(Collection<String> attendees, long duration);
+
+  /**
+   * Returns the same ranges as {@link #getRangesWithoutConflict(Collection, long)}, packed into a
+   * {@link TimeRangeList}. Implementations can override this to find the ranges without allocating
+   * a {@link TimeRange} for each of them.
+   */
+  default TimeRangeList getRangeListWithoutConflict(Collection<String> attendees, long duration) {
+    return TimeRangeList.of(getRangesWithoutConflict(attendees, duration));
+  }
+
+  /**
+   * Returns the number of events {@code attendee} is attending, which is how many events a scan
+   * reads on their behalf.
+   */
+  int getEventCount(String attendee);
+
+  /**
+   * Returns the same ranges as {@link #getRangesWithoutConflict(Collection, long)}. Implementations
+   * can override this to find the ranges lazily, so that a caller who only wants the first few
+   * ranges doesn't scan the whole day.
+   */
+  default Iterator<TimeRange> iterateRangesWithoutConflict(
+      Collection<String> attendees, long duration) {
+    return getRangesWithoutConflict(attendees, duration).iterator();
+  }
+
+  /**
+   * Returns the largest number of attendees a group can have and still have any ranges, such as
+   * the capacity of the largest room when every meeting needs a room. Unlimited by default.
+   */
+  default int getLargestGroupSize() {
+    return Integer.MAX_VALUE;
+  }
+
+  /**
+   * Returns the ranges for each of {@code attendees} on their own. Implementations can override
+   * this to find every attendee's ranges in a single pass over the calendar.
+   */
+  default Map<String, Collection<TimeRange>> getRangesWithoutConflictForEach(
+      Collection<String> attendees, long duration) {
+    Map<String, Collection<TimeRange>> ranges = new HashMap<>();
+    for (String attendee : attendees) {
+      ranges.put(attendee, getRangesWithoutConflict(Collections.singleton(attendee), duration));
+    }
+    return ranges;
+  }
+}
@@ -0,0 +1,164 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.time.DayOfWeek;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Describes when a {@link RecurringEvent} repeats: every few days, or on some weekdays every few
+ * weeks, until an optional end, skipping any exceptions. Rules are considered read-only; the
+ * {@code until} and {@code except} methods return new rules.
+ */
+public final class RecurrenceRule {
+  /**
+   * How often a rule repeats.
+   */
+  public enum Frequency {
+    DAILY,
+    WEEKLY
+  }
+
+  private final Frequency frequency;
+  private final int interval;
+  private final Set<DayOfWeek> weekdays;
+  private final long until;
+  // The start times of skipped occurrences, sorted so they can be binary searched.
+  private final long[] exceptions;
+
+  private RecurrenceRule(
+      Frequency frequency, int interval, Set<DayOfWeek> weekdays, long until, long[] exceptions) {
+    if (interval <= 0) {
+      throw new IllegalArgumentException("interval must be positive");
+    }
+
+    this.frequency = frequency;
+    this.interval = interval;
+    this.weekdays = weekdays;
+    this.until = until;
+    this.exceptions = exceptions;
+  }
+
+  /**
+   * Returns a rule that repeats every day.
+   */
+  public static RecurrenceRule daily() {
+    return everyDays(1);
+  }
+
+  /**
+   * Returns a rule that repeats every {@code interval} days.
+   */
+  public static RecurrenceRule everyDays(int interval) {
+    return new RecurrenceRule(Frequency.DAILY, interval,
+        Collections.unmodifiableSet(EnumSet.noneOf(DayOfWeek.class)), Long.MAX_VALUE, new long[0]);
+  }
+
+  /**
+   * Returns a rule that repeats every week on {@code weekdays}. If {@code weekdays} is empty, the
+   * rule repeats on the weekday of the first occurrence.
+   */
+  public static RecurrenceRule weekly(Collection<DayOfWeek> weekdays) {
+    return everyWeeks(1, weekdays);
+  }
+
+  /**
+   * Returns a rule that repeats on {@code weekdays} every {@code interval} weeks. Weeks are counted
+   * from the day of the first occurrence. If {@code weekdays} is empty, the rule repeats on the
+   * weekday of the first occurrence.
+   */
+  public static RecurrenceRule everyWeeks(int interval, Collection<DayOfWeek> weekdays) {
+    if (weekdays == null) {
+      throw new IllegalArgumentException("weekdays cannot be null. Use empty array instead.");
+    }
+
+    Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+    days.addAll(weekdays);
+    return new RecurrenceRule(Frequency.WEEKLY, interval, Collections.unmodifiableSet(days),
+        Long.MAX_VALUE, new long[0]);
+  }
+
+  /**
+   * Returns a copy of this rule whose occurrences all start before {@code end}, in minutes since
+   * the epoch.
+   */
+  public RecurrenceRule until(long end) {
+    return new RecurrenceRule(frequency, interval, weekdays, end, exceptions);
+  }
+
+  /**
+   * Returns a copy of this rule that also skips the occurrences starting at
+   * {@code occurrenceStarts}, in minutes since the epoch.
+   */
+  public RecurrenceRule except(Collection<Long> occurrenceStarts) {
+    long[] skipped = Arrays.copyOf(exceptions, exceptions.length + occurrenceStarts.size());
+    int count = exceptions.length;
+    for (long start : occurrenceStarts) {
+      skipped[count++] = start;
+    }
+    Arrays.sort(skipped);
+    return new RecurrenceRule(frequency, interval, weekdays, until, skipped);
+  }
+
+  public Frequency getFrequency() {
+    return frequency;
+  }
+
+  public int getInterval() {
+    return interval;
+  }
+
+  /**
+   * Returns the weekdays a weekly rule repeats on. Empty for daily rules, and for weekly rules
+   * that repeat on the weekday of the first occurrence.
+   */
+  public Set<DayOfWeek> getWeekdays() {
+    return weekdays;
+  }
+
+  /**
+   * Returns the time, in minutes since the epoch, that every occurrence starts before. This is
+   * {@code Long.MAX_VALUE} for rules that never end.
+   */
+  public long getUntil() {
+    return until;
+  }
+
+  /**
+   * Returns whether the occurrence starting at {@code occurrenceStart} is skipped.
+   */
+  public boolean isException(long occurrenceStart) {
+    return Arrays.binarySearch(exceptions, occurrenceStart) >= 0;
+  }
+
+  @Override
+  public int hashCode() {
+    return frequency.hashCode() * 31 + interval;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof RecurrenceRule && equals(this, (RecurrenceRule) other);
+  }
+
+  private static boolean equals(RecurrenceRule a, RecurrenceRule b) {
+    return a.frequency == b.frequency && a.interval == b.interval && a.weekdays.equals(b.weekdays)
+        && a.until == b.until && Arrays.equals(a.exceptions, b.exceptions);
+  }
+}
@@ -0,0 +1,178 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A series of events that repeats by a {@link RecurrenceRule}. Only the first occurrence and the
+ * rule are kept; occurrences are worked out on demand, and only the ones inside the window being
+ * searched, so a series costs the same to keep and to search however long it runs. Weekdays are
+ * taken from UTC days since the epoch. Events are considered read-only.
+ */
+public final class RecurringEvent {
+  private final String title;
+  private final EpochRange first;
+  private final RecurrenceRule rule;
+  private final Set<String> attendees = new HashSet<>();
+
+  // The occurrences repeat every {@code period} minutes, at these offsets from the start of each
+  // period, in ascending order.
+  private final long period;
+  private final long[] offsets;
+
+  /**
+   * Creates a new series.
+   *
+   * @param title The human-readable name for the series. Must be non-null.
+   * @param first When the first occurrence takes place. Its duration is the duration of every
+   *     occurrence. Must be non-null.
+   * @param rule When the series repeats. Must be non-null.
+   * @param attendees The collection of people attending every occurrence. Must be non-null.
+   */
+  public RecurringEvent(
+      String title, EpochRange first, RecurrenceRule rule, Collection<String> attendees) {
+    if (title == null) {
+      throw new IllegalArgumentException("title cannot be null");
+    }
+
+    if (first == null) {
+      throw new IllegalArgumentException("first cannot be null");
+    }
+
+    if (rule == null) {
+      throw new IllegalArgumentException("rule cannot be null");
+    }
+
+    if (attendees == null) {
+      throw new IllegalArgumentException("attendees cannot be null. Use empty array instead.");
+    }
+
+    this.title = title;
+    this.first = first;
+    this.rule = rule;
+    this.attendees.addAll(attendees);
+
+    if (rule.getFrequency() == RecurrenceRule.Frequency.DAILY) {
+      period = rule.getInterval() * EpochRange.MINUTES_PER_DAY;
+      offsets = new long[] {0};
+    } else {
+      period = rule.getInterval() * 7 * EpochRange.MINUTES_PER_DAY;
+      offsets = getWeekdayOffsets(first.start(), rule.getWeekdays());
+    }
+  }
+
+  public String getTitle() {
+    return title;
+  }
+
+  /**
+   * Returns when the first occurrence of the series takes place.
+   */
+  public EpochRange getFirst() {
+    return first;
+  }
+
+  public RecurrenceRule getRule() {
+    return rule;
+  }
+
+  /**
+   * Returns a read-only set of required attendees for every occurrence.
+   */
+  public Set<String> getAttendees() {
+    return Collections.unmodifiableSet(attendees);
+  }
+
+  /**
+   * Returns the occurrences that overlap {@code window}, in ascending order of start time.
+   */
+  public List<EpochRange> getOccurrences(EpochRange window) {
+    List<EpochRange> occurrences = new ArrayList<>();
+    addOccurrences(window, occurrences);
+    return occurrences;
+  }
+
+  /**
+   * Adds the occurrences that overlap {@code window} to {@code occurrences}, in ascending order of
+   * start time. This only visits the periods of the series that can reach into the window.
+   */
+  void addOccurrences(EpochRange window, List<EpochRange> occurrences) {
+    long duration = first.duration();
+    long startsBefore = Math.min(window.end(), rule.getUntil());
+
+    // An occurrence overlaps the window when it ends after the window starts, so skip the periods
+    // in which every occurrence ends by then.
+    long lastOffset = offsets[offsets.length - 1];
+    long skipped = Math.max(0,
+        Math.floorDiv(window.start() - duration - first.start() - lastOffset, period));
+    for (long periodStart = first.start() + skipped * period; periodStart < startsBefore;
+        periodStart += period) {
+      for (long offset : offsets) {
+        long start = periodStart + offset;
+        if (start >= startsBefore) {
+          break;
+        }
+        if (start + duration > window.start() && !rule.isException(start)) {
+          occurrences.add(EpochRange.fromStartDuration(start, duration));
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the offsets of {@code weekdays} from the start of the week that begins on the day of
+   * {@code firstStart}, in ascending order.
+   */
+  private static long[] getWeekdayOffsets(long firstStart, Set<DayOfWeek> weekdays) {
+    if (weekdays.isEmpty()) {
+      return new long[] {0};
+    }
+
+    // The epoch fell on a Thursday.
+    DayOfWeek firstDay =
+        DayOfWeek.THURSDAY.plus(Math.floorDiv(firstStart, EpochRange.MINUTES_PER_DAY));
+    long[] offsets = new long[weekdays.size()];
+    int count = 0;
+    for (DayOfWeek weekday : weekdays) {
+      int days = (weekday.getValue() - firstDay.getValue() + 7) % 7;
+      offsets[count++] = days * EpochRange.MINUTES_PER_DAY;
+    }
+    Arrays.sort(offsets);
+    return offsets;
+  }
+
+  @Override
+  public int hashCode() {
+    return title.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof RecurringEvent && equals(this, (RecurringEvent) other);
+  }
+
+  private static boolean equals(RecurringEvent a, RecurringEvent b) {
+    return a.title.equals(b.title) && a.first.equals(b.first) && a.rule.equals(b.rule)
+        && a.attendees.equals(b.attendees);
+  }
+}
@@ -0,0 +1,217 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The bookings of a set of rooms for the day. A room is booked by every event that lists its name
+ * among the event's attendees. Bookings are clipped to the day, and bookings with no duration
+ * don't take up a room.
+ *
+ * <p>Each room's free ranges are found once, when the calendar is built, and the rooms are kept
+ * ordered by capacity so that a query only visits the rooms that are large enough. Calendars are
+ * considered read-only once built.
+ */
+public final class RoomCalendar {
+  // The rooms, largest first, so the rooms that hold at least {@code n} people are a prefix.
+  private final Room[] rooms;
+
+  // The free ranges of each room, sorted and merged, in the same order as {@code rooms}.
+  private final TimeRangeList[] freeRanges;
+
+  // The capacity of the largest room that has no bookings at all, or 0 if every room is booked.
+  private final int largestUnbookedCapacity;
+
+  /**
+   * Creates a new calendar.
+   *
+   * @param rooms The rooms to keep the bookings of. Must be non-null, with unique names.
+   * @param events The events to read bookings from. Must be non-null.
+   */
+  public RoomCalendar(Collection<Room> rooms, Collection<Event> events) {
+    if (rooms == null) {
+      throw new IllegalArgumentException("rooms cannot be null");
+    }
+
+    if (events == null) {
+      throw new IllegalArgumentException("events cannot be null");
+    }
+
+    List<Room> orderedRooms = new ArrayList<>(rooms);
+    Collections.sort(orderedRooms, Comparator.comparingInt(Room::getCapacity).reversed());
+    this.rooms = orderedRooms.toArray(new Room[0]);
+
+    Map<String, TimeRangeList> bookings = new HashMap<>();
+    for (Room room : this.rooms) {
+      if (bookings.put(room.getName(), new TimeRangeList()) != null) {
+        throw new IllegalArgumentException("room names must be unique: " + room.getName());
+      }
+    }
+
+    for (Event event : events) {
+      TimeRange when = event.getWhen();
+      int start = Math.max(when.start(), TimeRange.START_OF_DAY);
+      int end = Math.min(when.end(), TimeRange.WHOLE_DAY.end());
+      if (start >= end) {
+        continue;
+      }
+
+      for (String attendee : event.getAttendees()) {
+        TimeRangeList roomBookings = bookings.get(attendee);
+        if (roomBookings != null) {
+          roomBookings.add(start, end - start);
+        }
+      }
+    }
+
+    TimeRangeList wholeDay = TimeRangeList.of(Collections.singleton(TimeRange.WHOLE_DAY));
+    freeRanges = new TimeRangeList[this.rooms.length];
+    int unbookedCapacity = 0;
+    for (int i = 0; i < this.rooms.length; i++) {
+      TimeRangeList busy = bookings.get(this.rooms[i].getName());
+      if (busy.isEmpty()) {
+        unbookedCapacity = Math.max(unbookedCapacity, this.rooms[i].getCapacity());
+      }
+      busy.sort();
+      busy.merge();
+      freeRanges[i] = wholeDay.subtract(busy);
+    }
+    largestUnbookedCapacity = unbookedCapacity;
+  }
+
+  /**
+   * Returns the number of rooms in the calendar.
+   */
+  public int size() {
+    return rooms.length;
+  }
+
+  /**
+   * Returns the capacity of the largest room, or 0 if there are no rooms.
+   */
+  int getLargestCapacity() {
+    return rooms.length == 0 ? 0 : rooms[0].getCapacity();
+  }
+
+  /**
+   * Returns the rooms that hold at least {@code attendeeCount} people and are free for all of
+   * {@code slot}, smallest first.
+   */
+  public List<Room> getFreeRooms(TimeRange slot, int attendeeCount) {
+    List<Room> freeRooms = new ArrayList<>();
+    for (int i = countRoomsHolding(attendeeCount) - 1; i >= 0; i--) {
+      if (isFree(freeRanges[i], slot.start(), slot.end())) {
+        freeRooms.add(rooms[i]);
+      }
+    }
+    return freeRooms;
+  }
+
+  /**
+   * Returns the parts of {@code ranges} in which a room that holds {@code attendeeCount} people is
+   * free for at least {@code duration} minutes. A meeting can be held anywhere within each returned
+   * range in a single room. The ranges of different rooms can overlap, so the returned ranges are
+   * sorted by start but not merged; a range that lies within another one is left out.
+   *
+   * @param ranges The ranges when the attendees are free, sorted and not overlapping.
+   * @param attendeeCount The number of people the room has to hold.
+   * @param duration The length of the meeting in minutes. Must be positive.
+   */
+  TimeRangeList fit(TimeRangeList ranges, int attendeeCount, long duration) {
+    if (duration <= 0) {
+      throw new IllegalArgumentException("duration must be positive");
+    }
+
+    if (attendeeCount <= largestUnbookedCapacity) {
+      // A room that is free all day fits every range, and no other room can fit more.
+      TimeRangeList fitted = new TimeRangeList(ranges.size());
+      for (int i = 0; i < ranges.size(); i++) {
+        fitted.addPacked(ranges.getPacked(i));
+      }
+      return fitted;
+    }
+
+    TimeRangeList pieces = new TimeRangeList();
+    int matchingRooms = countRoomsHolding(attendeeCount);
+    for (int room = 0; room < matchingRooms; room++) {
+      TimeRangeList roomRanges = ranges.intersect(freeRanges[room]);
+      for (int i = 0; i < roomRanges.size(); i++) {
+        // As with the attendees' ranges, a range that runs to the end of the day is measured
+        // against the inclusive end of the day.
+        int end = Math.min(roomRanges.getEnd(i), TimeRange.END_OF_DAY);
+        if (end - roomRanges.getStart(i) >= duration) {
+          pieces.addPacked(roomRanges.getPacked(i));
+        }
+      }
+    }
+    pieces.sort();
+
+    // Ranges with the same start are ordered by duration, so the last of them is the longest.
+    TimeRangeList fitted = new TimeRangeList(pieces.size());
+    int furthestEnd = Integer.MIN_VALUE;
+    for (int i = 0; i < pieces.size(); i++) {
+      int start = pieces.getStart(i);
+      int end = pieces.getEnd(i);
+      if (!fitted.isEmpty() && fitted.getStart(fitted.size() - 1) == start) {
+        fitted.removeLast();
+      } else if (end <= furthestEnd) {
+        continue;
+      }
+      fitted.addPacked(pieces.getPacked(i));
+      furthestEnd = Math.max(furthestEnd, end);
+    }
+    return fitted;
+  }
+
+  /**
+   * Returns the number of rooms that hold at least {@code attendeeCount} people, which are the
+   * first rooms in {@code rooms}.
+   */
+  private int countRoomsHolding(int attendeeCount) {
+    int low = 0;
+    int high = rooms.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (rooms[middle].getCapacity() >= attendeeCount) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  private static boolean isFree(TimeRangeList free, int start, int end) {
+    // Find the last free range that starts at or before {@code start}.
+    int low = 0;
+    int high = free.size();
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (free.getStart(middle) <= start) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low > 0 && free.getEnd(low - 1) >= end;
+  }
+}
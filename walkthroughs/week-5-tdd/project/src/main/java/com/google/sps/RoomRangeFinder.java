@@ -0,0 +1,108 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Narrows the ranges of another {@link RangeFinder} to the times when a room is free that holds
+ * everyone in the group. The ranges of different rooms can overlap, so ranges are sorted by start
+ * but not merged.
+ *
+ * <p>Each attendee's own ranges are left as they are. They are only used to find candidate groups
+ * of optional attendees, and the ranges of a candidate group are found, room included, through
+ * {@link #getRangeListWithoutConflict(Collection, long)}. No group can be larger than the largest
+ * room, which {@link #getLargestGroupSize()} tells the search for smaller groups.
+ *
+ * <p>If the request has a quorum, the room must also hold the members the quorum needs beyond the
+ * ones already in the group, so they are added to the head count of every group.
+ */
+final class RoomRangeFinder implements RangeFinder {
+  private final RangeFinder rangeFinder;
+  private final RoomCalendar rooms;
+  private final Collection<String> quorumMembers;
+  private final int quorumMinimum;
+
+  // How many members the quorum needs beyond the ones any group of the request can hold.
+  private final int quorumShortfall;
+
+  RoomRangeFinder(RangeFinder rangeFinder, RoomCalendar rooms, MeetingRequest request) {
+    if (rooms == null) {
+      throw new IllegalArgumentException("rooms cannot be null");
+    }
+
+    this.rangeFinder = rangeFinder;
+    this.rooms = rooms;
+    this.quorumMembers = request.getQuorumMembers();
+    this.quorumMinimum = request.getQuorumMinimum();
+
+    Set<String> attendees = new HashSet<>(request.getAttendees());
+    attendees.addAll(request.getOptionalAttendees());
+    this.quorumShortfall = Math.max(0, quorumMinimum - countQuorumMembers(attendees));
+  }
+
+  @Override
+  public Collection<TimeRange> getRangesWithoutConflict(
+      Collection<String> attendees, long duration) {
+    return getRangeListWithoutConflict(attendees, duration).toTimeRanges();
+  }
+
+  @Override
+  public TimeRangeList getRangeListWithoutConflict(Collection<String> attendees, long duration) {
+    return rooms.fit(rangeFinder.getRangeListWithoutConflict(attendees, duration),
+        getHeadCount(attendees), duration);
+  }
+
+  @Override
+  public Map<String, Collection<TimeRange>> getRangesWithoutConflictForEach(
+      Collection<String> attendees, long duration) {
+    return rangeFinder.getRangesWithoutConflictForEach(attendees, duration);
+  }
+
+  @Override
+  public int getEventCount(String attendee) {
+    return rangeFinder.getEventCount(attendee);
+  }
+
+  @Override
+  public int getLargestGroupSize() {
+    return Math.min(Math.max(0, rooms.getLargestCapacity() - quorumShortfall),
+        rangeFinder.getLargestGroupSize());
+  }
+
+  /**
+   * Returns how many people a room must hold for {@code attendees}: the attendees themselves, and
+   * the members the quorum needs beyond the ones among them.
+   */
+  private int getHeadCount(Collection<String> attendees) {
+    if (quorumMinimum == 0) {
+      return attendees.size();
+    }
+    return attendees.size() + Math.max(0, quorumMinimum - countQuorumMembers(attendees));
+  }
+
+  private int countQuorumMembers(Collection<String> attendees) {
+    int count = 0;
+    for (String attendee : attendees) {
+      if (quorumMembers.contains(attendee)) {
+        count++;
+      }
+    }
+    return count;
+  }
+}
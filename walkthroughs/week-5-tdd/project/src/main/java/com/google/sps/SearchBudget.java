@@ -0,0 +1,81 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.time.Duration;
+
+/**
+ * Limits how long a search over groups of optional attendees may run, and counts the groups it
+ * evaluates. A search asks {@link #shouldStop()} before each group after the first, so it always
+ * has at least one answer, and the budget remembers whether the search was cut short.
+ */
+public final class SearchBudget {
+  private final long deadline;
+  private final boolean limited;
+
+  private int subsetsEvaluated;
+  private boolean stopped;
+
+  private SearchBudget(long deadline, boolean limited) {
+    this.deadline = deadline;
+    this.limited = limited;
+  }
+
+  /**
+   * Returns a budget that never runs out.
+   */
+  public static SearchBudget unlimited() {
+    return new SearchBudget(0, false);
+  }
+
+  /**
+   * Returns a budget that runs out {@code budget} from now.
+   */
+  public static SearchBudget of(Duration budget) {
+    if (budget.isNegative()) {
+      throw new IllegalArgumentException("budget cannot be negative");
+    }
+    return new SearchBudget(System.nanoTime() + budget.toNanos(), true);
+  }
+
+  /**
+   * Returns whether the search should stop before evaluating another group. Once this has returned
+   * {@code true}, the search's answer is no longer proven optimal.
+   */
+  boolean shouldStop() {
+    if (limited && !stopped && System.nanoTime() - deadline >= 0) {
+      stopped = true;
+    }
+    return stopped;
+  }
+
+  /**
+   * Records that the search evaluated one more group of attendees.
+   */
+  void recordSubset() {
+    subsetsEvaluated++;
+  }
+
+  public int getSubsetsEvaluated() {
+    return subsetsEvaluated;
+  }
+
+  /**
+   * Returns whether the search was cut short by the budget.
+   */
+  public boolean hasStopped() {
+    return stopped;
+  }
+}
@@ -0,0 +1,142 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lets several queries for the same attendees and different durations share their scans. The
+ * ranges of each group are found once, for the shortest duration, and the ranges for a longer
+ * duration are the ones among them that are long enough, since which gaps a scan considers
+ * doesn't depend on the duration.
+ *
+ * <p>A range that reaches the closing bound of the day is measured against
+ * {@code TimeRange.END_OF_DAY} if it is the last range of the day, but in full if an event with no
+ * duration starts on the closing bound. The two look the same once found, so a range of exactly
+ * the requested duration at the end of the day is checked against the wrapped finder.
+ */
+final class SharedGapsRangeFinder implements RangeFinder {
+  private final RangeFinder rangeFinder;
+  private final long shortestDuration;
+
+  // The ranges of each group and of each attendee on their own, for the shortest duration.
+  private final Map<Set<String>, TimeRangeList> groupRanges = new HashMap<>();
+  private final Map<String, TimeRangeList> attendeeRanges = new HashMap<>();
+
+  /**
+   * Creates a new finder sharing the scans of {@code rangeFinder}.
+   *
+   * @param shortestDuration The shortest duration that will be asked for. Must be positive.
+   */
+  SharedGapsRangeFinder(RangeFinder rangeFinder, long shortestDuration) {
+    if (shortestDuration <= 0) {
+      throw new IllegalArgumentException("shortestDuration must be positive");
+    }
+
+    this.rangeFinder = rangeFinder;
+    this.shortestDuration = shortestDuration;
+  }
+
+  @Override
+  public Collection<TimeRange> getRangesWithoutConflict(
+      Collection<String> attendees, long duration) {
+    return getRangeListWithoutConflict(attendees, duration).toTimeRanges();
+  }
+
+  @Override
+  public TimeRangeList getRangeListWithoutConflict(Collection<String> attendees, long duration) {
+    if (duration < shortestDuration) {
+      return rangeFinder.getRangeListWithoutConflict(attendees, duration);
+    }
+
+    Set<String> group = new HashSet<>(attendees);
+    TimeRangeList ranges = groupRanges.get(group);
+    if (ranges == null) {
+      ranges = rangeFinder.getRangeListWithoutConflict(group, shortestDuration);
+      groupRanges.put(group, ranges);
+    }
+    return filter(ranges, group, duration);
+  }
+
+  @Override
+  public Map<String, Collection<TimeRange>> getRangesWithoutConflictForEach(
+      Collection<String> attendees, long duration) {
+    if (duration < shortestDuration) {
+      return rangeFinder.getRangesWithoutConflictForEach(attendees, duration);
+    }
+
+    // Scan for every attendee that hasn't been scanned yet in a single pass.
+    List<String> missing = new ArrayList<>();
+    for (String attendee : attendees) {
+      if (!attendeeRanges.containsKey(attendee)) {
+        missing.add(attendee);
+      }
+    }
+    if (!missing.isEmpty()) {
+      Map<String, Collection<TimeRange>> scanned =
+          rangeFinder.getRangesWithoutConflictForEach(missing, shortestDuration);
+      for (Map.Entry<String, Collection<TimeRange>> entry : scanned.entrySet()) {
+        attendeeRanges.put(entry.getKey(), TimeRangeList.of(entry.getValue()));
+      }
+    }
+
+    Map<String, Collection<TimeRange>> ranges = new HashMap<>();
+    for (String attendee : attendees) {
+      ranges.put(attendee, filter(attendeeRanges.get(attendee),
+          Collections.singleton(attendee), duration).toTimeRanges());
+    }
+    return ranges;
+  }
+
+  @Override
+  public int getEventCount(String attendee) {
+    return rangeFinder.getEventCount(attendee);
+  }
+
+  @Override
+  public int getLargestGroupSize() {
+    return rangeFinder.getLargestGroupSize();
+  }
+
+  /**
+   * Returns the ranges of {@code ranges}, found for the shortest duration, that are at least
+   * {@code duration} minutes long.
+   */
+  private TimeRangeList filter(TimeRangeList ranges, Collection<String> attendees, long duration) {
+    // Always a new list, since callers are free to change the lists they are given.
+    TimeRangeList longEnough = new TimeRangeList();
+    for (int i = 0; i < ranges.size(); i++) {
+      long rangeDuration = ranges.getDuration(i);
+      boolean keep = rangeDuration >= duration;
+      if (rangeDuration == duration && duration > shortestDuration
+          && ranges.getEnd(i) == TimeRange.END_OF_DAY + 1) {
+        // Only long enough if it ends at an event rather than at the end of the day.
+        TimeRangeList exact = rangeFinder.getRangeListWithoutConflict(attendees, duration);
+        keep = !exact.isEmpty() && exact.getEnd(exact.size() - 1) == TimeRange.END_OF_DAY + 1;
+      }
+      if (keep) {
+        longEnough.addPacked(ranges.getPacked(i));
+      }
+    }
+    return longEnough;
+  }
+}
@@ -0,0 +1,331 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A growable list of time ranges that packs each range's start and duration into one
+ * {@code long}, so range math doesn't allocate a {@link TimeRange} per range. The start is kept in
+ * the high half of the {@code long}, so sorting the packed values orders the ranges by start.
+ *
+ * <p>{@link #merge()}, {@link #intersect(TimeRangeList)} and {@link #subtract(TimeRangeList)}
+ * expect sorted lists, and the last two also expect their inputs to be merged.
+ */
+public final class TimeRangeList {
+  /**
+   * A packed value that no range produces, used to mark the end of a sequence of packed ranges.
+   */
+  static final long NONE = Long.MIN_VALUE;
+
+  private long[] ranges;
+  private int size;
+
+  /**
+   * Creates a new, empty list.
+   */
+  public TimeRangeList() {
+    this(8);
+  }
+
+  /**
+   * Creates a new, empty list with room for {@code capacity} ranges.
+   */
+  public TimeRangeList(int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("capacity cannot be negative");
+    }
+    ranges = new long[capacity];
+  }
+
+  /**
+   * Creates a list holding {@code timeRanges}, in the same order.
+   */
+  public static TimeRangeList of(Collection<TimeRange> timeRanges) {
+    TimeRangeList list = new TimeRangeList(timeRanges.size());
+    for (TimeRange range : timeRanges) {
+      list.add(range.start(), range.duration());
+    }
+    return list;
+  }
+
+  /**
+   * Packs a range into a {@code long}.
+   */
+  public static long pack(int start, int duration) {
+    return ((long) start << 32) | (duration & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Packs the range from {@code start} to {@code end} into a {@code long}, in the same way as
+   * {@code TimeRange.fromStartEnd}.
+   */
+  public static long packStartEnd(int start, int end, boolean inclusive) {
+    return pack(start, inclusive ? end - start + 1 : end - start);
+  }
+
+  /**
+   * Returns the start of a packed range.
+   */
+  public static int start(long range) {
+    return (int) (range >> 32);
+  }
+
+  /**
+   * Returns the duration of a packed range.
+   */
+  public static int duration(long range) {
+    return (int) range;
+  }
+
+  /**
+   * Returns the exclusive end of a packed range.
+   */
+  public static int end(long range) {
+    return start(range) + duration(range);
+  }
+
+  /**
+   * Adds the range starting at {@code start} that is {@code duration} minutes long.
+   */
+  public void add(int start, int duration) {
+    addPacked(pack(start, duration));
+  }
+
+  /**
+   * Adds a packed range.
+   */
+  public void addPacked(long range) {
+    if (size == ranges.length) {
+      ranges = Arrays.copyOf(ranges, Math.max(8, size * 2));
+    }
+    ranges[size++] = range;
+  }
+
+  /**
+   * Returns the number of ranges in the list.
+   */
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Returns range {@code index} packed into a {@code long}.
+   */
+  public long getPacked(int index) {
+    checkIndex(index);
+    return ranges[index];
+  }
+
+  public int getStart(int index) {
+    return start(getPacked(index));
+  }
+
+  public int getDuration(int index) {
+    return duration(getPacked(index));
+  }
+
+  public int getEnd(int index) {
+    return end(getPacked(index));
+  }
+
+  /**
+   * Returns range {@code index} as a {@link TimeRange}. This allocates.
+   */
+  public TimeRange get(int index) {
+    long range = getPacked(index);
+    return TimeRange.fromStartDuration(start(range), duration(range));
+  }
+
+  /**
+   * Removes the last range in the list.
+   */
+  public void removeLast() {
+    checkIndex(size - 1);
+    size--;
+  }
+
+  /**
+   * Removes every range from the list, keeping its capacity.
+   */
+  public void clear() {
+    size = 0;
+  }
+
+  /**
+   * Returns the sum of the durations of the ranges. Ranges are expected not to overlap.
+   */
+  public long totalDuration() {
+    long totalTime = 0;
+    for (int i = 0; i < size; i++) {
+      totalTime += duration(ranges[i]);
+    }
+    return totalTime;
+  }
+
+  /**
+   * Returns the number of minutes covered by at least one of the ranges, counting minutes shared by
+   * overlapping ranges once. The list must be sorted.
+   */
+  public long coveredDuration() {
+    long totalTime = 0;
+    int coveredUntil = Integer.MIN_VALUE;
+    for (int i = 0; i < size; i++) {
+      int start = Math.max(start(ranges[i]), coveredUntil);
+      int end = end(ranges[i]);
+      if (end > start) {
+        totalTime += end - start;
+        coveredUntil = end;
+      }
+    }
+    return totalTime;
+  }
+
+  /**
+   * Sorts the ranges by ascending start time, and ranges with the same start by duration.
+   */
+  public void sort() {
+    Arrays.sort(ranges, 0, size);
+  }
+
+  /**
+   * Joins ranges that overlap or touch, in place, so that no two ranges share a minute. The list
+   * must be sorted.
+   */
+  public void merge() {
+    if (size == 0) {
+      return;
+    }
+
+    int merged = 0;
+    int start = start(ranges[0]);
+    int end = end(ranges[0]);
+    for (int i = 1; i < size; i++) {
+      if (start(ranges[i]) <= end) {
+        end = Math.max(end, end(ranges[i]));
+      } else {
+        ranges[merged++] = pack(start, end - start);
+        start = start(ranges[i]);
+        end = end(ranges[i]);
+      }
+    }
+    ranges[merged++] = pack(start, end - start);
+    size = merged;
+  }
+
+  /**
+   * Returns the ranges of time that are in both this list and {@code other}. Both lists must be
+   * sorted and merged.
+   */
+  public TimeRangeList intersect(TimeRangeList other) {
+    TimeRangeList result = new TimeRangeList(Math.min(size, other.size));
+    int i = 0;
+    int j = 0;
+    while (i < size && j < other.size) {
+      int start = Math.max(start(ranges[i]), start(other.ranges[j]));
+      int end = Math.min(end(ranges[i]), end(other.ranges[j]));
+      if (start < end) {
+        result.add(start, end - start);
+      }
+
+      // Move past whichever range finishes first, since it can't overlap anything later.
+      if (end(ranges[i]) < end(other.ranges[j])) {
+        i++;
+      } else {
+        j++;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the ranges of time that are in this list but not in {@code other}. Both lists must be
+   * sorted and merged.
+   */
+  public TimeRangeList subtract(TimeRangeList other) {
+    TimeRangeList result = new TimeRangeList(size);
+    int j = 0;
+    for (int i = 0; i < size; i++) {
+      int start = start(ranges[i]);
+      int end = end(ranges[i]);
+
+      // Skip the ranges of {@code other} that end before this range starts.
+      while (j < other.size && end(other.ranges[j]) <= start) {
+        j++;
+      }
+
+      int k = j;
+      while (k < other.size && start(other.ranges[k]) < end) {
+        if (start(other.ranges[k]) > start) {
+          result.add(start, start(other.ranges[k]) - start);
+        }
+        start = Math.max(start, end(other.ranges[k]));
+        k++;
+      }
+      if (start < end) {
+        result.add(start, end - start);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the ranges as {@link TimeRange} objects, in list order. This allocates, so it is meant
+   * for handing ranges to callers, such as at the servlet boundary.
+   */
+  public List<TimeRange> toTimeRanges() {
+    List<TimeRange> timeRanges = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      timeRanges.add(get(i));
+    }
+    return timeRanges;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (!(other instanceof TimeRangeList)) {
+      return false;
+    }
+    TimeRangeList list = (TimeRangeList) other;
+    return Arrays.equals(Arrays.copyOf(ranges, size), Arrays.copyOf(list.ranges, list.size));
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = 1;
+    for (int i = 0; i < size; i++) {
+      hash = hash * 31 + Long.hashCode(ranges[i]);
+    }
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    return toTimeRanges().toString();
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("index " + index + " is out of bounds for size " + size);
+    }
+  }
+}
@@ -0,0 +1,66 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+
+/**
+ * Reads and writes a {@link TimeRange} as {@code {"start": ..., "duration": ...}} without
+ * reflection.
+ */
+public final class TimeRangeTypeAdapter extends TypeAdapter<TimeRange> {
+  @Override
+  public void write(JsonWriter out, TimeRange range) throws IOException {
+    if (range == null) {
+      out.nullValue();
+      return;
+    }
+
+    out.beginObject();
+    out.name("start").value(range.start());
+    out.name("duration").value(range.duration());
+    out.endObject();
+  }
+
+  @Override
+  public TimeRange read(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+
+    int start = 0;
+    int duration = 0;
+    in.beginObject();
+    while (in.hasNext()) {
+      switch (in.nextName()) {
+        case "start":
+          start = in.nextInt();
+          break;
+        case "duration":
+          duration = in.nextInt();
+          break;
+        default:
+          in.skipValue();
+      }
+    }
+    in.endObject();
+    return TimeRange.fromStartDuration(start, duration);
+  }
+}
@@ -0,0 +1,156 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * An event store that can change while it is being queried. Every change publishes a new
+ * immutable {@link EventSnapshot}, so readers take the current snapshot with a single volatile
+ * read, never wait for writers, and see one consistent version for as long as they hold it. New
+ * versions share everything but the changed attendees' events with the version before them.
+ *
+ * <p>Writers take turns, so versions are published one at a time and in order.
+ */
+public final class VersionedEventStore {
+  /**
+   * Told about every change to a store, before the new version is published.
+   */
+  public interface ChangeListener {
+    /**
+     * Called when the events of {@code attendees} change in version {@code newVersion}, before
+     * readers can see that version. Runs while the store holds its write lock, so it should be
+     * quick, and it must not throw: a listener that does still leaves the change published, and
+     * its exception is thrown from the update once every listener has been told.
+     */
+    void onChange(Collection<String> attendees, long newVersion);
+  }
+
+  private final List<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+  private final Object writeLock = new Object();
+
+  private volatile EventSnapshot current;
+
+  /**
+   * Creates a new store holding {@code events} at version 0.
+   *
+   * @param events The events to start with. Must be non-null.
+   */
+  public VersionedEventStore(Collection<Event> events) {
+    if (events == null) {
+      throw new IllegalArgumentException("events cannot be null");
+    }
+
+    current = EventSnapshot.of(events);
+  }
+
+  /**
+   * Returns the current version of the store. The snapshot never changes, so a query can read it
+   * as often as it likes and always see the same events.
+   */
+  public EventSnapshot snapshot() {
+    return current;
+  }
+
+  /**
+   * Adds {@code event} to the store.
+   *
+   * @return Returns the new version of the store.
+   */
+  public long add(Event event) {
+    return update(Collections.emptyList(), Collections.singletonList(event));
+  }
+
+  /**
+   * Adds every event of {@code events} to the store, as one change. The batch is sorted and
+   * grouped by attendee before the store is locked, and then merged into each attendee's events
+   * in a single pass, so a large import holds up other writers only for the merge.
+   *
+   * @return Returns the new version of the store.
+   */
+  public long addAll(Collection<Event> events) {
+    return update(Collections.emptyList(), events);
+  }
+
+  /**
+   * Removes one event equal to {@code event} from the store.
+   *
+   * @return Returns the new version of the store.
+   * @throws IllegalArgumentException if the store doesn't hold such an event.
+   */
+  public long remove(Event event) {
+    return update(Collections.singletonList(event), Collections.emptyList());
+  }
+
+  /**
+   * Removes {@code removed} from the store and adds {@code added}, as one change. Readers see
+   * either none or all of the change. A moved event is removed and added again.
+   *
+   * @return Returns the new version of the store.
+   * @throws IllegalArgumentException if a removed event is not in the store. The store is left
+   *     unchanged.
+   * @throws RuntimeException if a listener threw. The change has still been published.
+   */
+  public long update(Collection<Event> removed, Collection<Event> added) {
+    if (removed == null || added == null) {
+      throw new IllegalArgumentException("removed and added cannot be null");
+    }
+
+    EventSnapshot.Batch batch = EventSnapshot.prepare(added);
+    synchronized (writeLock) {
+      EventSnapshot next = current.apply(removed, batch);
+
+      Set<String> changed = new HashSet<>(batch.getAttendees());
+      for (Event event : removed) {
+        changed.addAll(event.getAttendees());
+      }
+      // Listeners hear about a version before readers can see it, so a cache has dropped the
+      // answers the change affects before anyone asks about the new version. Once one listener
+      // has moved to the new version it has to be published, so a failing listener doesn't stop
+      // the others or the change.
+      RuntimeException failure = null;
+      for (ChangeListener listener : listeners) {
+        try {
+          listener.onChange(changed, next.getVersion());
+        } catch (RuntimeException e) {
+          if (failure == null) {
+            failure = e;
+          } else {
+            failure.addSuppressed(e);
+          }
+        }
+      }
+
+      current = next;
+      if (failure != null) {
+        throw failure;
+      }
+      return next.getVersion();
+    }
+  }
+
+  public void addListener(ChangeListener listener) {
+    listeners.add(listener);
+  }
+
+  public void removeListener(ChangeListener listener) {
+    listeners.remove(listener);
+  }
+}
@@ -0,0 +1,84 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link FreeBusyWorker} running in its own JVM on this machine, started with the class path of
+ * this JVM. Used to try a partitioned calendar out over loopback.
+ */
+public final class WorkerProcess implements Closeable {
+  private final Process process;
+  private final InetSocketAddress address;
+
+  private WorkerProcess(Process process, InetSocketAddress address) {
+    this.process = process;
+    this.address = address;
+  }
+
+  /**
+   * Starts a worker for partition {@code partition} of {@code partitions} of the calendar in
+   * {@code snapshot}, and waits until it is listening.
+   */
+  public static WorkerProcess start(Path snapshot, int partition, int partitions)
+      throws IOException {
+    String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+    Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+        FreeBusyWorker.class.getName(), snapshot.toString(), Integer.toString(partition),
+        Integer.toString(partitions))
+        .redirectError(ProcessBuilder.Redirect.INHERIT)
+        .start();
+
+    BufferedReader output = new BufferedReader(
+        new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+    String port = output.readLine();
+    if (port == null) {
+      process.destroy();
+      throw new IOException("worker for partition " + partition + " exited before listening");
+    }
+    return new WorkerProcess(
+        process, new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(port)));
+  }
+
+  public InetSocketAddress getAddress() {
+    return address;
+  }
+
+  /**
+   * Stops the worker by closing its input, and kills it if it hasn't stopped within a few seconds.
+   */
+  @Override
+  public void close() throws IOException {
+    process.getOutputStream().close();
+    try {
+      if (!process.waitFor(5, TimeUnit.SECONDS)) {
+        process.destroyForcibly();
+      }
+    } catch (InterruptedException e) {
+      process.destroyForcibly();
+      Thread.currentThread().interrupt();
+    }
+  }
+}
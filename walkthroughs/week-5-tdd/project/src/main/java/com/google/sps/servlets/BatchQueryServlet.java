@@ -0,0 +1,144 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.EventSnapshot;
+import com.google.sps.FindMeetingQuery;
+import com.google.sps.MeetingRequest;
+import com.google.sps.QueryTrace;
+import com.google.sps.SearchBudget;
+import com.google.sps.TimeRangeList;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Answers many meeting requests in one call. Every request in a batch is answered against the same
+ * version of the shared calendar, and the requests are evaluated in parallel. The answers are sent
+ * back as a JSON array in the same order as the requests, once every request has been answered.
+ * As on {@code /query}, a request for several durations is answered with an object holding the
+ * ranges for each duration, keyed by duration.
+ */
+@WebServlet("/batch-query")
+public class BatchQueryServlet extends HttpServlet {
+  private final FindMeetingQuery findMeetingQuery = new FindMeetingQuery();
+
+  private ForkJoinPool pool;
+
+  @Override
+  public void init() {
+    pool = new ForkJoinPool();
+  }
+
+  @Override
+  public void destroy() {
+    pool.shutdown();
+  }
+
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    // Convert the JSON to an array of MeetingRequests.
+    MeetingRequest[] meetingRequests;
+    try {
+      meetingRequests = JsonSupport.GSON.fromJson(request.getReader(), MeetingRequest[].class);
+    } catch (IllegalArgumentException | IllegalStateException | JsonParseException e) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+      return;
+    }
+    // An empty body reads as null.
+    if (meetingRequests == null || Arrays.asList(meetingRequests).contains(null)) {
+      response.sendError(
+          HttpServletResponse.SC_BAD_REQUEST, "body must be an array of meeting requests");
+      return;
+    }
+
+    // Find the possible meeting times for every request at once, all against the same version of
+    // the calendar.
+    EventSnapshot snapshot = SharedCalendar.STORE.snapshot();
+    List<ForkJoinTask<SortedMap<Long, TimeRangeList>>> tasks =
+        new ArrayList<>(meetingRequests.length);
+    for (MeetingRequest meetingRequest : meetingRequests) {
+      tasks.add(pool.submit(() -> answer(snapshot, meetingRequest)));
+    }
+
+    // Wait for every answer before writing anything, so a failed request turns into an error
+    // status instead of a cut off array.
+    List<SortedMap<Long, TimeRangeList>> answers = new ArrayList<>(tasks.size());
+    try {
+      for (ForkJoinTask<SortedMap<Long, TimeRangeList>> task : tasks) {
+        answers.add(task.join());
+      }
+    } catch (RuntimeException e) {
+      for (ForkJoinTask<SortedMap<Long, TimeRangeList>> task : tasks) {
+        task.cancel(false);
+      }
+      // The query rejects requests it can't answer with an IllegalArgumentException.
+      response.sendError(e instanceof IllegalArgumentException
+          ? HttpServletResponse.SC_BAD_REQUEST
+          : HttpServletResponse.SC_INTERNAL_SERVER_ERROR, e.getMessage());
+      return;
+    }
+
+    // Write the answers as JSON straight to the response.
+    response.setContentType("application/json");
+    JsonWriter writer = JsonSupport.GSON.newJsonWriter(response.getWriter());
+    writer.beginArray();
+    for (int i = 0; i < answers.size(); i++) {
+      SortedMap<Long, TimeRangeList> answer = answers.get(i);
+      if (meetingRequests[i].getDurations().size() == 1) {
+        JsonSupport.writeRanges(writer, answer.get(answer.firstKey()));
+        continue;
+      }
+      writer.beginObject();
+      for (Map.Entry<Long, TimeRangeList> entry : answer.entrySet()) {
+        writer.name(Long.toString(entry.getKey()));
+        JsonSupport.writeRanges(writer, entry.getValue());
+      }
+      writer.endObject();
+    }
+    writer.endArray();
+    writer.flush();
+  }
+
+  /**
+   * Finds the ranges for each of the request's durations. A request for a single duration is
+   * answered with a plain query.
+   */
+  private SortedMap<Long, TimeRangeList> answer(
+      EventSnapshot snapshot, MeetingRequest meetingRequest) {
+    if (meetingRequest.getDurations().size() > 1) {
+      return findMeetingQuery.queryEachDuration(snapshot, meetingRequest, SharedMetrics.QUERIES);
+    }
+
+    QueryTrace trace = new QueryTrace(meetingRequest);
+    SortedMap<Long, TimeRangeList> answer = new TreeMap<>();
+    answer.put(meetingRequest.getDuration(),
+        findMeetingQuery.query(snapshot, meetingRequest, SearchBudget.unlimited(), trace));
+    SharedMetrics.QUERIES.record(trace);
+    return answer;
+  }
+}
@@ -0,0 +1,99 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.EventSnapshot;
+import com.google.sps.TimeRange;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Sends the busy time of a few attendees, so clients don't have to download every event to work
+ * it out. Takes one or more {@code attendee} parameters and an optional window of the day, from
+ * {@code start} (inclusive) to {@code end} (exclusive) in minutes, which defaults to the whole day.
+ * Each attendee's busy time is sent as merged ranges that don't overlap, clipped to the window.
+ */
+@WebServlet("/freebusy")
+public class FreeBusyServlet extends HttpServlet {
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    String[] attendeeParameters = request.getParameterValues("attendee");
+    if (attendeeParameters == null || attendeeParameters.length == 0) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "attendee is required");
+      return;
+    }
+    Set<String> attendees = new LinkedHashSet<>();
+    for (String attendee : attendeeParameters) {
+      attendees.add(attendee);
+    }
+
+    TimeRange window;
+    try {
+      int start = getMinutes(request, "start", TimeRange.START_OF_DAY);
+      int end = getMinutes(request, "end", TimeRange.END_OF_DAY + 1);
+      if (start > end) {
+        throw new IllegalArgumentException("start cannot be after end");
+      }
+      window = TimeRange.fromStartEnd(start, end, false);
+    } catch (IllegalArgumentException e) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+      return;
+    }
+
+    // Answer every attendee from the same version of the calendar.
+    EventSnapshot snapshot = SharedCalendar.STORE.snapshot();
+    response.setContentType("application/json");
+    response.setHeader("Cache-Control", "no-cache");
+    JsonWriter writer = JsonSupport.GSON.newJsonWriter(response.getWriter());
+    writer.beginObject();
+    writer.name("version").value(snapshot.getVersion());
+    writer.name("busy");
+    writer.beginObject();
+    for (String attendee : attendees) {
+      writer.name(attendee);
+      JsonSupport.writeRanges(writer, snapshot.getBusyRanges(attendee, window));
+    }
+    writer.endObject();
+    writer.endObject();
+    writer.flush();
+  }
+
+  /**
+   * Returns the minute of the day in parameter {@code name}, or {@code fallback} if it is missing.
+   */
+  private static int getMinutes(HttpServletRequest request, String name, int fallback) {
+    String value = request.getParameter(name);
+    if (value == null) {
+      return fallback;
+    }
+
+    int minutes;
+    try {
+      minutes = Integer.parseInt(value.trim());
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(name + " must be a number of minutes");
+    }
+    if (minutes < TimeRange.START_OF_DAY || minutes > TimeRange.END_OF_DAY + 1) {
+      throw new IllegalArgumentException(name + " must be within the day");
+    }
+    return minutes;
+  }
+}
@@ -14,23 +14,221 @@
 
 package com.google.sps.servlets;
 
-import com.google.sps.Events;
-import com.google.gson.Gson;
+import com.google.sps.EventSnapshot;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.GZIPOutputStream;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+/**
+ * Sends the calendar's events as JSON, in the order they were added, including events with no
+ * attendees. The events are serialized once per calendar version, both as plain and
+ * gzip-compressed bytes, and every request is answered by copying those bytes to the response.
+ * Clients that send back the ETag of the current version in {@code If-None-Match} get a 304 with
+ * no body.
+ */
 @WebServlet("/get-events")
 public class GetEventsServlet extends HttpServlet {
+  private volatile SerializedEvents serialized;
+
   @Override
   public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
-    Gson gson = new Gson();
-    String jsonResponse = gson.toJson(Events.events);
+    SerializedEvents events = getSerializedEvents(SharedCalendar.STORE.snapshot());
+    boolean gzip = acceptsGzip(request.getHeader("Accept-Encoding"));
+    String etag = gzip ? events.gzipEtag : events.etag;
+
+    // Both encodings hold the same events, so either ETag means the client is up to date.
+    response.setHeader("Vary", "Accept-Encoding");
+    response.setHeader("Cache-Control", "no-cache");
+    response.setHeader("ETag", etag);
+    String ifNoneMatch = request.getHeader("If-None-Match");
+    if (matches(ifNoneMatch, events.etag) || matches(ifNoneMatch, events.gzipEtag)) {
+      response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+      return;
+    }
 
     // Send the JSON back as the response
+    byte[] body = gzip ? events.gzipJson : events.json;
     response.setContentType("application/json");
-    response.getWriter().println(jsonResponse);
+    response.setCharacterEncoding("UTF-8");
+    if (gzip) {
+      response.setHeader("Content-Encoding", "gzip");
+    }
+    response.setContentLength(body.length);
+    response.getOutputStream().write(body);
+  }
+
+  /**
+   * Returns the events of {@code snapshot} serialized, serializing them if the calendar changed.
+   * A newer version that another request already serialized is returned as it is.
+   */
+  private SerializedEvents getSerializedEvents(EventSnapshot snapshot) throws IOException {
+    SerializedEvents events = serialized;
+    if (events != null && events.version >= snapshot.getVersion()) {
+      return events;
+    }
+
+    synchronized (this) {
+      events = serialized;
+      if (events == null || events.version < snapshot.getVersion()) {
+        events = new SerializedEvents(snapshot);
+        serialized = events;
+      }
+      return events;
+    }
+  }
+
+  /**
+   * Returns whether an {@code Accept-Encoding} header allows a gzip-compressed body. An entry for
+   * gzip itself decides, and {@code *} only speaks for gzip when gzip isn't listed.
+   */
+  static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+
+    boolean wildcard = false;
+    for (String coding : acceptEncoding.split(",")) {
+      String[] parameters = coding.split(";");
+      String name = parameters[0].trim();
+      if (name.equalsIgnoreCase("gzip")) {
+        return isAccepted(parameters);
+      }
+      if (name.equals("*")) {
+        wildcard = isAccepted(parameters);
+      }
+    }
+    return wildcard;
+  }
+
+  /**
+   * Returns whether a coding, split at its semicolons, is accepted. A quality of zero means the
+   * client refuses the coding.
+   */
+  private static boolean isAccepted(String[] parameters) {
+    boolean refused = false;
+    for (int i = 1; i < parameters.length; i++) {
+      String parameter = parameters[i].trim();
+      if (parameter.startsWith("q=") || parameter.startsWith("Q=")) {
+        try {
+          refused = Double.parseDouble(parameter.substring(2)) == 0;
+        } catch (NumberFormatException e) {
+          refused = true;
+        }
+      }
+    }
+    return !refused;
+  }
+
+  /**
+   * Returns whether an {@code If-None-Match} header lists {@code etag}. As the header calls for,
+   * weak and strong tags with the same value match.
+   */
+  static boolean matches(String ifNoneMatch, String etag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+
+    for (String tag : ifNoneMatch.split(",")) {
+      tag = tag.trim();
+      if (tag.startsWith("W/")) {
+        tag = tag.substring(2);
+      }
+      if (tag.equals("*") || tag.equals(etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * The events of one calendar version, serialized to JSON.
+   */
+  private static final class SerializedEvents {
+    private final long version;
+    private final byte[] json;
+    private final byte[] gzipJson;
+    private final String etag;
+    private final String gzipEtag;
+
+    SerializedEvents(EventSnapshot snapshot) throws IOException {
+      this.version = snapshot.getVersion();
+
+      ByteArrayOutputStream jsonBytes = new ByteArrayOutputStream();
+      ByteArrayOutputStream gzipBytes = new ByteArrayOutputStream();
+      try (GZIPOutputStream gzipStream = new GZIPOutputStream(gzipBytes);
+          Writer writer = new OutputStreamWriter(
+              new TeeOutputStream(jsonBytes, gzipStream), StandardCharsets.UTF_8)) {
+        JsonSupport.GSON.toJson(snapshot.getEvents(), writer);
+        writer.write('\n');
+      }
+      json = jsonBytes.toByteArray();
+      gzipJson = gzipBytes.toByteArray();
+
+      String tag = version + "-" + digest(json);
+      etag = '"' + tag + '"';
+      gzipEtag = '"' + tag + "-gzip" + '"';
+    }
+
+    private static String digest(byte[] bytes) {
+      try {
+        byte[] hash = MessageDigest.getInstance("SHA-256").digest(bytes);
+        StringBuilder hex = new StringBuilder();
+        // Half of the hash is plenty to tell versions apart.
+        for (int i = 0; i < hash.length / 2; i++) {
+          hex.append(String.format("%02x", hash[i]));
+        }
+        return hex.toString();
+      } catch (NoSuchAlgorithmException e) {
+        // Every Java platform has to support SHA-256.
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+
+  /**
+   * Writes everything to two streams, so the events only have to be turned into JSON once.
+   */
+  private static final class TeeOutputStream extends OutputStream {
+    private final OutputStream first;
+    private final OutputStream second;
+
+    TeeOutputStream(OutputStream first, OutputStream second) {
+      this.first = first;
+      this.second = second;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      first.write(b);
+      second.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      first.write(b, off, len);
+      second.write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+      first.flush();
+      second.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      first.close();
+      second.close();
+    }
   }
 }
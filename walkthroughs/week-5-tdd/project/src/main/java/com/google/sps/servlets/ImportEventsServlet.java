@@ -0,0 +1,74 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.Event;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Adds a batch of events to the calendar. The body is a JSON array of events in the same form
+ * {@link GetEventsServlet} sends them. The whole batch is read and checked before anything is
+ * added, and is then added as one change, so a bad event leaves the calendar as it was. The
+ * response gives the new version and the number of events added, which is every event in the
+ * batch: events with no attendees are stored too, and show up in {@link GetEventsServlet}.
+ */
+@WebServlet("/import-events")
+public class ImportEventsServlet extends HttpServlet {
+  private static final TypeAdapter<Event> EVENT_ADAPTER =
+      JsonSupport.GSON.getAdapter(Event.class);
+
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    // Read the events one at a time, rather than building a tree of the whole batch first.
+    List<Event> events = new ArrayList<>();
+    try {
+      JsonReader reader = JsonSupport.GSON.newJsonReader(request.getReader());
+      reader.beginArray();
+      while (reader.hasNext()) {
+        Event event = EVENT_ADAPTER.read(reader);
+        if (event == null) {
+          throw new IllegalArgumentException("events cannot be null at " + reader.getPath());
+        }
+        events.add(event);
+      }
+      reader.endArray();
+    } catch (IOException | IllegalArgumentException | IllegalStateException
+        | JsonParseException e) {
+      // Malformed or cut off JSON shows up as an IOException from the reader.
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+      return;
+    }
+
+    long version = SharedCalendar.STORE.addAll(events);
+
+    response.setContentType("application/json");
+    JsonWriter writer = JsonSupport.GSON.newJsonWriter(response.getWriter());
+    writer.beginObject();
+    writer.name("version").value(version);
+    writer.name("added").value(events.size());
+    writer.endObject();
+    writer.flush();
+  }
+}
@@ -0,0 +1,72 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.Event;
+import com.google.sps.EventTypeAdapter;
+import com.google.sps.MeetingRequest;
+import com.google.sps.MeetingRequestTypeAdapter;
+import com.google.sps.TimeRange;
+import com.google.sps.TimeRangeList;
+import com.google.sps.TimeRangeTypeAdapter;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * The JSON setup shared by the servlets. {@link Gson} is thread-safe once built, so one instance
+ * serves every request, and the hand-written type adapters keep reflection off the request path.
+ */
+final class JsonSupport {
+  static final Gson GSON = new GsonBuilder()
+      .registerTypeAdapter(Event.class, new EventTypeAdapter())
+      .registerTypeAdapter(MeetingRequest.class, new MeetingRequestTypeAdapter())
+      .registerTypeAdapter(TimeRange.class, new TimeRangeTypeAdapter())
+      .create();
+
+  private static final TimeRangeTypeAdapter TIME_RANGE_ADAPTER = new TimeRangeTypeAdapter();
+
+  private JsonSupport() {
+    // Disallow instances.
+  }
+
+  /**
+   * Writes {@code ranges} to {@code out} as a JSON array.
+   */
+  static void writeRanges(JsonWriter out, Collection<TimeRange> ranges) throws IOException {
+    out.beginArray();
+    for (TimeRange range : ranges) {
+      TIME_RANGE_ADAPTER.write(out, range);
+    }
+    out.endArray();
+  }
+
+  /**
+   * Writes {@code ranges} to {@code out} as a JSON array, in the same form as
+   * {@link TimeRangeTypeAdapter}, without boxing them.
+   */
+  static void writeRanges(JsonWriter out, TimeRangeList ranges) throws IOException {
+    out.beginArray();
+    for (int i = 0; i < ranges.size(); i++) {
+      out.beginObject();
+      out.name("start").value(ranges.getStart(i));
+      out.name("duration").value(ranges.getDuration(i));
+      out.endObject();
+    }
+    out.endArray();
+  }
+}
@@ -0,0 +1,116 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.Histogram;
+import com.google.sps.MeetingQueryCache;
+import com.google.sps.QueryMetrics;
+import com.google.sps.QueryTrace;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Reports the metrics of the meeting queries answered so far as JSON: histograms of the work and
+ * wall time of each query and its passes, total latency for each number of optional attendees,
+ * and the slowest queries. The optional pass and the groups it evaluated are only counted over the
+ * queries that had one. Answers served from the query cache are not counted, and a request for
+ * several durations counts as one query per duration. The query cache's hits, misses, evictions
+ * and invalidations are reported too. A DELETE request resets the metrics, but not the cache
+ * counters, which count from when the server started.
+ */
+@WebServlet("/metrics")
+public class MetricsServlet extends HttpServlet {
+  // The percentiles reported for every histogram, and their names.
+  private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+  private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p999"};
+
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    QueryMetrics metrics = SharedMetrics.QUERIES;
+
+    response.setContentType("application/json");
+    response.setHeader("Cache-Control", "no-store");
+    JsonWriter writer = JsonSupport.GSON.newJsonWriter(response.getWriter());
+    writer.beginObject();
+    writer.name("queries").value(metrics.getTotalNanos().getCount());
+    writeHistogram(writer, "total_ns", metrics.getTotalNanos());
+    writeHistogram(writer, "required_pass_ns", metrics.getRequiredPassNanos());
+    writeHistogram(writer, "optional_pass_ns", metrics.getOptionalPassNanos());
+    writeHistogram(writer, "events_scanned", metrics.getEventsScanned());
+    writeHistogram(writer, "combinations_evaluated", metrics.getCombinationsEvaluated());
+    writeHistogram(writer, "ranges_produced", metrics.getRangesProduced());
+
+    // Only the optional attendee counts that have been asked for are listed.
+    writer.name("total_ns_by_optional_attendees").beginObject();
+    for (int count = 0; count <= QueryMetrics.MAX_OPTIONAL_ATTENDEES; count++) {
+      Histogram histogram = metrics.getTotalNanos(count);
+      if (histogram.getCount() > 0) {
+        String name = count < QueryMetrics.MAX_OPTIONAL_ATTENDEES ? Integer.toString(count)
+            : count + "+";
+        writeHistogram(writer, name, histogram);
+      }
+    }
+    writer.endObject();
+
+    writer.name("slowest").beginArray();
+    for (QueryTrace trace : metrics.getSlowest()) {
+      writer.beginObject();
+      writer.name("required_attendees").value(trace.getRequiredAttendees());
+      writer.name("optional_attendees").value(trace.getOptionalAttendees());
+      writer.name("duration").value(trace.getDuration());
+      writer.name("total_ns").value(trace.getTotalNanos());
+      writer.name("required_pass_ns").value(trace.getRequiredPassNanos());
+      writer.name("optional_pass").value(trace.hadOptionalPass());
+      writer.name("optional_pass_ns").value(trace.getOptionalPassNanos());
+      writer.name("events_scanned").value(trace.getEventsScanned());
+      writer.name("combinations_evaluated").value(trace.getCombinationsEvaluated());
+      writer.name("ranges_produced").value(trace.getRangesProduced());
+      writer.endObject();
+    }
+    writer.endArray();
+
+    MeetingQueryCache cache = SharedCalendar.QUERY_CACHE;
+    writer.name("cache").beginObject();
+    writer.name("hits").value(cache.getHits());
+    writer.name("misses").value(cache.getMisses());
+    writer.name("evictions").value(cache.getEvictions());
+    writer.name("invalidations").value(cache.getInvalidations());
+    writer.endObject();
+    writer.endObject();
+    writer.flush();
+  }
+
+  @Override
+  public void doDelete(HttpServletRequest request, HttpServletResponse response) {
+    SharedMetrics.QUERIES.reset();
+    response.setStatus(HttpServletResponse.SC_NO_CONTENT);
+  }
+
+  private static void writeHistogram(JsonWriter writer, String name, Histogram histogram)
+      throws IOException {
+    writer.name(name).beginObject();
+    writer.name("count").value(histogram.getCount());
+    writer.name("mean").value(histogram.getMean());
+    for (int i = 0; i < PERCENTILES.length; i++) {
+      writer.name(PERCENTILE_NAMES[i]).value(histogram.getValueAtPercentile(PERCENTILES[i]));
+    }
+    writer.name("max").value(histogram.getMax());
+    writer.endObject();
+  }
+}
@@ -14,14 +14,19 @@
 
 package com.google.sps.servlets;
 
-import com.google.sps.Events;
+import com.google.sps.EventSnapshot;
 import com.google.sps.FindMeetingQuery;
 import com.google.sps.MeetingRequest;
+import com.google.sps.QueryTrace;
+import com.google.sps.SearchBudget;
 import com.google.sps.TimeRange;
-import com.google.gson.Gson;
+import com.google.sps.TimeRangeList;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonWriter;
 import java.io.IOException;
-import java.util.Arrays;
 import java.util.Collection;
+import java.util.Map;
+import java.util.SortedMap;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
@@ -29,23 +34,71 @@ import javax.servlet.http.HttpServletResponse;
 
 @WebServlet("/query")
 public class QueryServlet extends HttpServlet {
+  private final FindMeetingQuery findMeetingQuery = new FindMeetingQuery();
+
   @Override
   public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
-    Gson gson = new Gson();
-
-    // Convert the JSON to an instance of MeetingRequest.
-    MeetingRequest meetingRequest = gson.fromJson(request.getReader(), MeetingRequest.class);
+    // Convert the JSON to an instance of MeetingRequest. Requests that can't be answered, such as
+    // a quorum larger than its members, are rejected while reading.
+    MeetingRequest meetingRequest;
+    try {
+      meetingRequest = JsonSupport.GSON.fromJson(request.getReader(), MeetingRequest.class);
+    } catch (IllegalArgumentException | IllegalStateException | JsonParseException e) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+      return;
+    }
+    // An empty body reads as null.
+    if (meetingRequest == null) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "body must be a meeting request");
+      return;
+    }
 
-    // Find the possible meeting times.
-    FindMeetingQuery findMeetingQuery = new FindMeetingQuery();
-    Collection<TimeRange> answer =
-        findMeetingQuery.query(Arrays.asList(Events.events), meetingRequest);
+    // A request for several durations gets the ranges for each of them, keyed by duration, found
+    // together in one query. Each duration is recorded in the query metrics.
+    EventSnapshot snapshot = SharedCalendar.STORE.snapshot();
+    if (meetingRequest.getDurations().size() > 1) {
+      SortedMap<Long, TimeRangeList> answers;
+      try {
+        answers =
+            findMeetingQuery.queryEachDuration(snapshot, meetingRequest, SharedMetrics.QUERIES);
+      } catch (IllegalArgumentException e) {
+        response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+        return;
+      }
+      response.setContentType("application/json");
+      JsonWriter writer = JsonSupport.GSON.newJsonWriter(response.getWriter());
+      writer.beginObject();
+      for (Map.Entry<Long, TimeRangeList> entry : answers.entrySet()) {
+        writer.name(Long.toString(entry.getKey()));
+        JsonSupport.writeRanges(writer, entry.getValue());
+      }
+      writer.endObject();
+      writer.flush();
+      return;
+    }
 
-    // Convert the times to JSON
-    String jsonResponse = gson.toJson(answer);
+    // Find the possible meeting times against one version of the calendar, reusing the answer if
+    // the same meeting was asked for before. Computed answers are recorded in the query metrics.
+    // The ranges are only boxed into TimeRanges once they are cached.
+    Collection<TimeRange> answer;
+    try {
+      answer = SharedCalendar.QUERY_CACHE.get(meetingRequest, snapshot.getVersion(), () -> {
+        QueryTrace trace = new QueryTrace(meetingRequest);
+        TimeRangeList ranges =
+            findMeetingQuery.query(snapshot, meetingRequest, SearchBudget.unlimited(), trace);
+        SharedMetrics.QUERIES.record(trace);
+        return ranges.toTimeRanges();
+      });
+    } catch (IllegalArgumentException e) {
+      // The query rejects requests it can't answer with an IllegalArgumentException.
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+      return;
+    }
 
-    // Send the JSON back as the response
+    // Write the times as JSON straight to the response.
     response.setContentType("application/json");
-    response.getWriter().println(jsonResponse);
+    JsonWriter writer = JsonSupport.GSON.newJsonWriter(response.getWriter());
+    JsonSupport.writeRanges(writer, answer);
+    writer.flush();
   }
 }
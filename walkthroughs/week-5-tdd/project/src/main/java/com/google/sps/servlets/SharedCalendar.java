@@ -0,0 +1,42 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.Events;
+import com.google.sps.MeetingQueryCache;
+import com.google.sps.VersionedEventStore;
+import java.util.Arrays;
+
+/**
+ * The live calendar shared by the servlets, and the cache of meeting queries answered against it.
+ * The calendar starts out holding {@link Events#events}.
+ */
+final class SharedCalendar {
+  // The largest number of answers to keep cached.
+  private static final int CACHE_CAPACITY = 10000;
+
+  static final VersionedEventStore STORE = new VersionedEventStore(Arrays.asList(Events.events));
+
+  static final MeetingQueryCache QUERY_CACHE = new MeetingQueryCache(CACHE_CAPACITY);
+
+  // Drops the cached answers that a change to the calendar affects.
+  static {
+    STORE.addListener(QUERY_CACHE::invalidate);
+  }
+
+  private SharedCalendar() {
+    // Disallow instances.
+  }
+}
@@ -0,0 +1,32 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.QueryMetrics;
+
+/**
+ * The query metrics shared by the servlets that answer meeting queries and the servlet that
+ * reports them.
+ */
+final class SharedMetrics {
+  // The number of slowest queries to keep for inspection.
+  private static final int SLOWEST_QUERIES = 20;
+
+  static final QueryMetrics QUERIES = new QueryMetrics(SLOWEST_QUERIES);
+
+  private SharedMetrics() {
+    // Disallow instances.
+  }
+}
@@ -0,0 +1,87 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class AttendeeEventIndexTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  private final FindMeetingQuery query = new FindMeetingQuery();
+
+  @Test
+  public void attendingEventsAreOrderedByStart() {
+    Event late = new Event("Event 1", TimeRange.fromStartDuration(TIME_1000AM, DURATION_30_MINUTES),
+        Arrays.asList(PERSON_A));
+    Event early = new Event("Event 2",
+        TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES), Arrays.asList(PERSON_B));
+    Event ignored = new Event("Event 3",
+        TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES), Arrays.asList(PERSON_C));
+    AttendeeEventIndex index = new AttendeeEventIndex(Arrays.asList(late, early, ignored));
+
+    List<Event> actual = index.getAttendingEvents(Arrays.asList(PERSON_A, PERSON_B));
+    List<Event> expected = Arrays.asList(early, late);
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void unknownAttendeeHasNoEvents() {
+    AttendeeEventIndex index = new AttendeeEventIndex(Arrays.asList(Events.events));
+
+    Assert.assertEquals(Arrays.asList(), index.getAttendingEvents(Arrays.asList(PERSON_A)));
+  }
+
+  @Test
+  public void matchesQueryOnCompiledEvents() {
+    Collection<Event> events = Arrays.asList(Events.events);
+    AttendeeEventIndex index = new AttendeeEventIndex(events);
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList("James", "Olivia"), 15);
+    request.addOptionalAttendee("Emma");
+    request.addOptionalAttendee("Liam");
+
+    Assert.assertEquals(query.query(events, request), query.query(index, request));
+  }
+
+  @Test
+  public void matchesQueryOnRandomCalendars() {
+    Random random = new Random(7);
+    for (int trial = 0; trial < 500; trial++) {
+      List<Event> events = RandomCalendars.events(random);
+      MeetingRequest request = RandomCalendars.request(random);
+
+      Assert.assertEquals(
+          query.query(events, request), query.query(new AttendeeEventIndex(events), request));
+    }
+  }
+}
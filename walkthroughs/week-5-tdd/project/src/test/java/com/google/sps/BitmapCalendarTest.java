@@ -0,0 +1,155 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class BitmapCalendarTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0830AM = TimeRange.getTimeInMinutes(8, 30);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_60_MINUTES = 60;
+
+  private final FindMeetingQuery query = new FindMeetingQuery();
+
+  @Test
+  public void noEventsIsWholeDay() {
+    BitmapCalendar calendar = new BitmapCalendar(Arrays.asList());
+
+    Collection<TimeRange> actual =
+        calendar.getRangesWithoutConflict(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    Collection<TimeRange> expected = Arrays.asList(TimeRange.WHOLE_DAY);
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void overlappingEventsAreMerged() {
+    BitmapCalendar calendar = new BitmapCalendar(Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0830AM, DURATION_60_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM, DURATION_60_MINUTES),
+            Arrays.asList(PERSON_B))));
+
+    Collection<TimeRange> actual = calendar.getRangesWithoutConflict(
+        Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0830AM, false),
+            TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void lastRangeUsesInclusiveEndOfDay() {
+    // The sort-and-scan query measures the last range of the day against END_OF_DAY, so a range
+    // that is exactly as long as the meeting at the end of the day is not offered.
+    int start = DayBitmap.MINUTES - DURATION_30_MINUTES;
+    BitmapCalendar calendar = new BitmapCalendar(Arrays.asList(new Event("Event 1",
+        TimeRange.fromStartEnd(TimeRange.START_OF_DAY, start, false), Arrays.asList(PERSON_A))));
+
+    Collection<TimeRange> actual =
+        calendar.getRangesWithoutConflict(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    Assert.assertEquals(Arrays.asList(), actual);
+  }
+
+  @Test
+  public void zeroLengthEventSplitsRange() {
+    BitmapCalendar calendar = new BitmapCalendar(Arrays.asList(new Event("Event 1",
+        TimeRange.fromStartDuration(TIME_0900AM, 0), Arrays.asList(PERSON_A))));
+
+    Collection<TimeRange> actual =
+        calendar.getRangesWithoutConflict(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+            TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void noDurationFitsBetweenBackToBackEvents() {
+    BitmapCalendar calendar = new BitmapCalendar(Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_B))));
+
+    Collection<TimeRange> actual =
+        calendar.getRangesWithoutConflict(Arrays.asList(PERSON_A, PERSON_B), 0);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0830AM, false),
+            TimeRange.fromStartDuration(TIME_0900AM, 0),
+            TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void matchesQueryOnCompiledEvents() {
+    Collection<Event> events = Arrays.asList(Events.events);
+    BitmapCalendar calendar = new BitmapCalendar(events);
+
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList("Amelia", "Isabella"), DURATION_30_MINUTES);
+    request.addOptionalAttendee("Logan");
+    request.addOptionalAttendee("Oliver");
+
+    Assert.assertEquals(query.query(events, request), query.query(calendar, request));
+  }
+
+  @Test
+  public void matchesQueryOnRandomCalendars() {
+    Random random = new Random(42);
+    for (int trial = 0; trial < 500; trial++) {
+      List<Event> events = RandomCalendars.events(random);
+      MeetingRequest request = RandomCalendars.request(random, 1);
+
+      Assert.assertEquals(
+          query.query(events, request), query.query(new BitmapCalendar(events), request));
+    }
+  }
+
+  @Test
+  public void matchesQueryWithNoDuration() {
+    Random random = new Random(44);
+    for (int trial = 0; trial < 500; trial++) {
+      List<Event> events = RandomCalendars.events(random);
+      MeetingRequest request =
+          new MeetingRequest(RandomCalendars.PEOPLE.subList(0, random.nextInt(3)), 0);
+      for (String person : RandomCalendars.PEOPLE.subList(3, 3 + random.nextInt(4))) {
+        request.addOptionalAttendee(person);
+      }
+
+      Assert.assertEquals(
+          query.query(events, request), query.query(new BitmapCalendar(events), request));
+    }
+  }
+}
@@ -0,0 +1,99 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class CalendarSnapshotTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Zo\u00eb";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  private final FindMeetingQuery query = new FindMeetingQuery();
+
+  private CalendarSnapshot writeAndLoad(List<Event> events) throws IOException {
+    Path file = folder.newFile().toPath();
+    CalendarSnapshot.write(events, file);
+    return CalendarSnapshot.load(file);
+  }
+
+  @Test
+  public void eventsAreReadFromSnapshot() throws IOException {
+    CalendarSnapshot snapshot = writeAndLoad(Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A, PERSON_C)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_B))));
+
+    Assert.assertEquals(2, snapshot.size());
+    Assert.assertEquals(3, snapshot.getAttendeeCount());
+    Assert.assertEquals(TIME_0800AM, snapshot.getStart(0));
+    Assert.assertEquals(DURATION_30_MINUTES, snapshot.getDuration(0));
+    Assert.assertArrayEquals(
+        new int[] {snapshot.getAttendeeId(PERSON_B)}, snapshot.getAttendeeIds(0));
+    Assert.assertEquals(PERSON_C, snapshot.getAttendeeName(snapshot.getAttendeeId(PERSON_C)));
+    Assert.assertEquals(1, snapshot.getEventCount(PERSON_C));
+  }
+
+  @Test
+  public void unknownAttendee() throws IOException {
+    CalendarSnapshot snapshot = writeAndLoad(Arrays.asList(Events.events));
+
+    Assert.assertEquals(AttendeeInterner.UNKNOWN, snapshot.getAttendeeId(PERSON_A));
+    Assert.assertEquals(Arrays.asList(TimeRange.WHOLE_DAY),
+        snapshot.getRangesWithoutConflict(Arrays.asList(PERSON_A), DURATION_30_MINUTES));
+  }
+
+  @Test(expected = IOException.class)
+  public void otherFilesAreRejected() throws IOException {
+    Path file = folder.newFile().toPath();
+    Files.write(file, "BEGIN:VCALENDAR".getBytes(StandardCharsets.UTF_8));
+
+    CalendarSnapshot.load(file);
+  }
+
+  @Test
+  public void matchesQueryOnRandomCalendars() throws IOException {
+    Random random = new Random(13);
+    for (int trial = 0; trial < 200; trial++) {
+      List<Event> events = RandomCalendars.events(random);
+      MeetingRequest request = RandomCalendars.request(random);
+
+      Assert.assertEquals(query.query(events, request), query.query(writeAndLoad(events), request));
+    }
+  }
+}
@@ -0,0 +1,142 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class EpochCalendarTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  // All dates are in the first week of the year 2020.
+  private static final long DAY_1 = EpochRange.wholeDay(18262).start();
+  private static final long DAY_2 = DAY_1 + EpochRange.MINUTES_PER_DAY;
+  private static final long DAY_3 = DAY_2 + EpochRange.MINUTES_PER_DAY;
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_0500PM = TimeRange.getTimeInMinutes(17, 0);
+
+  private static final int DURATION_1_HOUR = 60;
+
+  private final FindMeetingQuery query = new FindMeetingQuery();
+
+  @Test
+  public void intervalTreeMatchesLinearScan() {
+    Random random = new Random(3);
+    List<EpochRange> ranges = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      ranges.add(EpochRange.fromStartDuration(random.nextInt(100000), random.nextInt(500)));
+    }
+    IntervalTree tree = new IntervalTree(ranges);
+
+    for (int trial = 0; trial < 200; trial++) {
+      EpochRange window =
+          EpochRange.fromStartDuration(random.nextInt(100000), 1 + random.nextInt(2000));
+
+      List<EpochRange> expected = new ArrayList<>();
+      for (EpochRange range : ranges) {
+        if (range.overlaps(window)) {
+          expected.add(range);
+        }
+      }
+      expected.sort(EpochRange.ORDER_BY_START);
+
+      List<EpochRange> actual = tree.getOverlapping(window);
+      actual.sort(EpochRange.ORDER_BY_START);
+      Assert.assertEquals(expected.size(), actual.size());
+      Assert.assertTrue(actual.containsAll(expected));
+    }
+  }
+
+  @Test
+  public void busyRangesAreMergedAndClipped() {
+    EpochCalendar calendar = new EpochCalendar(Arrays.asList(
+        new EpochEvent("Overnight",
+            EpochRange.fromStartEnd(DAY_1 + TIME_0500PM, DAY_2 + TIME_0900AM),
+            Arrays.asList(PERSON_A)),
+        new EpochEvent("Early", EpochRange.fromStartEnd(DAY_2, DAY_2 + TIME_0500PM),
+            Arrays.asList(PERSON_B))));
+
+    List<EpochRange> actual = calendar.getBusyRanges(
+        Arrays.asList(PERSON_A, PERSON_B), EpochRange.fromStartEnd(DAY_2, DAY_3));
+    List<EpochRange> expected = Arrays.asList(EpochRange.fromStartEnd(DAY_2, DAY_2 + TIME_0500PM));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void searchesAcrossDays() {
+    // Person A works nine to five on both days. The free time runs across midnight.
+    //
+    // Events  : |--A--|        |--A--|
+    // Horizon : |----------------------|
+    // Options :       |--------|     |-|
+
+    EpochCalendar calendar = new EpochCalendar(Arrays.asList(
+        new EpochEvent("Work", EpochRange.fromStartEnd(DAY_1 + TIME_0900AM, DAY_1 + TIME_0500PM),
+            Arrays.asList(PERSON_A)),
+        new EpochEvent("Work", EpochRange.fromStartEnd(DAY_2 + TIME_0900AM, DAY_2 + TIME_0500PM),
+            Arrays.asList(PERSON_A))));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+
+    Collection<EpochRange> actual =
+        query.query(calendar, request, EpochRange.fromStartEnd(DAY_1 + TIME_0900AM, DAY_3));
+    Collection<EpochRange> expected =
+        Arrays.asList(EpochRange.fromStartEnd(DAY_1 + TIME_0500PM, DAY_2 + TIME_0900AM),
+            EpochRange.fromStartEnd(DAY_2 + TIME_0500PM, DAY_3));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void optionalAttendeeIsConsideredAcrossDays() {
+    // Person B is busy for all of the first day, so the meeting should move to the second day.
+    EpochCalendar calendar = new EpochCalendar(Arrays.asList(
+        EpochEvent.onDay(DAY_1, new Event("Offsite", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_B))),
+        EpochEvent.onDay(DAY_2, new Event("Offsite",
+            TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+            Arrays.asList(PERSON_B)))));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    request.addOptionalAttendee(PERSON_B);
+
+    Collection<EpochRange> actual =
+        query.query(calendar, request, EpochRange.fromStartEnd(DAY_1, DAY_3));
+    Collection<EpochRange> expected =
+        Arrays.asList(EpochRange.fromStartEnd(DAY_2 + TIME_0900AM, DAY_3));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void noOptionsForTooLongOfARequest() {
+    EpochCalendar calendar = new EpochCalendar(Arrays.asList());
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+
+    Collection<EpochRange> actual = query.query(
+        calendar, request, EpochRange.fromStartDuration(DAY_1, DURATION_1_HOUR - 1));
+
+    Assert.assertEquals(Arrays.asList(), actual);
+  }
+}
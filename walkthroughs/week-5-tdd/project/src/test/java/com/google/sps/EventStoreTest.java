@@ -0,0 +1,98 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class EventStoreTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0830AM = TimeRange.getTimeInMinutes(8, 30);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  private final FindMeetingQuery query = new FindMeetingQuery();
+
+  @Test
+  public void eventsAreOrderedByStart() {
+    Event late = new Event("Event 1", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+        Arrays.asList(PERSON_A, PERSON_B));
+    Event early = new Event("Event 2",
+        TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES), Arrays.asList(PERSON_B));
+    EventStore store = new EventStore(Arrays.asList(late, early));
+
+    Assert.assertEquals(2, store.size());
+    Assert.assertEquals(2, store.getAttendeeCount());
+    Assert.assertEquals(TIME_0800AM, store.getStart(0));
+    Assert.assertEquals(TIME_0830AM, store.getEnd(0));
+    Assert.assertEquals(early, store.getEvent(0));
+    Assert.assertEquals(late, store.getEvent(1));
+  }
+
+  @Test
+  public void unknownAttendee() {
+    EventStore store = new EventStore(Arrays.asList(Events.events));
+
+    Assert.assertEquals(AttendeeInterner.UNKNOWN, store.getAttendeeId(PERSON_A));
+    Assert.assertEquals(Arrays.asList(TimeRange.WHOLE_DAY),
+        store.getRangesWithoutConflict(Arrays.asList(PERSON_A), DURATION_30_MINUTES));
+  }
+
+  @Test
+  public void sharedEventIsCountedOnce() {
+    // A zero-length meeting fits between back-to-back events, so visiting the shared event twice
+    // would add an extra empty range.
+    EventStore store = new EventStore(Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0830AM, false),
+            Arrays.asList(PERSON_A, PERSON_B))));
+
+    Collection<Event> events = Arrays.asList(store.getEvent(0));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), 0);
+
+    Assert.assertEquals(query.query(events, request), query.query(store, request));
+  }
+
+  @Test
+  public void matchesQueryOnRandomCalendars() {
+    Random random = new Random(11);
+    for (int trial = 0; trial < 500; trial++) {
+      List<Event> events = RandomCalendars.events(random);
+      MeetingRequest request = RandomCalendars.request(random);
+
+      EventStore store = new EventStore(events);
+      Assert.assertEquals(query.query(events, request), query.query(store, request));
+
+      List<Event> stored = new ArrayList<>();
+      for (int id = 0; id < store.size(); id++) {
+        stored.add(store.getEvent(id));
+      }
+      Assert.assertEquals(new HashSet<>(events), new HashSet<>(stored));
+    }
+  }
+}
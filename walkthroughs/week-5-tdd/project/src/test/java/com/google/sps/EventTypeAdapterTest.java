@@ -0,0 +1,68 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class EventTypeAdapterTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int DURATION_30_MINUTES = 30;
+
+  private final Gson gson = new GsonBuilder()
+      .registerTypeAdapter(Event.class, new EventTypeAdapter())
+      .registerTypeAdapter(TimeRange.class, new TimeRangeTypeAdapter())
+      .create();
+
+  @Test
+  public void eventRoundTrips() {
+    Event event = new Event("Event 1",
+        TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+        Arrays.asList(PERSON_A, PERSON_B));
+
+    Event actual = gson.fromJson(gson.toJson(event), Event.class);
+
+    Assert.assertEquals(event, actual);
+  }
+
+  @Test
+  public void unknownFieldsAreSkipped() {
+    Event actual = gson.fromJson("{\"id\": 7, \"title\": \"Event 1\","
+        + " \"when\": {\"start\": 540, \"duration\": 30}, \"attendees\": [\"Person A\"]}",
+        Event.class);
+
+    Event expected = new Event("Event 1",
+        TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+        Collections.singletonList(PERSON_A));
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void missingAttendeesAreRejectedLikeTheConstructor() {
+    gson.fromJson("{\"title\": \"Event 1\", \"when\": {\"start\": 540, \"duration\": 30}}",
+        Event.class);
+  }
+}
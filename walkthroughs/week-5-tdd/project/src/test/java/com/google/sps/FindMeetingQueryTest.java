@@ -14,11 +14,18 @@
 
 package com.google.sps;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.stream.Collectors;
+import org.apache.commons.math3.util.CombinatoricsUtils;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -44,6 +51,8 @@ public final class FindMeetingQueryTest {
   private static final int TIME_0930AM = TimeRange.getTimeInMinutes(9, 30);
   private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
   private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 00);
+  private static final int TIME_0200PM = TimeRange.getTimeInMinutes(14, 00);
+  private static final int TIME_0300PM = TimeRange.getTimeInMinutes(15, 00);
 
   private static final int DURATION_15_MINUTES = 15;
   private static final int DURATION_30_MINUTES = 30;
@@ -483,4 +492,454 @@ public final class FindMeetingQueryTest {
 
     Assert.assertEquals(expected, actual);
   }
+
+  @Test
+  public void manyOptionalAttendees() {
+    // Thirty optional attendees, where twenty are only free in the morning and ten are only free in
+    // the afternoon. The morning should be chosen without checking every combination of optional
+    // attendees.
+    //
+    // Events  : |--O0-O19--|    |-----------O0-O19-----------|
+    //           |---------O20-O29---------|    |--O20-O29----|
+    // Day     : |--------------------------------------------|
+    // Options :            |----|
+
+    List<Event> events = new ArrayList<>();
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    for (int i = 0; i < 30; i++) {
+      String person = "Optional " + i;
+      int freeStart = i < 20 ? TIME_0900AM : TIME_0200PM;
+      int freeEnd = i < 20 ? TIME_1000AM : TIME_0300PM;
+      events.add(new Event("Before " + i,
+          TimeRange.fromStartEnd(TimeRange.START_OF_DAY, freeStart, false), Arrays.asList(person)));
+      events.add(new Event("After " + i,
+          TimeRange.fromStartEnd(freeEnd, TimeRange.END_OF_DAY, true), Arrays.asList(person)));
+      request.addOptionalAttendee(person);
+    }
+
+    Collection<TimeRange> actual = query.query(events, request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void sweepMatchesCheckingEveryCombination() {
+    // Everyone is busy in whole three-hour blocks, so many groups of optional attendees tie in
+    // size and in the total duration of their ranges, and some groups are free whenever the
+    // required attendees are.
+    Random random = new Random(43);
+    List<String> people = RandomCalendars.PEOPLE;
+    int blockDuration = 180;
+    for (int trial = 0; trial < 500; trial++) {
+      List<Event> events = new ArrayList<>();
+      for (String person : people) {
+        for (int block = 0; block * blockDuration < TimeRange.WHOLE_DAY.duration(); block++) {
+          if (random.nextInt(4) == 0) {
+            events.add(new Event("Block " + block,
+                TimeRange.fromStartDuration(block * blockDuration, blockDuration),
+                Arrays.asList(person)));
+          }
+        }
+      }
+      MeetingRequest request = new MeetingRequest(
+          people.subList(0, random.nextInt(2)), 1 + random.nextInt(2 * blockDuration));
+      for (String person : people.subList(2, 3 + random.nextInt(4))) {
+        request.addOptionalAttendee(person);
+      }
+
+      Assert.assertEquals(
+          queryByCombinations(events, request), query.query(events, request));
+    }
+
+    for (int trial = 0; trial < 500; trial++) {
+      List<Event> events = RandomCalendars.events(random);
+      MeetingRequest request = RandomCalendars.request(random, 1);
+
+      Assert.assertEquals(
+          queryByCombinations(events, request), query.query(events, request));
+    }
+  }
+
+  @Test
+  public void streamMatchesQuery() {
+    // Have each person have different events and an optional attendee whose free time decides
+    // which ranges are returned.
+    //
+    // Events  :       |--A--|     |--B--|
+    //           |-C-|
+    // Day     : |-----------------------------|
+    // Options :     |-----|     |-----|     |--|
+
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 3", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0200PM, false),
+            Arrays.asList(PERSON_C)));
+
+    MeetingRequest required =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+    MeetingRequest optional =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+    optional.addOptionalAttendee(PERSON_C);
+    optional.addOptionalAttendee(PERSON_D);
+
+    for (MeetingRequest request : Arrays.asList(required, optional)) {
+      Collection<TimeRange> expected = query.query(events, request);
+      Assert.assertEquals(expected, query.stream(events, request).collect(Collectors.toList()));
+      Assert.assertEquals(expected,
+          query.stream(new BitmapCalendar(events), request).collect(Collectors.toList()));
+      Assert.assertEquals(expected,
+          query.stream(new AttendeeEventIndex(events), request).collect(Collectors.toList()));
+      Assert.assertEquals(expected,
+          query.stream(new EventStore(events), request).collect(Collectors.toList()));
+    }
+  }
+
+  @Test
+  public void streamMatchesQueryForEventsStartingTogether() {
+    // A meeting with no duration fits after an event with no duration, but not inside an event
+    // that starts at the same time, so the stream must visit them in the same order as the query.
+    Random random = new Random(41);
+    MeetingRequest request = new MeetingRequest(RandomCalendars.PEOPLE, 0);
+
+    for (int trial = 0; trial < 200; trial++) {
+      List<Event> events = new ArrayList<>();
+      for (int i = 0; i < 12; i++) {
+        events.add(new Event("Event " + i,
+            TimeRange.fromStartDuration(TIME_0800AM + random.nextInt(3) * DURATION_30_MINUTES,
+                random.nextInt(2) * DURATION_30_MINUTES),
+            RandomCalendars.attendees(random)));
+      }
+
+      Assert.assertEquals(query.query(events, request),
+          query.stream(events, request).collect(Collectors.toList()));
+    }
+  }
+
+  @Test
+  public void firstFitStopsScanning() {
+    // Only the first gap is wanted, so the conflicts after it should not be read.
+    //
+    // Events  : |--1--|  |--2--|  |--3--|
+    // Day     : |--------------------------|
+    // Options :       |--|
+
+    List<TimeRange> conflicts = Arrays.asList(
+        TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+        TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+        TimeRange.fromStartEnd(TIME_1100AM, TimeRange.END_OF_DAY, true));
+    List<TimeRange> read = new ArrayList<>();
+    Iterator<TimeRange> conflictsIterator = conflicts.iterator();
+    Iterator<TimeRange> recordingIterator = new Iterator<TimeRange>() {
+      @Override
+      public boolean hasNext() {
+        return conflictsIterator.hasNext();
+      }
+
+      @Override
+      public TimeRange next() {
+        TimeRange conflict = conflictsIterator.next();
+        read.add(conflict);
+        return conflict;
+      }
+    };
+
+    Iterator<TimeRange> gaps = new GapIterator(recordingIterator, DURATION_30_MINUTES);
+
+    Assert.assertEquals(TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false), gaps.next());
+    Assert.assertEquals(conflicts.subList(0, 2), read);
+  }
+
+  /**
+   * Two optional attendees who are each free at a different time, so the query has to compare the
+   * two of them.
+   *
+   * Events  :      |--B--|          |-------B-------|
+   *           |-----------C----------|    |---C----|
+   * Day     : |-------------------------------------|
+   */
+  private static Collection<Event> getTwoOptionalAttendeeEvents() {
+    return Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 3", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0200PM, false),
+            Arrays.asList(PERSON_C)),
+        new Event("Event 4", TimeRange.fromStartEnd(TIME_0300PM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_C)));
+  }
+
+  @Test
+  public void budgetedQueryWithEnoughTimeIsOptimal() {
+    Collection<Event> events = getTwoOptionalAttendeeEvents();
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+    request.addOptionalAttendee(PERSON_C);
+
+    MeetingQueryResult actual = query.query(events, request, Duration.ofMinutes(1));
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0800AM, TIME_1000AM, false));
+
+    Assert.assertEquals(expected, actual.getRanges());
+    Assert.assertEquals(query.query(events, request), actual.getRanges());
+    Assert.assertTrue(actual.isOptimal());
+    Assert.assertEquals(2, actual.getSubsetsEvaluated());
+    // Person B and Person C on their own, then each of them with Person A.
+    Assert.assertEquals(8, actual.getEventsScanned());
+  }
+
+  @Test
+  public void exhaustedBudgetReturnsMostPromisingGroup() {
+    // With no time at all, only the group that is free for longest is evaluated.
+    Collection<Event> events = getTwoOptionalAttendeeEvents();
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+    request.addOptionalAttendee(PERSON_C);
+
+    MeetingQueryResult actual = query.query(new EventStore(events), request, Duration.ZERO);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0800AM, TIME_1000AM, false));
+
+    Assert.assertEquals(expected, actual.getRanges());
+    Assert.assertFalse(actual.isOptimal());
+    Assert.assertEquals(1, actual.getSubsetsEvaluated());
+    Assert.assertEquals(6, actual.getEventsScanned());
+  }
+
+  @Test
+  public void noDurationChecksLargestCombinationFirst() {
+    // Every combination of optional attendees can meet for no time at all, so the combination of
+    // all twenty of them is the only one that needs checking.
+    List<Event> events = new ArrayList<>();
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), 0);
+    for (int i = 0; i < 20; i++) {
+      String person = "Optional " + i;
+      events.add(new Event("Event " + i, TimeRange.fromStartDuration(TIME_0800AM, i),
+          Arrays.asList(person)));
+      request.addOptionalAttendee(person);
+    }
+
+    MeetingQueryResult actual = query.query(events, request, Duration.ofMinutes(1));
+
+    Assert.assertEquals(query.query(events, request), actual.getRanges());
+    Assert.assertTrue(actual.isOptimal());
+    Assert.assertEquals(1, actual.getSubsetsEvaluated());
+  }
+
+  @Test
+  public void eachDurationMatchesQueryingItOnItsOwn() {
+    Random random = new Random(31);
+    List<String> people = RandomCalendars.PEOPLE;
+    List<Long> durations = Arrays.asList(0L, 15L, 30L, 45L, 60L, 90L, 120L, 180L);
+
+    for (int trial = 0; trial < 300; trial++) {
+      List<Event> events = new ArrayList<>();
+      int eventCount = random.nextInt(10);
+      for (int i = 0; i < eventCount; i++) {
+        int duration = random.nextInt(4) * 45;
+        // Events with no duration at the closing bound of the day are measured differently from
+        // the end of the day, so include them often.
+        int start = random.nextInt(4) == 0
+            ? TimeRange.END_OF_DAY + 1 - duration
+            : random.nextInt(TimeRange.WHOLE_DAY.duration() - duration + 1);
+        events.add(new Event("Event " + i, TimeRange.fromStartDuration(start, duration),
+            RandomCalendars.attendees(random)));
+      }
+
+      MeetingRequest request = new MeetingRequest(people.subList(0, random.nextInt(3)),
+          durations.get(random.nextInt(durations.size())));
+      for (String person : people.subList(3, 3 + random.nextInt(4))) {
+        request.addOptionalAttendee(person);
+      }
+      for (int i = 0; i < 3; i++) {
+        request.addDuration(durations.get(random.nextInt(durations.size())));
+      }
+
+      SortedMap<Long, Collection<TimeRange>> actual = query.queryEachDuration(events, request);
+
+      Assert.assertEquals(request.getDurations(), actual.keySet());
+      for (Map.Entry<Long, Collection<TimeRange>> entry : actual.entrySet()) {
+        Assert.assertEquals(query.query(events, request.withDuration(entry.getKey())),
+            entry.getValue());
+      }
+    }
+  }
+
+  @Test
+  public void eachDurationMeasuresEndOfDayLikeQuery() {
+    // The last hour of the day is only an hour long when an event with no duration closes it.
+    int lastHour = TimeRange.END_OF_DAY + 1 - DURATION_60_MINUTES;
+    Event busyUntilLastHour = new Event("Event 1",
+        TimeRange.fromStartEnd(TimeRange.START_OF_DAY, lastHour, false), Arrays.asList(PERSON_A));
+    Event closesDay = new Event("Event 2",
+        TimeRange.fromStartDuration(TimeRange.END_OF_DAY + 1, 0), Arrays.asList(PERSON_A));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addDuration(DURATION_60_MINUTES);
+
+    for (List<Event> events : Arrays.asList(Arrays.asList(busyUntilLastHour),
+        Arrays.asList(busyUntilLastHour, closesDay))) {
+      SortedMap<Long, Collection<TimeRange>> actual = query.queryEachDuration(events, request);
+
+      Assert.assertEquals(query.query(events, request.withDuration(DURATION_60_MINUTES)),
+          actual.get((long) DURATION_60_MINUTES));
+    }
+  }
+
+  @Test
+  public void quorumNeedsEnoughMembersForWholeMeeting() {
+    // Any two of Person B, C and D. Between 8:00 and 10:00 at most one of them is free for an
+    // hour at a time, even though two of them are free at every minute from 9:00 to 9:30.
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_60_MINUTES),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM, DURATION_60_MINUTES),
+            Arrays.asList(PERSON_C)),
+        new Event("Event 3", TimeRange.fromStartEnd(TIME_0800AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_D)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES);
+    request.setQuorum(Arrays.asList(PERSON_B, PERSON_C, PERSON_D), 2);
+
+    Collection<TimeRange> actual = query.query(events, request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void quorumAlsoNarrowsOptionalAttendees() {
+    // Person D can only make 8:00 to 11:00, but neither Person B nor C is free until 10:00.
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_B, PERSON_C)),
+        new Event("Event 2", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            Arrays.asList(PERSON_D)),
+        new Event("Event 3", TimeRange.fromStartEnd(TIME_1100AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_D)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES);
+    request.addOptionalAttendee(PERSON_D);
+    request.setQuorum(Arrays.asList(PERSON_B, PERSON_C), 1);
+
+    Collection<TimeRange> actual = query.query(events, request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void roomMustHoldTheQuorum() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES);
+    request.setQuorum(Arrays.asList(PERSON_B, PERSON_C, PERSON_D), 2);
+    Room pair = new Room("Pair", 2);
+    Room trio = new Room("Trio", 3);
+
+    // Person A and two of the quorum make three.
+    Assert.assertEquals(Arrays.asList(),
+        query.query(NO_EVENTS, new RoomCalendar(Arrays.asList(pair), NO_EVENTS), request));
+    Assert.assertEquals(Arrays.asList(TimeRange.WHOLE_DAY),
+        query.query(NO_EVENTS, new RoomCalendar(Arrays.asList(pair, trio), NO_EVENTS), request));
+
+    // A quorum member who is already attending counts towards the quorum.
+    MeetingRequest withMember =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_60_MINUTES);
+    withMember.setQuorum(Arrays.asList(PERSON_B, PERSON_C), 1);
+    Assert.assertEquals(Arrays.asList(TimeRange.WHOLE_DAY),
+        query.query(NO_EVENTS, new RoomCalendar(Arrays.asList(pair), NO_EVENTS), withMember));
+
+    // An optional attendee would leave no room for the quorum, so they are left out.
+    MeetingRequest withOptional =
+        new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES);
+    withOptional.addOptionalAttendee(PERSON_D);
+    withOptional.setQuorum(Arrays.asList(PERSON_B, PERSON_C), 1);
+    Event busyD = new Event("Event 1",
+        TimeRange.fromStartDuration(TIME_0800AM, DURATION_60_MINUTES), Arrays.asList(PERSON_D));
+    Assert.assertEquals(Arrays.asList(TimeRange.WHOLE_DAY),
+        query.query(Arrays.asList(busyD), new RoomCalendar(Arrays.asList(pair), NO_EVENTS),
+            withOptional));
+  }
+
+  @Test
+  public void quorumMatchesTryingEveryGroupOfMembers() {
+    Random random = new Random(37);
+    List<String> people = RandomCalendars.PEOPLE;
+
+    for (int trial = 0; trial < 300; trial++) {
+      List<Event> events = RandomCalendars.events(random);
+
+      List<String> required = people.subList(0, random.nextInt(2));
+      List<String> members = people.subList(2, 3 + random.nextInt(4));
+      int minimum = random.nextInt(members.size() + 1);
+      int duration = 1 + random.nextInt(180);
+      MeetingRequest request = new MeetingRequest(required, duration);
+      request.setQuorum(members, minimum);
+
+      // A meeting can start at a minute if some group of enough members can all attend it.
+      boolean[] expected = new boolean[TimeRange.WHOLE_DAY.duration() + 1];
+      for (int group = 0; group < 1 << members.size(); group++) {
+        if (Integer.bitCount(group) != minimum) {
+          continue;
+        }
+        List<String> attendees = new ArrayList<>(required);
+        for (int i = 0; i < members.size(); i++) {
+          if ((group & (1 << i)) != 0) {
+            attendees.add(members.get(i));
+          }
+        }
+        markStarts(expected, query.query(events, new MeetingRequest(attendees, duration)),
+            duration);
+      }
+      boolean[] actual = new boolean[expected.length];
+      markStarts(actual, query.query(events, request), duration);
+
+      Assert.assertArrayEquals(expected, actual);
+    }
+  }
+
+  private static void markStarts(boolean[] starts, Collection<TimeRange> ranges, int duration) {
+    for (TimeRange range : ranges) {
+      for (int start = range.start(); start <= range.end() - duration; start++) {
+        starts[start] = true;
+      }
+    }
+  }
+
+  /**
+   * Finds the ranges for a request the way the query did before the sweep, by checking every
+   * combination of optional attendees from the largest down. Among the combinations of one size
+   * that have any time, the longest total wins, and ties go to the first in combination order.
+   */
+  private Collection<TimeRange> queryByCombinations(
+      Collection<Event> events, MeetingRequest request) {
+    List<String> optionalAttendees = new ArrayList<>(request.getOptionalAttendees());
+    for (int size = optionalAttendees.size(); size >= 1; size--) {
+      Collection<TimeRange> best = Collections.emptyList();
+      long longestDuration = 0;
+      Iterator<int[]> combinations =
+          CombinatoricsUtils.combinationsIterator(optionalAttendees.size(), size);
+      while (combinations.hasNext()) {
+        List<String> attendees = new ArrayList<>(request.getAttendees());
+        for (int index : combinations.next()) {
+          attendees.add(optionalAttendees.get(index));
+        }
+        Collection<TimeRange> ranges =
+            query.query(events, new MeetingRequest(attendees, request.getDuration()));
+        long totalDuration = ranges.stream().mapToLong(TimeRange::duration).sum();
+        if (totalDuration > longestDuration) {
+          best = ranges;
+          longestDuration = totalDuration;
+        }
+      }
+      if (longestDuration > 0) {
+        return best;
+      }
+    }
+    return query.query(events, new MeetingRequest(request.getAttendees(), request.getDuration()));
+  }
 }
@@ -0,0 +1,259 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class IcsImporterTest {
+  private static final String PERSON_A = "a@example.com";
+  private static final String PERSON_B = "b@example.com";
+
+  private static final ZoneId LOS_ANGELES = ZoneId.of("America/Los_Angeles");
+
+  private static final int TIME_0100AM = TimeRange.getTimeInMinutes(1, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_0100PM = TimeRange.getTimeInMinutes(13, 0);
+  private static final int TIME_0200PM = TimeRange.getTimeInMinutes(14, 0);
+
+  private static String calendar(String... lines) {
+    StringBuilder ics = new StringBuilder("BEGIN:VCALENDAR\r\nVERSION:2.0\r\n");
+    for (String line : lines) {
+      ics.append(line).append("\r\n");
+    }
+    return ics.append("END:VCALENDAR\r\n").toString();
+  }
+
+  private static List<Event> importAll(IcsImporter importer, String ics) throws IOException {
+    List<Event> events = new ArrayList<>();
+    importer.importFrom(new StringReader(ics), events::addAll);
+    return events;
+  }
+
+  @Test
+  public void foldedLinesAreJoinedAndEventsClippedToTheDay() throws IOException {
+    String ics = calendar(
+        "BEGIN:VEVENT",
+        "SUMMARY:Late ",
+        " night",
+        "DTSTART:20200601T230000Z",
+        "DTEND:20200602T010000Z",
+        "ATTENDEE;CN=\"Person A: host\";ROLE=CHAIR:mailto:",
+        "\ta@example.com",
+        "END:VEVENT");
+    IcsImporter importer = new IcsImporter(LocalDate.of(2020, 6, 2), ZoneOffset.UTC);
+
+    List<Event> actual = importAll(importer, ics);
+
+    List<Event> expected = Arrays.asList(new Event("Late night",
+        TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0100AM, false),
+        Collections.singletonList(PERSON_A)));
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void timesAreReadInTheirZone() throws IOException {
+    // 9 AM in New York is 1 PM UTC in June.
+    String ics = calendar(
+        "BEGIN:VEVENT",
+        "DTSTART;TZID=America/New_York:20200601T090000",
+        "DURATION:PT1H",
+        "ATTENDEE:mailto:a@example.com",
+        "BEGIN:VALARM",
+        "DURATION:-PT15M",
+        "END:VALARM",
+        "END:VEVENT");
+    IcsImporter importer = new IcsImporter(LocalDate.of(2020, 6, 1), ZoneOffset.UTC);
+
+    List<Event> actual = importAll(importer, ics);
+
+    List<Event> expected = Arrays.asList(new Event("",
+        TimeRange.fromStartEnd(TIME_0100PM, TIME_0200PM, false),
+        Collections.singletonList(PERSON_A)));
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void weeklySeriesKeepsItsLocalTime() throws IOException {
+    // Starts on a Monday, before daylight saving time begins on March 8th.
+    String ics = calendar(
+        "BEGIN:VEVENT",
+        "DTSTART;TZID=America/Los_Angeles:20200302T090000",
+        "DTEND;TZID=America/Los_Angeles:20200302T100000",
+        "RRULE:FREQ=WEEKLY;BYDAY=MO,WE",
+        "EXDATE;TZID=America/Los_Angeles:20200311T090000",
+        "ATTENDEE:mailto:a@example.com",
+        "END:VEVENT");
+    List<Event> expected = Arrays.asList(new Event("",
+        TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+        Collections.singletonList(PERSON_A)));
+
+    Assert.assertEquals(expected,
+        importAll(new IcsImporter(LocalDate.of(2020, 3, 18), LOS_ANGELES), ics));
+    Assert.assertEquals(Collections.emptyList(),
+        importAll(new IcsImporter(LocalDate.of(2020, 3, 11), LOS_ANGELES), ics));
+    Assert.assertEquals(Collections.emptyList(),
+        importAll(new IcsImporter(LocalDate.of(2020, 3, 19), LOS_ANGELES), ics));
+  }
+
+  @Test
+  public void countLimitsTheSeries() throws IOException {
+    String ics = calendar(
+        "BEGIN:VEVENT",
+        "DTSTART;TZID=America/Los_Angeles:20200302T090000",
+        "DTEND;TZID=America/Los_Angeles:20200302T100000",
+        "RRULE:FREQ=WEEKLY;BYDAY=MO,WE;COUNT=3",
+        "ATTENDEE:mailto:a@example.com",
+        "END:VEVENT");
+
+    Assert.assertEquals(1,
+        importAll(new IcsImporter(LocalDate.of(2020, 3, 9), LOS_ANGELES), ics).size());
+    Assert.assertEquals(0,
+        importAll(new IcsImporter(LocalDate.of(2020, 3, 11), LOS_ANGELES), ics).size());
+  }
+
+  @Test
+  public void weeksAreCountedFromTheWeekStart() throws IOException {
+    // Starts on a Wednesday, so the Monday of its own week comes before it and weeks are counted
+    // from that Monday: the series meets in the weeks of January 1st, 15th and 29th.
+    String ics = calendar(
+        "BEGIN:VEVENT",
+        "DTSTART:20240103T090000Z",
+        "DTEND:20240103T100000Z",
+        "RRULE:FREQ=WEEKLY;INTERVAL=2;BYDAY=MO,WE;COUNT=4",
+        "ATTENDEE:mailto:a@example.com",
+        "END:VEVENT");
+
+    Assert.assertEquals(0,
+        importAll(new IcsImporter(LocalDate.of(2024, 1, 1), ZoneOffset.UTC), ics).size());
+    Assert.assertEquals(1,
+        importAll(new IcsImporter(LocalDate.of(2024, 1, 3), ZoneOffset.UTC), ics).size());
+    Assert.assertEquals(0,
+        importAll(new IcsImporter(LocalDate.of(2024, 1, 8), ZoneOffset.UTC), ics).size());
+    Assert.assertEquals(1,
+        importAll(new IcsImporter(LocalDate.of(2024, 1, 15), ZoneOffset.UTC), ics).size());
+    Assert.assertEquals(1,
+        importAll(new IcsImporter(LocalDate.of(2024, 1, 29), ZoneOffset.UTC), ics).size());
+    Assert.assertEquals(0,
+        importAll(new IcsImporter(LocalDate.of(2024, 1, 31), ZoneOffset.UTC), ics).size());
+
+    // With weeks starting on Wednesday, the Monday after the first occurrence is in its week.
+    String midweek = ics.replace("COUNT=4", "COUNT=4;WKST=WE");
+    Assert.assertEquals(1,
+        importAll(new IcsImporter(LocalDate.of(2024, 1, 8), ZoneOffset.UTC), midweek).size());
+    Assert.assertEquals(0,
+        importAll(new IcsImporter(LocalDate.of(2024, 1, 15), ZoneOffset.UTC), midweek).size());
+  }
+
+  @Test
+  public void longCountEndsOnItsLastOccurrence() throws IOException {
+    String ics = calendar(
+        "BEGIN:VEVENT",
+        "DTSTART:20200101T090000Z",
+        "DTEND:20200101T100000Z",
+        "RRULE:FREQ=DAILY;COUNT=100000",
+        "ATTENDEE:mailto:a@example.com",
+        "END:VEVENT");
+    LocalDate last = LocalDate.of(2020, 1, 1).plusDays(99999);
+
+    Assert.assertEquals(1,
+        importAll(new IcsImporter(last, ZoneOffset.UTC), ics).size());
+    Assert.assertEquals(0,
+        importAll(new IcsImporter(last.plusDays(1), ZoneOffset.UTC), ics).size());
+  }
+
+  @Test
+  public void eventsThatDontMakeAnyoneBusyAreSkipped() throws IOException {
+    String ics = calendar(
+        "BEGIN:VEVENT",
+        "DTSTART:20200601T090000Z",
+        "DTEND:20200601T100000Z",
+        "ORGANIZER:MAILTO:A@Example.com",
+        "ATTENDEE;PARTSTAT=DECLINED:mailto:b@example.com",
+        "END:VEVENT",
+        "BEGIN:VEVENT",
+        "DTSTART:20200601T090000Z",
+        "DTEND:20200601T100000Z",
+        "STATUS:CANCELLED",
+        "ATTENDEE:mailto:a@example.com",
+        "END:VEVENT",
+        "BEGIN:VEVENT",
+        "DTSTART:20200601T090000Z",
+        "DTEND:20200601T100000Z",
+        "TRANSP:TRANSPARENT",
+        "ATTENDEE:mailto:a@example.com",
+        "END:VEVENT",
+        "BEGIN:VEVENT",
+        "DTSTART:20200601T090000Z",
+        "DURATION:PT30M",
+        "RRULE:FREQ=MONTHLY",
+        "ATTENDEE:mailto:a@example.com",
+        "END:VEVENT");
+    IcsImporter importer = new IcsImporter(LocalDate.of(2020, 6, 1), ZoneOffset.UTC);
+    List<Event> events = new ArrayList<>();
+
+    IcsImporter.Result result = importer.importFrom(new StringReader(ics), events::addAll);
+
+    List<Event> expected = Arrays.asList(new Event("",
+        TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+        Collections.singletonList(PERSON_A)));
+    Assert.assertEquals(expected, events);
+    Assert.assertEquals(4, result.getEventsRead());
+    Assert.assertEquals(1, result.getEventsImported());
+    Assert.assertEquals(2, result.getEventsSkipped());
+    Assert.assertEquals(1, result.getEventsRejected());
+  }
+
+  @Test
+  public void batchesReachTheStoreWithInternedAttendees() throws IOException {
+    List<String> lines = new ArrayList<>();
+    for (int hour = 0; hour < 5; hour++) {
+      lines.addAll(Arrays.asList(
+          "BEGIN:VEVENT",
+          String.format("DTSTART:20200601T%02d0000Z", hour),
+          "DURATION:PT30M",
+          "ATTENDEE:mailto:" + (hour % 2 == 0 ? PERSON_A : PERSON_B.toUpperCase()),
+          "END:VEVENT"));
+    }
+    IcsImporter importer = new IcsImporter(LocalDate.of(2020, 6, 1), ZoneOffset.UTC, 2);
+    VersionedEventStore store = new VersionedEventStore(Collections.emptyList());
+
+    IcsImporter.Result result = importer.importInto(
+        new StringReader(calendar(lines.toArray(new String[0]))), store);
+
+    Assert.assertEquals(3, result.getBatches());
+    Assert.assertEquals(5, store.snapshot().size());
+    Assert.assertEquals(3, store.snapshot().getVersion());
+    Assert.assertEquals(2, importer.getAttendeeCount());
+    List<Event> events = store.snapshot().getEvents(PERSON_B);
+    Assert.assertEquals(2, events.size());
+    Assert.assertSame(events.get(0).getAttendees().iterator().next(),
+        events.get(1).getAttendees().iterator().next());
+  }
+}
@@ -0,0 +1,180 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class MeetingQueryCacheTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_1_HOUR = 60;
+
+  private static final Collection<TimeRange> ANSWER = Arrays.asList(TimeRange.WHOLE_DAY);
+
+  private AtomicInteger queries;
+
+  @Before
+  public void setUp() {
+    queries = new AtomicInteger();
+  }
+
+  private Collection<TimeRange> countQuery() {
+    queries.incrementAndGet();
+    return ANSWER;
+  }
+
+  @Test
+  public void sameRequestIsAnsweredOnce() {
+    MeetingQueryCache cache = new MeetingQueryCache(10);
+
+    MeetingRequest first =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+    first.addOptionalAttendee(PERSON_C);
+    // The same meeting, with the attendees listed in a different order.
+    MeetingRequest second =
+        new MeetingRequest(Arrays.asList(PERSON_B, PERSON_A, PERSON_B), DURATION_30_MINUTES);
+    second.addOptionalAttendee(PERSON_C);
+
+    Assert.assertEquals(ANSWER, cache.get(first, 0, this::countQuery));
+    Assert.assertEquals(ANSWER, cache.get(second, 0, this::countQuery));
+
+    Assert.assertEquals(1, queries.get());
+    Assert.assertEquals(1, cache.getHits());
+    Assert.assertEquals(1, cache.getMisses());
+  }
+
+  @Test
+  public void differentRequestsAreAnsweredSeparately() {
+    MeetingQueryCache cache = new MeetingQueryCache(10);
+
+    MeetingRequest required = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    MeetingRequest longer = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    MeetingRequest optional = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    optional.addOptionalAttendee(PERSON_B);
+
+    cache.get(required, 0, this::countQuery);
+    cache.get(longer, 0, this::countQuery);
+    cache.get(optional, 0, this::countQuery);
+
+    Assert.assertEquals(3, queries.get());
+    Assert.assertEquals(0, cache.getHits());
+  }
+
+  @Test
+  public void newCalendarVersionIsAnsweredAgain() {
+    MeetingQueryCache cache = new MeetingQueryCache(10);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    cache.get(request, 0, this::countQuery);
+    cache.get(request, 1, this::countQuery);
+
+    Assert.assertEquals(2, queries.get());
+  }
+
+  @Test
+  public void leastRecentlyUsedIsEvicted() {
+    MeetingQueryCache cache = new MeetingQueryCache(2);
+    MeetingRequest a = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    MeetingRequest b = new MeetingRequest(Arrays.asList(PERSON_B), DURATION_30_MINUTES);
+    MeetingRequest c = new MeetingRequest(Arrays.asList(PERSON_C), DURATION_30_MINUTES);
+
+    cache.get(a, 0, this::countQuery);
+    cache.get(b, 0, this::countQuery);
+    // Use A again so that B becomes the least recently used.
+    cache.get(a, 0, this::countQuery);
+    cache.get(c, 0, this::countQuery);
+
+    Assert.assertEquals(2, cache.size());
+    Assert.assertEquals(1, cache.getEvictions());
+
+    cache.get(a, 0, this::countQuery);
+    Assert.assertEquals(3, queries.get());
+    cache.get(b, 0, this::countQuery);
+    Assert.assertEquals(4, queries.get());
+  }
+
+  @Test
+  public void invalidateOnlyDropsAnswersForChangedAttendees() {
+    MeetingQueryCache cache = new MeetingQueryCache(10);
+    MeetingRequest a = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    MeetingRequest b = new MeetingRequest(Arrays.asList(PERSON_B), DURATION_30_MINUTES);
+    MeetingRequest optionalA = new MeetingRequest(Arrays.asList(PERSON_C), DURATION_30_MINUTES);
+    optionalA.addOptionalAttendee(PERSON_A);
+
+    cache.get(a, 0, this::countQuery);
+    cache.get(b, 0, this::countQuery);
+    cache.get(optionalA, 0, this::countQuery);
+
+    // Person A's calendar changes.
+    cache.invalidate(new Event("Event 1", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_A)), 1);
+
+    Assert.assertEquals(1, cache.size());
+    Assert.assertEquals(2, cache.getInvalidations());
+
+    cache.get(b, 1, this::countQuery);
+    Assert.assertEquals(3, queries.get());
+    cache.get(a, 1, this::countQuery);
+    cache.get(optionalA, 1, this::countQuery);
+    Assert.assertEquals(5, queries.get());
+  }
+
+  @Test
+  public void unannouncedCalendarVersionDropsEverything() {
+    MeetingQueryCache cache = new MeetingQueryCache(10);
+    MeetingRequest a = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    MeetingRequest b = new MeetingRequest(Arrays.asList(PERSON_B), DURATION_30_MINUTES);
+
+    cache.get(a, 0, this::countQuery);
+    cache.get(b, 0, this::countQuery);
+    cache.invalidate(Arrays.asList(PERSON_A), 1);
+    // Version 2 was never announced, so Person B's answer can't be trusted either.
+    cache.get(b, 2, this::countQuery);
+
+    Assert.assertEquals(3, queries.get());
+    Assert.assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void olderCalendarVersionIsNotCached() {
+    MeetingQueryCache cache = new MeetingQueryCache(10);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    cache.invalidate(Arrays.asList(PERSON_B), 1);
+    cache.get(request, 0, this::countQuery);
+    cache.get(request, 0, this::countQuery);
+
+    Assert.assertEquals(2, queries.get());
+    Assert.assertEquals(0, cache.size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void invalidateRejectsOldVersion() {
+    MeetingQueryCache cache = new MeetingQueryCache(10);
+    cache.invalidate(Arrays.asList(PERSON_A), 1);
+    cache.invalidate(Arrays.asList(PERSON_A), 1);
+  }
+}
@@ -0,0 +1,135 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class MeetingRequestTypeAdapterTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int DURATION_1_HOUR = 60;
+
+  private final Gson gson = new GsonBuilder()
+      .registerTypeAdapter(MeetingRequest.class, new MeetingRequestTypeAdapter())
+      .registerTypeAdapter(TimeRange.class, new TimeRangeTypeAdapter())
+      .create();
+
+  @Test
+  public void missingOptionalAttendeesAreEmpty() {
+    MeetingRequest request =
+        gson.fromJson("{\"attendees\": [\"Person A\"], \"duration\": 60}", MeetingRequest.class);
+
+    Assert.assertEquals(Collections.singleton(PERSON_A), new HashSet<>(request.getAttendees()));
+    Assert.assertEquals(0, request.getOptionalAttendees().size());
+    Assert.assertEquals(DURATION_1_HOUR, request.getDuration());
+  }
+
+  @Test
+  public void readsDurationFromStringAndSkipsUnknownFields() {
+    // The web page sends the duration straight from a text field.
+    MeetingRequest request = gson.fromJson(
+        "{\"title\": \"Sync\", \"duration\": \"60\", \"optional_attendees\": [\"Person A\"],"
+            + " \"attendees\": [\"Person A\"]}",
+        MeetingRequest.class);
+
+    Assert.assertEquals(DURATION_1_HOUR, request.getDuration());
+    // Person A is required, so they are not also optional.
+    Assert.assertEquals(0, request.getOptionalAttendees().size());
+  }
+
+  @Test
+  public void requestRoundTrips() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    request.addOptionalAttendee(PERSON_B);
+
+    MeetingRequest actual = gson.fromJson(gson.toJson(request), MeetingRequest.class);
+
+    Assert.assertEquals(new HashSet<>(request.getAttendees()),
+        new HashSet<>(actual.getAttendees()));
+    Assert.assertEquals(new HashSet<>(request.getOptionalAttendees()),
+        new HashSet<>(actual.getOptionalAttendees()));
+    Assert.assertEquals(request.getDuration(), actual.getDuration());
+  }
+
+  @Test
+  public void timeRangeUsesStartAndDuration() {
+    TimeRange range = TimeRange.fromStartDuration(TimeRange.getTimeInMinutes(9, 0), 30);
+
+    String json = gson.toJson(range);
+
+    Assert.assertEquals("{\"start\":540,\"duration\":30}", json);
+    Assert.assertEquals(range, gson.fromJson(json, TimeRange.class));
+  }
+
+  @Test
+  public void readsDurationsAndTakesShortestAsDuration() {
+    MeetingRequest request = gson.fromJson(
+        "{\"attendees\": [\"Person A\"], \"durations\": [60, 15, 30]}", MeetingRequest.class);
+
+    Assert.assertEquals(15, request.getDuration());
+    Assert.assertEquals(Arrays.asList(15L, 30L, 60L), new ArrayList<>(request.getDurations()));
+    Assert.assertEquals(request.getDurations(),
+        gson.fromJson(gson.toJson(request), MeetingRequest.class).getDurations());
+  }
+
+  @Test
+  public void quorumRoundTrips() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    request.setQuorum(Arrays.asList(PERSON_B, "Person C", "Person D"), 2);
+
+    MeetingRequest actual = gson.fromJson(gson.toJson(request), MeetingRequest.class);
+
+    Assert.assertEquals(new HashSet<>(request.getQuorumMembers()),
+        new HashSet<>(actual.getQuorumMembers()));
+    Assert.assertEquals(2, actual.getQuorumMinimum());
+  }
+
+  @Test
+  public void quorumLargerThanItsMembersIsRejected() {
+    String json = "{\"attendees\": [\"Person A\"], \"duration\": 60,"
+        + " \"quorum\": {\"members\": [\"Person B\"], \"minimum\": 2}}";
+    try {
+      gson.fromJson(json, MeetingRequest.class);
+      Assert.fail();
+    } catch (JsonSyntaxException expected) {
+      // Read as a bad request rather than failing once the query runs.
+    }
+  }
+
+  @Test
+  public void quorumWithEmptyDurationIsRejected() {
+    String json = "{\"attendees\": [\"Person A\"], \"durations\": [0, 30],"
+        + " \"quorum\": {\"members\": [\"Person B\"], \"minimum\": 1}}";
+    try {
+      gson.fromJson(json, MeetingRequest.class);
+      Assert.fail();
+    } catch (JsonSyntaxException expected) {
+      // The quorum needs its members to stay for some time, so every duration must be positive.
+    }
+  }
+}
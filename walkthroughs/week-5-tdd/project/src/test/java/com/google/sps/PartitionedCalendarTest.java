@@ -0,0 +1,212 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class PartitionedCalendarTest {
+  private static final List<String> PEOPLE =
+      Arrays.asList("A", "B", "C", "D", "E", "F", "G", "H");
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_60_MINUTES = 60;
+
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  private final FindMeetingQuery query = new FindMeetingQuery();
+
+  @Test
+  public void workersOnlyKeepTheirOwnAttendees() {
+    List<Event> events = Arrays.asList(new Event("Event 1",
+        TimeRange.fromStartDuration(TIME_0900AM, DURATION_60_MINUTES), PEOPLE));
+
+    int total = 0;
+    for (int partition = 0; partition < 3; partition++) {
+      FreeBusyWorker worker = new FreeBusyWorker(events, partition, 3);
+      for (String person : PEOPLE) {
+        total += worker.getEventCount(person);
+      }
+    }
+
+    Assert.assertEquals(PEOPLE.size(), total);
+  }
+
+  @Test
+  public void workersReadOnlyTheirOwnAttendeesFromSnapshots() throws IOException {
+    List<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0900AM, DURATION_60_MINUTES), PEOPLE),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_1000AM, DURATION_60_MINUTES),
+            Arrays.asList("A")));
+    Path file = folder.newFile("calendar.snapshot").toPath();
+    CalendarSnapshot.write(events, file);
+    CalendarSnapshot snapshot = CalendarSnapshot.load(file);
+
+    for (int partition = 0; partition < 3; partition++) {
+      FreeBusyWorker worker = FreeBusyWorker.fromSnapshot(snapshot, partition, 3);
+      for (String person : PEOPLE) {
+        int expected = PartitionedCalendar.partitionOf(person, 3) != partition ? 0
+            : person.equals("A") ? 2 : 1;
+        Assert.assertEquals(expected, worker.getEventCount(person));
+      }
+    }
+  }
+
+  @Test
+  public void busyTimeIsCombinedAcrossPartitions() throws IOException {
+    // Person A and Person B fall in different partitions, so each worker only knows about one of
+    // the two events.
+    String personA = "Person A";
+    String personB = "Person B";
+    Assert.assertNotEquals(
+        PartitionedCalendar.partitionOf(personA, 2), PartitionedCalendar.partitionOf(personB, 2));
+    List<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0900AM, DURATION_60_MINUTES),
+            Arrays.asList(personA)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_1000AM, DURATION_60_MINUTES),
+            Arrays.asList(personB)));
+
+    List<FreeBusyWorker> workers = startWorkers(events, 2);
+    try (PartitionedCalendar calendar = connect(workers)) {
+      Collection<TimeRange> actual = calendar.getRangesWithoutConflict(
+          Arrays.asList(personA, personB), DURATION_30_MINUTES);
+      Collection<TimeRange> expected =
+          Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+              TimeRange.fromStartEnd(TIME_1100AM, TimeRange.END_OF_DAY, true));
+
+      Assert.assertEquals(expected, actual);
+      Assert.assertEquals(1, calendar.getEventCount(personB));
+    } finally {
+      closeAll(workers);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void nonPositiveDurationIsRejected() throws IOException {
+    List<FreeBusyWorker> workers = startWorkers(Arrays.asList(), 1);
+    try (PartitionedCalendar calendar = connect(workers)) {
+      calendar.getRangesWithoutConflict(Arrays.asList("A"), 0);
+    } finally {
+      closeAll(workers);
+    }
+  }
+
+  @Test(expected = UncheckedIOException.class)
+  public void workerThatNeverAnswersTimesOut() throws IOException {
+    // The connection is queued by the operating system but never served.
+    try (ServerSocket hung = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        PartitionedCalendar calendar = new PartitionedCalendar(
+            Arrays.asList((InetSocketAddress) hung.getLocalSocketAddress()), 100)) {
+      calendar.getRangesWithoutConflict(Arrays.asList("A"), DURATION_30_MINUTES);
+    }
+  }
+
+  @Test
+  public void matchesQueryOnRandomCalendars() throws IOException {
+    Random random = new Random(19);
+    for (int trial = 0; trial < 100; trial++) {
+      List<Event> events = RandomCalendars.events(random);
+      List<FreeBusyWorker> workers = startWorkers(events, 1 + random.nextInt(4));
+      try (PartitionedCalendar calendar = connect(workers)) {
+        for (int i = 0; i < 5; i++) {
+          MeetingRequest request = RandomCalendars.request(random, 1);
+          Assert.assertEquals(query.query(events, request), query.query(calendar, request));
+        }
+      } finally {
+        closeAll(workers);
+      }
+    }
+  }
+
+  @Test
+  public void matchesQueryWithWorkersInOtherProcesses() throws IOException {
+    Random random = new Random(23);
+    List<Event> events = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      events.addAll(RandomCalendars.events(random));
+    }
+    Path file = folder.newFile("calendar.snapshot").toPath();
+    CalendarSnapshot.write(events, file);
+
+    List<WorkerProcess> processes = new ArrayList<>();
+    try {
+      List<InetSocketAddress> addresses = new ArrayList<>();
+      for (int partition = 0; partition < 3; partition++) {
+        WorkerProcess process = WorkerProcess.start(file, partition, 3);
+        processes.add(process);
+        addresses.add(process.getAddress());
+      }
+
+      try (PartitionedCalendar calendar = new PartitionedCalendar(addresses)) {
+        for (int i = 0; i < 50; i++) {
+          MeetingRequest request = RandomCalendars.request(random, 1);
+          Assert.assertEquals(query.query(events, request), query.query(calendar, request));
+        }
+      }
+    } finally {
+      for (WorkerProcess process : processes) {
+        process.close();
+      }
+    }
+  }
+
+
+  private static List<FreeBusyWorker> startWorkers(Collection<Event> events, int partitions)
+      throws IOException {
+    List<FreeBusyWorker> workers = new ArrayList<>();
+    for (int partition = 0; partition < partitions; partition++) {
+      FreeBusyWorker worker = new FreeBusyWorker(events, partition, partitions);
+      worker.start(0);
+      workers.add(worker);
+    }
+    return workers;
+  }
+
+  private static PartitionedCalendar connect(List<FreeBusyWorker> workers) throws IOException {
+    List<InetSocketAddress> addresses = new ArrayList<>();
+    for (FreeBusyWorker worker : workers) {
+      addresses.add(worker.getAddress());
+    }
+    return new PartitionedCalendar(addresses);
+  }
+
+  private static void closeAll(List<FreeBusyWorker> workers) throws IOException {
+    for (FreeBusyWorker worker : workers) {
+      worker.close();
+    }
+  }
+}
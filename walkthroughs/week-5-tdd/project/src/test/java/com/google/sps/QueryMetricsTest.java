@@ -0,0 +1,154 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class QueryMetricsTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_60_MINUTES = 60;
+
+  @Test
+  public void histogramPercentilesAreClose() {
+    Random random = new Random(19);
+    Histogram histogram = new Histogram();
+    long[] values = new long[10000];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = (long) Math.exp(random.nextDouble() * 20);
+      histogram.record(values[i]);
+    }
+    Arrays.sort(values);
+
+    for (double percentile : new double[] {50, 90, 99, 99.9}) {
+      long expected = values[(int) Math.ceil(values.length * percentile / 100) - 1];
+      long actual = histogram.getValueAtPercentile(percentile);
+      Assert.assertTrue(actual >= expected);
+      Assert.assertTrue(actual <= expected + expected / 16 + 1);
+    }
+    Assert.assertEquals(values[values.length - 1], histogram.getMax());
+    Assert.assertEquals(values.length, histogram.getCount());
+  }
+
+  @Test
+  public void bucketsCoverEveryValue() {
+    for (long value : new long[] {0, 1, 31, 32, 33, 63, 64, 1000, Long.MAX_VALUE}) {
+      int bucket = Histogram.getBucket(value);
+      Assert.assertTrue(Histogram.getBucketTop(bucket) >= value);
+      Assert.assertTrue(bucket == 0 || Histogram.getBucketTop(bucket - 1) < value);
+    }
+  }
+
+  @Test
+  public void queryRecordsItsWork() {
+    EventSnapshot snapshot = new VersionedEventStore(Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0900AM, DURATION_60_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM, DURATION_60_MINUTES),
+            Arrays.asList(PERSON_B, PERSON_C)))).snapshot();
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+    request.addOptionalAttendee(PERSON_C);
+    QueryMetrics metrics = new QueryMetrics(1);
+
+    TimeRangeList ranges = queryAndRecord(snapshot, request, metrics);
+
+    List<QueryTrace> slowest = metrics.getSlowest();
+    Assert.assertEquals(1, slowest.size());
+    QueryTrace trace = slowest.get(0);
+    Assert.assertEquals(2, trace.getOptionalAttendees());
+    Assert.assertEquals(ranges.size(), trace.getRangesProduced());
+    Assert.assertEquals(1, trace.getCombinationsEvaluated());
+    Assert.assertTrue(trace.getEventsScanned() > 0);
+    Assert.assertTrue(trace.getOptionalPassNanos() > 0);
+    Assert.assertTrue(trace.getTotalNanos() >= trace.getRequiredPassNanos());
+    Assert.assertEquals(1, metrics.getTotalNanos(2).getCount());
+    Assert.assertEquals(0, metrics.getTotalNanos(0).getCount());
+  }
+
+  @Test
+  public void optionalPassIsOnlyCountedWhenItRan() {
+    EventSnapshot snapshot = new VersionedEventStore(Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0900AM, DURATION_60_MINUTES),
+            Arrays.asList(PERSON_B)))).snapshot();
+    MeetingRequest required = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    MeetingRequest optional = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    optional.addOptionalAttendee(PERSON_B);
+    QueryMetrics metrics = new QueryMetrics(0);
+
+    queryAndRecord(snapshot, required, metrics);
+    queryAndRecord(snapshot, required, metrics);
+    queryAndRecord(snapshot, optional, metrics);
+
+    Assert.assertEquals(3, metrics.getTotalNanos().getCount());
+    Assert.assertEquals(1, metrics.getOptionalPassNanos().getCount());
+    Assert.assertEquals(1, metrics.getCombinationsEvaluated().getCount());
+    Assert.assertEquals(1, metrics.getCombinationsEvaluated().getMax());
+  }
+
+  @Test
+  public void eachDurationIsRecorded() {
+    EventSnapshot snapshot = new VersionedEventStore(Collections.emptyList()).snapshot();
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addDuration(DURATION_60_MINUTES);
+    QueryMetrics metrics = new QueryMetrics(2);
+
+    new FindMeetingQuery().queryEachDuration(snapshot, request, metrics);
+
+    Assert.assertEquals(2, metrics.getTotalNanos().getCount());
+    Assert.assertEquals(0, metrics.getOptionalPassNanos().getCount());
+  }
+
+  @Test
+  public void keepsOnlyTheSlowestQueries() {
+    QueryMetrics metrics = new QueryMetrics(2);
+    MeetingRequest request = new MeetingRequest(Collections.emptyList(), DURATION_30_MINUTES);
+    for (long nanos : new long[] {5, 1, 9, 3, 7}) {
+      QueryTrace trace = new QueryTrace(request);
+      trace.totalNanos = nanos;
+      metrics.record(trace);
+    }
+
+    List<QueryTrace> slowest = metrics.getSlowest();
+
+    Assert.assertEquals(2, slowest.size());
+    Assert.assertEquals(9, slowest.get(0).getTotalNanos());
+    Assert.assertEquals(7, slowest.get(1).getTotalNanos());
+    Assert.assertEquals(5, metrics.getTotalNanos().getCount());
+  }
+
+  private static TimeRangeList queryAndRecord(
+      EventSnapshot snapshot, MeetingRequest request, QueryMetrics metrics) {
+    QueryTrace trace = new QueryTrace(request);
+    TimeRangeList ranges =
+        new FindMeetingQuery().query(snapshot, request, SearchBudget.unlimited(), trace);
+    metrics.record(trace);
+    return ranges;
+  }
+}
@@ -0,0 +1,82 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Random calendars and requests for checking that a finder gives the same ranges as
+ * {@link FindMeetingQuery#query(java.util.Collection, MeetingRequest)} over the same events.
+ */
+final class RandomCalendars {
+  static final List<String> PEOPLE = Arrays.asList("A", "B", "C", "D", "E", "F");
+
+  private RandomCalendars() {
+    // Disallow instances.
+  }
+
+  /**
+   * Returns up to 11 events of up to four hours each, starting anywhere in the day. Some run past
+   * the end of the day.
+   */
+  static List<Event> events(Random random) {
+    List<Event> events = new ArrayList<>();
+    int eventCount = random.nextInt(12);
+    for (int i = 0; i < eventCount; i++) {
+      int start = random.nextInt(TimeRange.WHOLE_DAY.duration());
+      int duration = random.nextInt(240);
+      events.add(new Event(
+          "Event " + i, TimeRange.fromStartDuration(start, duration), attendees(random)));
+    }
+    return events;
+  }
+
+  /**
+   * Returns about a third of {@code PEOPLE}, in order.
+   */
+  static List<String> attendees(Random random) {
+    List<String> attendees = new ArrayList<>();
+    for (String person : PEOPLE) {
+      if (random.nextInt(3) == 0) {
+        attendees.add(person);
+      }
+    }
+    return attendees;
+  }
+
+  /**
+   * Returns a request for up to two of the first three people, with up to three of the others as
+   * optional attendees, for less than three hours. The duration can be zero.
+   */
+  static MeetingRequest request(Random random) {
+    return request(random, 0);
+  }
+
+  /**
+   * Returns a request like {@link #request(Random)} that is at least {@code minimumDuration}
+   * minutes long.
+   */
+  static MeetingRequest request(Random random, int minimumDuration) {
+    MeetingRequest request = new MeetingRequest(
+        PEOPLE.subList(0, random.nextInt(3)), minimumDuration + random.nextInt(180));
+    for (String person : PEOPLE.subList(3, 3 + random.nextInt(4))) {
+      request.addOptionalAttendee(person);
+    }
+    return request;
+  }
+}
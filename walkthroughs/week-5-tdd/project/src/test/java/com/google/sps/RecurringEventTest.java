@@ -0,0 +1,162 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class RecurringEventTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  // The first day of the year 2020, which was a Wednesday.
+  private static final long DAY_1 = EpochRange.wholeDay(18262).start();
+  private static final long DAY = EpochRange.MINUTES_PER_DAY;
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_0915AM = TimeRange.getTimeInMinutes(9, 15);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  private static final int DURATION_15_MINUTES = 15;
+  private static final int DURATION_30_MINUTES = 30;
+
+  private final FindMeetingQuery query = new FindMeetingQuery();
+
+  @Test
+  public void dailyOccurrencesOnlyInsideWindow() {
+    RecurringEvent standUp = new RecurringEvent("Stand-up",
+        EpochRange.fromStartDuration(DAY_1 + TIME_0900AM, DURATION_15_MINUTES),
+        RecurrenceRule.daily(), Arrays.asList(PERSON_A));
+
+    List<EpochRange> actual = standUp.getOccurrences(EpochRange.wholeDay(18264));
+    List<EpochRange> expected = Arrays.asList(
+        EpochRange.fromStartDuration(DAY_1 + 2 * DAY + TIME_0900AM, DURATION_15_MINUTES));
+
+    Assert.assertEquals(expected, actual);
+    Assert.assertEquals(Arrays.asList(), standUp.getOccurrences(EpochRange.wholeDay(18261)));
+  }
+
+  @Test
+  public void weeklyOnWeekdaysWithExceptionsAndEnd() {
+    // Occurrences on Wednesday, Friday and Monday, without the second Wednesday, up to the second
+    // Saturday.
+    RecurrenceRule rule = RecurrenceRule
+        .weekly(Arrays.asList(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY, DayOfWeek.FRIDAY))
+        .except(Arrays.asList(DAY_1 + 7 * DAY + TIME_0900AM))
+        .until(DAY_1 + 10 * DAY);
+    RecurringEvent series = new RecurringEvent("Sync",
+        EpochRange.fromStartDuration(DAY_1 + TIME_0900AM, DURATION_15_MINUTES), rule,
+        Arrays.asList(PERSON_A));
+
+    List<EpochRange> actual =
+        series.getOccurrences(EpochRange.fromStartDuration(DAY_1, 14 * DAY));
+    List<EpochRange> expected = new ArrayList<>();
+    for (int day : new int[] {0, 2, 5, 9}) {
+      expected.add(EpochRange.fromStartDuration(DAY_1 + day * DAY + TIME_0900AM,
+          DURATION_15_MINUTES));
+    }
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void longSeriesOnlyExpandsTheWindow() {
+    // A daily series that runs for a hundred years is searched a century in, one day at a time.
+    RecurringEvent standUp = new RecurringEvent("Stand-up",
+        EpochRange.fromStartDuration(DAY_1 + TIME_0900AM, DURATION_15_MINUTES),
+        RecurrenceRule.daily().until(DAY_1 + 36500 * DAY), Arrays.asList(PERSON_A));
+    EpochCalendar calendar =
+        new EpochCalendar(Collections.emptyList(), Arrays.asList(standUp));
+
+    long lastDay = DAY_1 + 36499 * DAY;
+    List<EpochRange> actual =
+        calendar.getBusyRanges(Arrays.asList(PERSON_A), EpochRange.fromStartDuration(lastDay, DAY));
+    List<EpochRange> expected =
+        Arrays.asList(EpochRange.fromStartDuration(lastDay + TIME_0900AM, DURATION_15_MINUTES));
+
+    Assert.assertEquals(expected, actual);
+    Assert.assertEquals(Arrays.asList(), calendar.getBusyRanges(
+        Arrays.asList(PERSON_A), EpochRange.fromStartDuration(lastDay + DAY, DAY)));
+  }
+
+  @Test
+  public void queryWorksAroundOccurrences() {
+    RecurringEvent standUp = new RecurringEvent("Stand-up",
+        EpochRange.fromStartDuration(DAY_1 + TIME_0900AM, DURATION_15_MINUTES),
+        RecurrenceRule.daily(), Arrays.asList(PERSON_A));
+    EpochCalendar calendar =
+        new EpochCalendar(Collections.emptyList(), Arrays.asList(standUp));
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+    EpochRange horizon =
+        EpochRange.fromStartEnd(DAY_1 + 400 * DAY + TIME_0900AM, DAY_1 + 400 * DAY + TIME_1000AM);
+
+    Collection<EpochRange> actual = query.query(calendar, request, horizon);
+    Collection<EpochRange> expected = Arrays.asList(EpochRange.fromStartEnd(
+        DAY_1 + 400 * DAY + TIME_0915AM, DAY_1 + 400 * DAY + TIME_1000AM));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void matchesExpandedEvents() {
+    Random random = new Random(5);
+    List<RecurringEvent> series = new ArrayList<>();
+    List<EpochEvent> expanded = new ArrayList<>();
+    EpochRange everything = EpochRange.fromStartDuration(DAY_1, 200 * DAY);
+    for (int i = 0; i < 20; i++) {
+      List<DayOfWeek> weekdays = new ArrayList<>();
+      for (DayOfWeek weekday : DayOfWeek.values()) {
+        if (random.nextInt(3) == 0) {
+          weekdays.add(weekday);
+        }
+      }
+      RecurrenceRule rule = random.nextBoolean()
+          ? RecurrenceRule.everyDays(1 + random.nextInt(3))
+          : RecurrenceRule.everyWeeks(1 + random.nextInt(2), weekdays);
+      rule = rule.until(DAY_1 + random.nextInt(200) * DAY);
+      EpochRange first = EpochRange.fromStartDuration(
+          DAY_1 + random.nextInt(30 * (int) DAY), 1 + random.nextInt(3000));
+      RecurringEvent event = new RecurringEvent("Series " + i, first, rule,
+          Arrays.asList(random.nextBoolean() ? PERSON_A : PERSON_B));
+      series.add(event);
+      for (EpochRange occurrence : event.getOccurrences(everything)) {
+        expanded.add(new EpochEvent(event.getTitle(), occurrence, event.getAttendees()));
+      }
+    }
+    EpochCalendar recurring = new EpochCalendar(Collections.emptyList(), series);
+    EpochCalendar oneOff = new EpochCalendar(expanded);
+
+    for (int trial = 0; trial < 200; trial++) {
+      EpochRange window = EpochRange.fromStartDuration(
+          DAY_1 + random.nextInt(190 * (int) DAY), 1 + random.nextInt(5 * (int) DAY));
+      List<String> attendees = Arrays.asList(PERSON_A, PERSON_B);
+
+      Assert.assertEquals(
+          oneOff.getBusyRanges(attendees, window), recurring.getBusyRanges(attendees, window));
+    }
+  }
+}
@@ -0,0 +1,166 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class RoomCalendarTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final Room SMALL_ROOM = new Room("Small Room", 1);
+  private static final Room LARGE_ROOM = new Room("Large Room", 2);
+  private static final Room OTHER_LARGE_ROOM = new Room("Other Large Room", 2);
+
+  private static final int TIME_0830AM = TimeRange.getTimeInMinutes(8, 30);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_0930AM = TimeRange.getTimeInMinutes(9, 30);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+  private static final int TIME_1200PM = TimeRange.getTimeInMinutes(12, 0);
+  private static final int TIME_0200PM = TimeRange.getTimeInMinutes(14, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_60_MINUTES = 60;
+
+  private final FindMeetingQuery query = new FindMeetingQuery();
+
+  @Test
+  public void roomsThatAreTooSmallAreSkipped() {
+    // The small room is always free, but only the large room holds both attendees.
+    Collection<Event> events = Arrays.asList(new Event("Booking",
+        TimeRange.fromStartDuration(TIME_0900AM, DURATION_60_MINUTES),
+        Arrays.asList(LARGE_ROOM.getName())));
+    RoomCalendar rooms = new RoomCalendar(Arrays.asList(SMALL_ROOM, LARGE_ROOM), events);
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+
+    Collection<TimeRange> actual = query.query(events, rooms, request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+            TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void rangesOfDifferentRoomsCanOverlap() {
+    // Neither room is free from 8:30 to 11:00, but a meeting can start at any time in between by
+    // picking the right room.
+    Collection<Event> events = Arrays.asList(
+        new Event("Booking 1", TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false),
+            Arrays.asList(LARGE_ROOM.getName())),
+        new Event("Booking 2", TimeRange.fromStartEnd(TIME_0830AM, TIME_0930AM, false),
+            Arrays.asList(OTHER_LARGE_ROOM.getName())));
+    RoomCalendar rooms = new RoomCalendar(Arrays.asList(LARGE_ROOM, OTHER_LARGE_ROOM), events);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES);
+
+    Collection<TimeRange> actual = query.query(events, rooms, request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_1000AM, false),
+            TimeRange.fromStartEnd(TIME_0930AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+    Assert.assertEquals(Arrays.asList(OTHER_LARGE_ROOM), rooms.getFreeRooms(
+        TimeRange.fromStartDuration(TIME_1000AM, DURATION_60_MINUTES), 1));
+  }
+
+  @Test
+  public void freeRoomsAreListedSmallestFirst() {
+    RoomCalendar rooms =
+        new RoomCalendar(Arrays.asList(LARGE_ROOM, SMALL_ROOM), Collections.emptyList());
+    TimeRange slot = TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES);
+
+    List<Room> actual = rooms.getFreeRooms(slot, 1);
+    List<Room> expected = Arrays.asList(SMALL_ROOM, LARGE_ROOM);
+
+    Assert.assertEquals(expected, actual);
+    Assert.assertEquals(Arrays.asList(LARGE_ROOM), rooms.getFreeRooms(slot, 2));
+  }
+
+  @Test
+  public void optionalAttendeeWithoutARoomIsLeftOut() {
+    // Person B is free, but no room holds both attendees.
+    RoomCalendar rooms =
+        new RoomCalendar(Arrays.asList(SMALL_ROOM), Collections.emptyList());
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+
+    Collection<TimeRange> actual = query.query(Collections.emptyList(), rooms, request);
+    Collection<TimeRange> expected = Arrays.asList(TimeRange.WHOLE_DAY);
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void smallerOptionalGroupFitsWhenLargestDoesNot() {
+    // Person B and Person C can both attend, but the room only holds two people, so one of them
+    // joins Person A. Person B is busy for less of the day.
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_1200PM, TIME_0200PM, false),
+            Arrays.asList(PERSON_C)));
+    RoomCalendar rooms = new RoomCalendar(Arrays.asList(LARGE_ROOM), events);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+    request.addOptionalAttendee(PERSON_C);
+
+    Collection<TimeRange> actual = query.query(events, rooms, request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+            TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void manyOptionalAttendeesAndARoomForHalfOfThem() {
+    // There are too many groups of 20 out of 40 to check each one, so the room is filled with the
+    // optional attendees who are free the longest. Only Optional 0 has an event.
+    Collection<Event> events = Arrays.asList(new Event("Event 1",
+        TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false), Arrays.asList("Optional 0")));
+    RoomCalendar rooms = new RoomCalendar(Arrays.asList(new Room("Hall", 21)), events);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    for (int i = 0; i < 40; i++) {
+      request.addOptionalAttendee("Optional " + i);
+    }
+
+    Collection<TimeRange> actual = query.query(events, rooms, request);
+    Collection<TimeRange> expected = Arrays.asList(TimeRange.WHOLE_DAY);
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void noRoomsMeansNoOptions() {
+    RoomCalendar rooms = new RoomCalendar(Collections.emptyList(), Collections.emptyList());
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    Collection<TimeRange> actual = query.query(Collections.emptyList(), rooms, request);
+
+    Assert.assertEquals(Arrays.asList(), actual);
+  }
+}
@@ -0,0 +1,132 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class TimeRangeListTest {
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0830AM = TimeRange.getTimeInMinutes(8, 30);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_0930AM = TimeRange.getTimeInMinutes(9, 30);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+
+  private static TimeRangeList of(TimeRange... ranges) {
+    return TimeRangeList.of(Arrays.asList(ranges));
+  }
+
+  @Test
+  public void packingKeepsStartAndDuration() {
+    TimeRangeList list = new TimeRangeList();
+    list.add(TIME_0900AM, 30);
+    list.add(TimeRange.START_OF_DAY, 0);
+
+    Assert.assertEquals(2, list.size());
+    Assert.assertEquals(TIME_0900AM, list.getStart(0));
+    Assert.assertEquals(30, list.getDuration(0));
+    Assert.assertEquals(TIME_0930AM, list.getEnd(0));
+    Assert.assertEquals(TimeRange.fromStartDuration(TimeRange.START_OF_DAY, 0), list.get(1));
+  }
+
+  @Test
+  public void sortAndMerge() {
+    // Events  :       |--B--|
+    //           |--A--|          |-C-|
+    //               |---D---|
+    // Merged  : |-----------|    |-C-|
+
+    TimeRangeList list = of(
+        TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM, false),
+        TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false),
+        TimeRange.fromStartEnd(TIME_0800AM, TIME_0830AM, false),
+        TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false));
+
+    list.sort();
+    list.merge();
+
+    Assert.assertEquals(of(
+        TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+        TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false)), list);
+    Assert.assertEquals(TimeRange.getTimeInMinutes(2, 0), list.totalDuration());
+  }
+
+  @Test
+  public void coveredDurationCountsOverlapOnce() {
+    TimeRangeList list = of(
+        TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+        TimeRange.fromStartEnd(TIME_0830AM, TIME_0930AM, false),
+        TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false));
+
+    Assert.assertEquals(180, list.totalDuration());
+    Assert.assertEquals(150, list.coveredDuration());
+  }
+
+  @Test
+  public void intersect() {
+    // A       : |--------|   |----|
+    // B       :      |---------|
+    // Result  :      |---|   |-|
+
+    TimeRangeList a = of(
+        TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+        TimeRange.fromStartEnd(TIME_0930AM, TIME_1100AM, false));
+    TimeRangeList b = of(TimeRange.fromStartEnd(TIME_0830AM, TIME_1000AM, false));
+
+    TimeRangeList expected = of(
+        TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM, false),
+        TimeRange.fromStartEnd(TIME_0930AM, TIME_1000AM, false));
+
+    Assert.assertEquals(expected, a.intersect(b));
+    Assert.assertEquals(expected, b.intersect(a));
+  }
+
+  @Test
+  public void subtract() {
+    // A       : |-------------------|
+    // B       :    |--|     |--|
+    // Result  : |--|  |-----|  |----|
+
+    TimeRangeList a = of(TimeRange.fromStartEnd(TIME_0800AM, TIME_1100AM, false));
+    TimeRangeList b = of(
+        TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM, false),
+        TimeRange.fromStartEnd(TIME_0930AM, TIME_1000AM, false));
+
+    TimeRangeList expected = of(
+        TimeRange.fromStartEnd(TIME_0800AM, TIME_0830AM, false),
+        TimeRange.fromStartEnd(TIME_0900AM, TIME_0930AM, false),
+        TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false));
+
+    Assert.assertEquals(expected, a.subtract(b));
+    Assert.assertEquals(new TimeRangeList(), b.subtract(a));
+  }
+
+  @Test
+  public void packedQueryMatchesQuery() {
+    EventStore store = new EventStore(Arrays.asList(Events.events));
+    MeetingRequest request =
+        new MeetingRequest(store.getEvent(0).getAttendees(), TimeRange.getTimeInMinutes(0, 30));
+
+    FindMeetingQuery query = new FindMeetingQuery();
+    Assert.assertEquals(query.query(store, request),
+        query.query(store, request, SearchBudget.unlimited(), null).toTimeRanges());
+  }
+}
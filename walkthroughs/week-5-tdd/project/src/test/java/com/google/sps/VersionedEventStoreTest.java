@@ -0,0 +1,283 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class VersionedEventStoreTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_60_MINUTES = 60;
+
+  private final FindMeetingQuery query = new FindMeetingQuery();
+
+  @Test
+  public void oldSnapshotsDontSeeNewEvents() {
+    VersionedEventStore store = new VersionedEventStore(Collections.emptyList());
+    EventSnapshot before = store.snapshot();
+    Event event = new Event("Event 1",
+        TimeRange.fromStartDuration(TIME_0900AM, DURATION_60_MINUTES), Arrays.asList(PERSON_A));
+
+    long version = store.add(event);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    Assert.assertEquals(1, version);
+    Assert.assertEquals(Arrays.asList(TimeRange.WHOLE_DAY), query.query(before, request));
+    Assert.assertEquals(query.query(Arrays.asList(event), request),
+        query.query(store.snapshot(), request));
+    Assert.assertEquals(0, before.size());
+    Assert.assertEquals(Arrays.asList(event), store.snapshot().getEvents());
+  }
+
+  @Test
+  public void eventsWithNoAttendeesAreKeptInOrder() {
+    Event later = new Event("Event 1",
+        TimeRange.fromStartDuration(TIME_0900AM, DURATION_60_MINUTES), Arrays.asList(PERSON_A));
+    Event unattended = new Event("Event 2",
+        TimeRange.fromStartDuration(TIME_0800AM, DURATION_60_MINUTES), Collections.emptyList());
+    VersionedEventStore store = new VersionedEventStore(Arrays.asList(later, unattended));
+
+    Assert.assertEquals(2, store.snapshot().size());
+    Assert.assertEquals(Arrays.asList(later, unattended), store.snapshot().getEvents());
+
+    store.remove(unattended);
+
+    Assert.assertEquals(1, store.snapshot().size());
+    Assert.assertEquals(Arrays.asList(later), store.snapshot().getEvents());
+  }
+
+  @Test
+  public void addAllStoresEveryEvent() {
+    VersionedEventStore store = new VersionedEventStore(Collections.emptyList());
+    List<Event> added = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_60_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            Collections.emptyList()),
+        new Event("Event 3", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Collections.emptyList()));
+
+    store.addAll(added);
+
+    Assert.assertEquals(added.size(), store.snapshot().size());
+    Assert.assertEquals(added, store.snapshot().getEvents());
+  }
+
+  @Test
+  public void removingMissingEventLeavesStoreUnchanged() {
+    Event event = new Event("Event 1",
+        TimeRange.fromStartDuration(TIME_0900AM, DURATION_60_MINUTES), Arrays.asList(PERSON_A));
+    Event missing = new Event("Event 2",
+        TimeRange.fromStartDuration(TIME_0800AM, DURATION_60_MINUTES), Arrays.asList(PERSON_A));
+    VersionedEventStore store = new VersionedEventStore(Arrays.asList(event));
+
+    try {
+      store.update(Arrays.asList(event, missing), Collections.emptyList());
+      Assert.fail();
+    } catch (IllegalArgumentException expected) {
+      // The change is rejected as a whole.
+    }
+
+    Assert.assertEquals(0, store.snapshot().getVersion());
+    Assert.assertEquals(Arrays.asList(event), store.snapshot().getEvents(PERSON_A));
+  }
+
+  @Test
+  public void listenersHearAboutChangesBeforeReaders() {
+    VersionedEventStore store = new VersionedEventStore(Collections.emptyList());
+    List<String> heard = new ArrayList<>();
+    store.addListener((attendees, newVersion) -> {
+      Assert.assertTrue(store.snapshot().getVersion() < newVersion);
+      heard.addAll(attendees);
+    });
+
+    store.add(new Event("Event 1", TimeRange.fromStartDuration(TIME_0900AM, DURATION_60_MINUTES),
+        Arrays.asList(PERSON_B)));
+
+    Assert.assertEquals(Arrays.asList(PERSON_B), heard);
+  }
+
+  @Test
+  public void failingListenerStillLeavesTheChangePublished() {
+    VersionedEventStore store = new VersionedEventStore(Collections.emptyList());
+    List<Long> heard = new ArrayList<>();
+    store.addListener((attendees, newVersion) -> {
+      throw new IllegalStateException("listener failed");
+    });
+    store.addListener((attendees, newVersion) -> heard.add(newVersion));
+
+    try {
+      store.add(new Event("Event 1",
+          TimeRange.fromStartDuration(TIME_0900AM, DURATION_60_MINUTES), Arrays.asList(PERSON_B)));
+      Assert.fail("the listener's exception should be thrown");
+    } catch (IllegalStateException e) {
+      Assert.assertEquals("listener failed", e.getMessage());
+    }
+
+    Assert.assertEquals(Arrays.asList(1L), heard);
+    Assert.assertEquals(1, store.snapshot().getVersion());
+    Assert.assertEquals(1, store.snapshot().getEvents(PERSON_B).size());
+  }
+
+  @Test
+  public void cacheKeepsAnswersForOtherAttendees() {
+    VersionedEventStore store = new VersionedEventStore(Collections.emptyList());
+    MeetingQueryCache cache = new MeetingQueryCache(10);
+    store.addListener(cache::invalidate);
+    MeetingRequest requestA = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    MeetingRequest requestB = new MeetingRequest(Arrays.asList(PERSON_B), DURATION_30_MINUTES);
+    EventSnapshot snapshot = store.snapshot();
+    cache.get(requestA, snapshot.getVersion(), () -> query.query(snapshot, requestA));
+    cache.get(requestB, snapshot.getVersion(), () -> query.query(snapshot, requestB));
+
+    store.add(new Event("Event 1", TimeRange.fromStartDuration(TIME_0900AM, DURATION_60_MINUTES),
+        Arrays.asList(PERSON_A)));
+
+    Assert.assertEquals(1, cache.size());
+    Assert.assertEquals(1, cache.getInvalidations());
+  }
+
+  @Test
+  public void matchesQueryAfterRandomEdits() {
+    Random random = new Random(17);
+    VersionedEventStore store = new VersionedEventStore(Collections.emptyList());
+    // The events in the order they were added, which is the order the snapshot keeps them in.
+    List<Event> events = new ArrayList<>();
+
+    for (int edit = 0; edit < 1000; edit++) {
+      if (!events.isEmpty() && random.nextInt(3) == 0) {
+        // The store takes out the first of equal events, so the list does too.
+        Event removed = events.get(random.nextInt(events.size()));
+        events.remove(removed);
+        store.remove(removed);
+      } else {
+        // Few titles and times, so that equal events are common.
+        Event event = new Event("Event " + random.nextInt(3), TimeRange.fromStartDuration(
+            random.nextInt(48) * 30, random.nextInt(5) * 30), RandomCalendars.attendees(random));
+        events.add(event);
+        store.add(event);
+      }
+
+      MeetingRequest request = RandomCalendars.request(random);
+      Collection<TimeRange> expected = query.query(events, request);
+      Collection<TimeRange> actual = query.query(store.snapshot(), request);
+      Assert.assertEquals(expected, actual);
+      Assert.assertEquals(events, store.snapshot().getEvents());
+    }
+  }
+
+  @Test
+  public void addAllMatchesQueryOverBatches() {
+    Random random = new Random(29);
+    VersionedEventStore store = new VersionedEventStore(Collections.emptyList());
+    List<Event> events = new ArrayList<>();
+
+    for (int batch = 0; batch < 50; batch++) {
+      List<Event> added = new ArrayList<>();
+      int eventCount = random.nextInt(20);
+      for (int i = 0; i < eventCount; i++) {
+        // Few times, so that events in a batch and across batches often start together.
+        added.add(new Event("Event " + events.size() + i, TimeRange.fromStartDuration(
+            random.nextInt(12) * 120, random.nextInt(5) * 30), RandomCalendars.attendees(random)));
+      }
+      events.addAll(added);
+
+      Assert.assertEquals(batch + 1, store.addAll(added));
+      Assert.assertEquals(events, store.snapshot().getEvents());
+      for (int i = 0; i < 5; i++) {
+        MeetingRequest request = RandomCalendars.request(random);
+        Assert.assertEquals(query.query(events, request), query.query(store.snapshot(), request));
+      }
+    }
+  }
+
+  @Test
+  public void busyRangesAreMergedAndClippedToWindow() {
+    int time1000AM = TimeRange.getTimeInMinutes(10, 0);
+    int time1100AM = TimeRange.getTimeInMinutes(11, 0);
+    VersionedEventStore store = new VersionedEventStore(Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_60_MINUTES),
+            Arrays.asList(PERSON_A)),
+        // Touches the first event, so the two are one busy range.
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A, PERSON_B)),
+        // Takes no time, so it doesn't make Person A busy.
+        new Event("Event 3", TimeRange.fromStartDuration(time1000AM, 0),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 4", TimeRange.fromStartDuration(time1100AM, DURATION_60_MINUTES),
+            Arrays.asList(PERSON_A))));
+
+    TimeRange window = TimeRange.fromStartEnd(TIME_0800AM + DURATION_30_MINUTES,
+        time1100AM + DURATION_30_MINUTES, false);
+    List<TimeRange> actual = store.snapshot().getBusyRanges(PERSON_A, window).toTimeRanges();
+    List<TimeRange> expected = Arrays.asList(
+        TimeRange.fromStartEnd(TIME_0800AM + DURATION_30_MINUTES,
+            TIME_0900AM + DURATION_30_MINUTES, false),
+        TimeRange.fromStartDuration(time1100AM, DURATION_30_MINUTES));
+
+    Assert.assertEquals(expected, actual);
+    Assert.assertTrue(store.snapshot().getBusyRanges("Person C", window).isEmpty());
+  }
+
+  @Test
+  public void readersSeeWholeChanges() throws InterruptedException {
+    // The writer keeps moving a pair of events together, so every snapshot holds exactly two.
+    Event first = new Event("Event 1",
+        TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES), Arrays.asList(PERSON_A));
+    Event second = new Event("Event 2",
+        TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES), Arrays.asList(PERSON_B));
+    VersionedEventStore store = new VersionedEventStore(Arrays.asList(first, second));
+    AtomicBoolean done = new AtomicBoolean();
+    AtomicReference<String> failure = new AtomicReference<>();
+
+    Thread reader = new Thread(() -> {
+      long lastVersion = -1;
+      while (!done.get()) {
+        EventSnapshot snapshot = store.snapshot();
+        if (snapshot.size() != 2 || snapshot.getVersion() < lastVersion) {
+          failure.set("saw " + snapshot.size() + " events at version " + snapshot.getVersion());
+        }
+        lastVersion = snapshot.getVersion();
+      }
+    });
+    reader.start();
+    for (int i = 0; i < 2000; i++) {
+      store.update(Arrays.asList(first, second), Arrays.asList(second, first));
+    }
+    done.set(true);
+    reader.join();
+
+    Assert.assertNull(failure.get());
+    Assert.assertEquals(2000, store.snapshot().getVersion());
+  }
+}
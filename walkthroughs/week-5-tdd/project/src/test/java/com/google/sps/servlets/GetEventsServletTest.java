@@ -0,0 +1,60 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class GetEventsServletTest {
+  private static final String ETAG = "\"3-abc\"";
+
+  @Test
+  public void gzipIsAcceptedUnlessRefused() {
+    Assert.assertFalse(GetEventsServlet.acceptsGzip(null));
+    Assert.assertFalse(GetEventsServlet.acceptsGzip("identity"));
+    Assert.assertTrue(GetEventsServlet.acceptsGzip("deflate, GZIP"));
+    Assert.assertTrue(GetEventsServlet.acceptsGzip("gzip;q=0.5"));
+    Assert.assertFalse(GetEventsServlet.acceptsGzip("gzip;q=0"));
+    Assert.assertFalse(GetEventsServlet.acceptsGzip("gzip; Q=0.000"));
+    Assert.assertFalse(GetEventsServlet.acceptsGzip("gzip;q=high"));
+  }
+
+  @Test
+  public void gzipEntryTakesPrecedenceOverWildcard() {
+    Assert.assertTrue(GetEventsServlet.acceptsGzip("*"));
+    Assert.assertFalse(GetEventsServlet.acceptsGzip("*;q=0"));
+    Assert.assertTrue(GetEventsServlet.acceptsGzip("*;q=0, gzip"));
+    Assert.assertFalse(GetEventsServlet.acceptsGzip("*, gzip;q=0"));
+    Assert.assertFalse(GetEventsServlet.acceptsGzip("gzip;q=0, *"));
+  }
+
+  @Test
+  public void ifNoneMatchListsTags() {
+    Assert.assertFalse(GetEventsServlet.matches(null, ETAG));
+    Assert.assertTrue(GetEventsServlet.matches(ETAG, ETAG));
+    Assert.assertTrue(GetEventsServlet.matches("\"2-def\", " + ETAG, ETAG));
+    Assert.assertFalse(GetEventsServlet.matches("\"2-def\"", ETAG));
+  }
+
+  @Test
+  public void weakTagsAndWildcardMatch() {
+    Assert.assertTrue(GetEventsServlet.matches("W/" + ETAG, ETAG));
+    Assert.assertTrue(GetEventsServlet.matches("*", ETAG));
+  }
+}
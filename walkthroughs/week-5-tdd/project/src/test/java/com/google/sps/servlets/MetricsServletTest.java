@@ -0,0 +1,95 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.JsonObject;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.reflect.Proxy;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class MetricsServletTest {
+  // Nobody else asks about this attendee, so the first query is always a miss.
+  private static final String REQUEST_BODY =
+      "{\"attendees\": [\"Metrics Servlet Test\"], \"duration\": 30}";
+
+  @Test
+  public void cacheCountersAreReported() throws IOException {
+    JsonObject before = getCacheMetrics();
+
+    QueryServlet queryServlet = new QueryServlet();
+    queryServlet.doPost(newRequest(REQUEST_BODY), newResponse(new StringWriter()));
+    queryServlet.doPost(newRequest(REQUEST_BODY), newResponse(new StringWriter()));
+
+    JsonObject after = getCacheMetrics();
+    Assert.assertEquals(before.get("hits").getAsLong() + 1, after.get("hits").getAsLong());
+    Assert.assertEquals(before.get("misses").getAsLong() + 1, after.get("misses").getAsLong());
+    Assert.assertEquals(before.get("evictions").getAsLong(), after.get("evictions").getAsLong());
+    Assert.assertTrue(after.has("invalidations"));
+  }
+
+  private static JsonObject getCacheMetrics() throws IOException {
+    StringWriter body = new StringWriter();
+    new MetricsServlet().doGet(newRequest(""), newResponse(body));
+    return JsonSupport.GSON.fromJson(body.toString(), JsonObject.class).getAsJsonObject("cache");
+  }
+
+  /**
+   * Returns a request with the given body. Every other method returns its type's default.
+   */
+  private static HttpServletRequest newRequest(String body) {
+    return (HttpServletRequest) Proxy.newProxyInstance(
+        HttpServletRequest.class.getClassLoader(), new Class<?>[] {HttpServletRequest.class},
+        (proxy, method, args) -> method.getName().equals("getReader")
+            ? new BufferedReader(new StringReader(body))
+            : defaultValue(method.getReturnType()));
+  }
+
+  /**
+   * Returns a response that writes its body to {@code body}. Every other method returns its type's
+   * default.
+   */
+  private static HttpServletResponse newResponse(StringWriter body) {
+    PrintWriter writer = new PrintWriter(body);
+    return (HttpServletResponse) Proxy.newProxyInstance(
+        HttpServletResponse.class.getClassLoader(), new Class<?>[] {HttpServletResponse.class},
+        (proxy, method, args) -> method.getName().equals("getWriter")
+            ? writer
+            : defaultValue(method.getReturnType()));
+  }
+
+  private static Object defaultValue(Class<?> type) {
+    if (type == boolean.class) {
+      return false;
+    }
+    if (type == int.class) {
+      return 0;
+    }
+    if (type == long.class) {
+      return 0L;
+    }
+    return null;
+  }
+}